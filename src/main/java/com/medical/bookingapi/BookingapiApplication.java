@@ -2,8 +2,10 @@ package com.medical.bookingapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BookingapiApplication {
 
 	public static void main(String[] args) {
@@ -1,13 +1,17 @@
 package com.medical.bookingapi.auth;
 
+import com.medical.bookingapi.dto.RefreshRequestDTO;
 import com.medical.bookingapi.dto.RegisterRequestDTO;
 import com.medical.bookingapi.dto.UserLoginDTO;
 import com.medical.bookingapi.dto.UserResponseDTO;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -32,4 +36,24 @@ public class AuthController {
 
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<UserResponseDTO> refresh(@RequestBody @Valid RefreshRequestDTO request){
+
+        UserResponseDTO response = authService.refresh(request);
+        return ResponseEntity.ok(response);
+
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                       @RequestBody(required = false) RefreshRequestDTO session){
+
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Bearer token required");
+        }
+        authService.logout(authorization.substring(7), session == null ? null : session.getRefreshToken());
+        return ResponseEntity.noContent().build();
+
+    }
+
 }
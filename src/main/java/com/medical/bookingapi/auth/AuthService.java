@@ -3,8 +3,12 @@ package com.medical.bookingapi.auth;
 import com.medical.bookingapi.dto.*;
 import com.medical.bookingapi.model.*;
 import com.medical.bookingapi.repository.UserRepository;
+import com.medical.bookingapi.security.AuthUserDetails;
 import com.medical.bookingapi.security.CustomUserDetails;
 import com.medical.bookingapi.security.JwtService;
+import com.medical.bookingapi.security.TokenRevocationList;
+import com.medical.bookingapi.service.BookingCaches;
+import com.medical.bookingapi.service.LastLoginRecorder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -20,6 +24,10 @@ public class AuthService {
   private final UserRepository userRepository;
   private final PasswordEncoder passwordEncoder;
   private final AuthenticationManager authenticationManager;
+  private final BookingCaches bookingCaches;
+  private final LastLoginRecorder lastLoginRecorder;
+  private final TokenRevocationList tokenRevocations;
+  private final RefreshTokenService refreshTokenService;
 
   // Patient self-signup
   public void registerPatient(RegisterRequestDTO req) {
@@ -33,6 +41,7 @@ public class AuthService {
     p.setPassword_hash(passwordEncoder.encode(req.getPassword()));
     p.setRole("PATIENT");
     userRepository.save(p);
+    bookingCaches.evictAuthUser(p.getEmail());
   }
 
   // Admin creates Patient with extra fields
@@ -51,6 +60,7 @@ public class AuthService {
     p.setAllergies(dto.getAllergies());
     p.setInsuranceId(dto.getInsuranceId());
     userRepository.save(p);
+    bookingCaches.evictAuthUser(p.getEmail());
   }
 
   // Admin creates Doctor
@@ -68,6 +78,7 @@ public class AuthService {
     d.setSpeciality(dto.getSpeciality());
     d.setLicenseNumber(dto.getLicenseNumber());
     userRepository.save(d);
+    bookingCaches.evictAuthUser(d.getEmail());
   }
 
   // Admin creates Admin
@@ -82,6 +93,7 @@ public class AuthService {
     a.setPassword_hash(passwordEncoder.encode(dto.getPassword()));
     a.setRole("ADMIN");
     userRepository.save(a);
+    bookingCaches.evictAuthUser(a.getEmail());
   }
 
   public UserResponseDTO login(UserLoginDTO request) {
@@ -89,14 +101,40 @@ public class AuthService {
       var auth = authenticationManager.authenticate(
           new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
       );
-      var userDetails = (CustomUserDetails) auth.getPrincipal();
-      var user = userDetails.getUser();
+      // The slim users-only view that authenticated the request is enough for the token and the
+      // response; the subclass entity (joins to doctor/patient/admins) is never loaded
+      var userDetails = auth.getPrincipal() instanceof AuthUserDetails details
+          ? details
+          : new AuthUserDetails(userRepository.findAuthViewByEmail(request.getEmail())
+              .orElseThrow(() -> new RuntimeException("Invalid credentials")));
+      var user = userDetails.getView();
+      lastLoginRecorder.record(user.id());
       var token = jwtService.generateToken(userDetails);
+      var refreshToken = refreshTokenService.issue(user.id());
       return new UserResponseDTO(
-          user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(), user.getRole(), token
+          user.id(), user.firstName(), user.lastName(), user.email(), user.role(), token, refreshToken
       );
     } catch (AuthenticationException e) {
       throw new RuntimeException("Invalid credentials");
     }
   }
+
+  // New access + refresh token for a valid refresh token; no password check, so no BCrypt work
+  public UserResponseDTO refresh(RefreshRequestDTO request) {
+    var rotation = refreshTokenService.rotate(request.getRefreshToken());
+    var user = rotation.user();
+    var token = jwtService.generateToken(new CustomUserDetails(user));
+    return new UserResponseDTO(
+        user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(), user.getRole(), token, rotation.refreshToken()
+    );
+  }
+
+  // Revokes the presented token (other instances reject it within one revocation refresh interval)
+  // and, when given, the refresh token family of the session
+  public void logout(String token, String refreshToken) {
+    tokenRevocations.revoke(jwtService.verify(token));
+    if (refreshToken != null && !refreshToken.isBlank()) {
+      refreshTokenService.revoke(refreshToken);
+    }
+  }
 }
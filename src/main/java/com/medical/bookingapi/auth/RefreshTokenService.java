@@ -0,0 +1,123 @@
+package com.medical.bookingapi.auth;
+
+import com.medical.bookingapi.model.RefreshToken;
+import com.medical.bookingapi.model.User;
+import com.medical.bookingapi.repository.RefreshTokenRepository;
+import com.medical.bookingapi.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque refresh tokens with rotation. A login starts a family; every refresh marks the presented
+ * token used and issues its successor in the same family. Presenting an already used token again
+ * means it leaked, so the whole family is revoked and the holder has to log in again.
+ * Tokens are 256 random bits and stored only as SHA-256: unlike passwords they need no BCrypt.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository repository;
+    private final UserRepository userRepository;
+    private final Duration ttl;
+
+    public RefreshTokenService(RefreshTokenRepository repository, UserRepository userRepository,
+                               @Value("${security.jwt.refresh-token-ttl:14d}") Duration ttl) {
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.ttl = ttl;
+    }
+
+    /** The user behind a refreshed token and the refresh token that replaces it. */
+    public record Rotation(User user, String refreshToken) { }
+
+    /** Starts a new family for a fresh login and returns its first token. */
+    @Transactional
+    public String issue(Long userId) {
+        // the foreign key only needs a reference: the user row (and its subclass joins) is not read
+        return create(userRepository.getReferenceById(userId), UUID.randomUUID(), LocalDateTime.now());
+    }
+
+    // noRollbackFor: the family revocation on reuse must survive the 401
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Rotation rotate(String presented) {
+        RefreshToken current = repository.findWithUserByTokenHash(hash(presented))
+            .orElseThrow(RefreshTokenService::invalid);
+        LocalDateTime now = LocalDateTime.now();
+        if (current.getRevokedAt() != null || current.getExpiresAt().isBefore(now)) {
+            throw invalid();
+        }
+        if (repository.markUsed(current.getId(), now) == 0) {
+            repository.revokeFamily(current.getFamilyId(), now);
+            log.warn("Refresh token reused for user {}; revoked its token family", current.getUser().getId());
+            throw invalid();
+        }
+        User user = current.getUser();
+        return new Rotation(user, create(user, current.getFamilyId(), now));
+    }
+
+    /** Ends the session the token belongs to, e.g. on logout. Unknown tokens are ignored. */
+    @Transactional
+    public void revoke(String presented) {
+        repository.findWithUserByTokenHash(hash(presented))
+            .ifPresent(t -> repository.revokeFamily(t.getFamilyId(), LocalDateTime.now()));
+    }
+
+    // used tokens are kept until they expire, so reuse is still detected until then
+    @Scheduled(cron = "${booking.auth.refresh-tokens.purge-cron:0 45 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = repository.deleteExpiredBefore(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    private String create(User user, UUID family, LocalDateTime now) {
+        byte[] raw = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+
+        RefreshToken t = new RefreshToken();
+        t.setUser(user);
+        t.setFamilyId(family);
+        t.setTokenHash(hash(token));
+        t.setIssuedAt(now);
+        t.setExpiresAt(now.plus(ttl));
+        repository.save(t);
+        return token;
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+    }
+}
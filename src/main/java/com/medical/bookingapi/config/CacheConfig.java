@@ -0,0 +1,39 @@
+package com.medical.bookingapi.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Read caches for the hottest lookups. The cache manager itself (Caffeine, size and TTL bounded,
+ * with stats recorded for actuator metrics) is configured under spring.cache in application.yml;
+ * the names here must match spring.cache.cache-names. AUTH_USERS has its own, shorter TTL.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String DOCTORS = "doctors";                                 // DoctorDTO by doctor id
+    public static final String DOCTOR_SLOTS = "doctorSlots";                        // all slots of a doctor
+    public static final String DOCTOR_AVAILABLE_SLOTS = "doctorAvailableSlots";    // free slots of a doctor
+    public static final String AUTH_USERS = "authUsers";                            // AuthUserView by email
+
+    // Password hash and role must not outlive a missed eviction for long, hence the short TTL
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> authUserCache(
+            @Value("${booking.auth.user-cache.ttl:30s}") Duration ttl,
+            @Value("${booking.auth.user-cache.max-size:10000}") long maxSize) {
+        return cacheManager -> cacheManager.registerCustomCache(AUTH_USERS, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+    }
+}
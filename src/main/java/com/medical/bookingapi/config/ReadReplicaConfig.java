@@ -0,0 +1,78 @@
+package com.medical.bookingapi.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Primary/replica data sources, active once {@code booking.datasource.replica.url} is set; without it
+ * Spring Boot's single pool from spring.datasource stays in place. The primary pool is configured as
+ * before (spring.datasource, spring.datasource.hikari); the replica pool reuses its driver and
+ * credentials unless booking.datasource.replica.username/password say otherwise, and takes pool
+ * settings from booking.datasource.replica.hikari.
+ *
+ * <p>Both pools are beans, so Spring Boot binds the usual Hikari meters to each, told apart by the
+ * {@code pool} tag ("primary", "replica"). Everything that injects a DataSource gets the router.
+ *
+ * <p>Replicas lag, and a cache filled from one would keep the stale result until it expires or is
+ * evicted, not just for the lag. So everything that fills a cache reads in a read-write transaction
+ * and stays on the primary: the {@code @Cacheable} service methods, the query-cached doctor search
+ * and the AvailabilityIndex warm-up. Read-only transactions (slot paging and streaming, admin lists)
+ * use the replica. Doctors they load can still be put in the Hibernate second-level cache, which the
+ * users region's TTL bounds (application.conf).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "booking.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadReplicaRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("booking.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${booking.datasource.replica.url}") String url,
+            @Value("${booking.datasource.replica.username:#{null}}") String username,
+            @Value("${booking.datasource.replica.password:#{null}}") String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username != null ? username : properties.determineUsername())
+                .password(password != null ? password : properties.determinePassword())
+                .build();
+        dataSource.setPoolName(ReadReplicaRoutingDataSource.REPLICA);
+        // a write that slips through fails loudly instead of being attempted on the replica
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${booking.datasource.read-your-writes-window:5s}") Duration readYourWritesWindow,
+            MeterRegistry meterRegistry) {
+        // lazy: the connection (and so the pool) is picked at the first statement, once the read-only flag is set
+        return new LazyConnectionDataSourceProxy(
+                new ReadReplicaRoutingDataSource(primary, replica, readYourWritesWindow, meterRegistry));
+    }
+}
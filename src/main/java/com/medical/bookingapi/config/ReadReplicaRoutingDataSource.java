@@ -0,0 +1,96 @@
+package com.medical.bookingapi.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.medical.bookingapi.service.AfterCommit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends connections for read-only transactions to the replica pool and everything else (read-write
+ * transactions, work outside a transaction, Flyway, JdbcTemplate jobs) to the primary. A user whose
+ * read-write transaction committed less than {@code readYourWritesWindow} ago keeps reading from the
+ * primary, so their own changes never disappear behind replication lag.
+ *
+ * <p>The decision uses the transaction's read-only flag, which Spring sets only after the
+ * transaction manager has begun; {@link ReadReplicaConfig} therefore wraps this in a
+ * {@code LazyConnectionDataSourceProxy} that asks for the physical connection at the first statement.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    // users (authentication name) with a recent committed write, forgotten after the window
+    private final Cache<String, Boolean> recentWriters;
+    private final Counter readWrite;
+    private final Counter readOnlyOnReplica;
+    private final Counter readOnlyOnPrimary;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWritesWindow,
+                                        MeterRegistry meterRegistry) {
+        this(primary, replica, readYourWritesWindow, meterRegistry, Ticker.systemTicker());
+    }
+
+    ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWritesWindow,
+                                 MeterRegistry meterRegistry, Ticker ticker) {
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(readYourWritesWindow)
+                .ticker(ticker)
+                .build();
+        this.readWrite = routed(meterRegistry, PRIMARY, "read-write");
+        this.readOnlyOnReplica = routed(meterRegistry, REPLICA, "read-only");
+        this.readOnlyOnPrimary = routed(meterRegistry, PRIMARY, "read-only");
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String pool, String transaction) {
+        return Counter.builder("booking.datasource.routed")
+                .tag("pool", pool)
+                .tag("transaction", transaction)
+                .description("Connections handed out by the read-replica router; read-only on primary = read-your-writes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                AfterCommit.run(() -> recentWriters.put(user, Boolean.TRUE));
+            }
+            readWrite.increment();
+            return PRIMARY;
+        }
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            readOnlyOnPrimary.increment();
+            return PRIMARY;
+        }
+        readOnlyOnReplica.increment();
+        return REPLICA;
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth.getName();
+    }
+}
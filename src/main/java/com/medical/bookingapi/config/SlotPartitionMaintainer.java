@@ -0,0 +1,118 @@
+package com.medical.bookingapi.config;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the monthly partitions of appointment_slot (see V5__partition_appointment_slot.sql) ahead
+ * of the calendar: on startup and then daily it makes sure the current month and the next
+ * {@code months-ahead} months have their own partition, so slots do not pile up in the default
+ * partition. With {@code retention-months} set, months older than that are detached into the
+ * archive schema. The SQL functions are idempotent, so several instances may run this at once.
+ * PostgreSQL only.
+ */
+@Component
+public class SlotPartitionMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotPartitionMaintainer.class);
+
+    private static final String PARTITION_PREFIX = "appointment_slot_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public SlotPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                   @Value("${booking.slots.partitions.months-ahead:12}") int monthsAhead,
+                                   @Value("${booking.slots.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${booking.slots.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!isPostgres()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        createAhead(current);
+        if (retentionMonths > 0) {
+            archiveBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    private void createAhead(YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                Boolean created = jdbcTemplate.queryForObject(
+                    "select create_appointment_slot_partition(?)", Boolean.class, month.atDay(1));
+                if (Boolean.TRUE.equals(created)) {
+                    log.info("Created appointment_slot partition for {}", month);
+                }
+            } catch (DataAccessException e) {
+                // e.g. another instance created it at the same moment; the next run retries
+                log.warn("Could not create appointment_slot partition for {}: {}", month, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void archiveBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList("""
+            select c.relname
+              from pg_inherits i
+              join pg_class c on c.oid = i.inhrelid
+             where i.inhparent = 'appointment_slot'::regclass
+               and c.relname like 'appointment\\_slot\\_p%'
+             order by c.relname
+            """, String.class);
+        for (String partition : partitions) {
+            YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                String outcome = jdbcTemplate.queryForObject(
+                    "select archive_appointment_slot_partition(?)", String.class, month.atDay(1));
+                if ("referenced".equals(outcome)) {
+                    log.warn("Kept appointment_slot partition {}: appointments still reference its slots", partition);
+                } else {
+                    log.info("appointment_slot partition {}: {}", partition, outcome);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not archive appointment_slot partition {}: {}", partition, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private boolean isPostgres() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    meta -> meta.getDatabaseProductName());
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("Skipping appointment_slot partition maintenance: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -12,7 +12,7 @@ import com.medical.bookingapi.service.AdminService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -30,14 +30,14 @@ public class AdminController {
     private final AuthService authService;
     private final AdminService adminService;
 
-    @PreAuthorize("hasRole('ADMIN')")
+    @Secured("ROLE_ADMIN")
     @PostMapping("/doctors")
     public ResponseEntity<String> createDoctor(@RequestBody @Valid DoctorRegistrationDTO dto) {
         authService.registerDoctor(dto);
         return ResponseEntity.status(201).body("Doctor created successfully.");
     }
 
-    @PreAuthorize("hasRole('ADMIN')")
+    @Secured("ROLE_ADMIN")
     @PostMapping("/admins")
     public ResponseEntity<String> createAdmin(@RequestBody @Valid RegisterRequestDTO dto) {
         authService.registerAdmin(dto);
@@ -65,7 +65,7 @@ public class AdminController {
     }
     
 
-    @PreAuthorize("hasRole('ADMIN')")
+    @Secured("ROLE_ADMIN")
     @GetMapping("/ping")
     public String adminPing() {
         return "admin ok";
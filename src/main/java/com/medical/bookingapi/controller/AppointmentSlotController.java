@@ -1,9 +1,12 @@
 package com.medical.bookingapi.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,10 +17,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.medical.bookingapi.dto.AppointmentSlotDTO;
+import com.medical.bookingapi.dto.DoctorAvailabilityDTO;
+import com.medical.bookingapi.dto.SlotBulkResultDTO;
 import com.medical.bookingapi.dto.SlotCreateDTO;
+import com.medical.bookingapi.dto.SlotPageDTO;
+import com.medical.bookingapi.dto.SlotTemplateDTO;
 import com.medical.bookingapi.service.AppointmentSlotService;
 
 import jakarta.validation.Valid;
@@ -28,7 +38,12 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AppointmentSlotController {
  
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String NDJSON = "application/x-ndjson";
+
     private final AppointmentSlotService appointmentSlotService;
+    private final ObjectMapper objectMapper;
     
     @GetMapping("/by-doctor/{doctorId}")
     public ResponseEntity<List<AppointmentSlotDTO>> getSlotByDoctorId(@PathVariable Long doctorId){
@@ -36,10 +51,21 @@ public class AppointmentSlotController {
         return ResponseEntity.ok(slots);
     }
 
+    // Keyset-paginated: the body stays a JSON array, the next page's cursor comes back in X-Next-Cursor
     @GetMapping("/available")
-    public ResponseEntity<List<AppointmentSlotDTO>> getAvailableSlots(){
-        List<AppointmentSlotDTO> slots = appointmentSlotService.findByIsBookedFalse();
-        return ResponseEntity.ok(slots);
+    public ResponseEntity<List<AppointmentSlotDTO>> getAvailableSlots(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size){
+
+        SlotPageDTO page = appointmentSlotService.findAvailable(doctorId, from, to, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     @GetMapping("/{id}")
@@ -65,6 +91,50 @@ public class AppointmentSlotController {
         return ResponseEntity.ok(slots);
     }
 
+    // Same range as /between as newline-delimited JSON, written while rows are read from a DB cursor,
+    // so memory use does not grow with the size of the range (meant for reporting exports)
+    @GetMapping(value = "/between/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamSlotsBetween(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+
+        ObjectWriter writer = objectMapper.writerFor(AppointmentSlotDTO.class);
+        StreamingResponseBody body = out -> appointmentSlotService.streamByStartTimeBetween(start, end, slot -> {
+            try {
+                out.write(writer.writeValueAsBytes(slot));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // client went away: abort the cursor
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // Earliest free time across all doctors matching the optional speciality/location filters
+    @GetMapping("/earliest")
+    public ResponseEntity<DoctorAvailabilityDTO> getEarliestAvailable(
+            @RequestParam(required = false) String speciality,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from) {
+
+        return appointmentSlotService.findEarliestAvailable(speciality, location, from)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // One entry per matching doctor with free time in [from, to), earliest first
+    @GetMapping("/free")
+    public ResponseEntity<List<DoctorAvailabilityDTO>> getFreeBetween(
+            @RequestParam(required = false) String speciality,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit) {
+
+        List<DoctorAvailabilityDTO> doctors = appointmentSlotService.findFreeBetween(speciality, location, from, to, limit);
+        return ResponseEntity.ok(doctors);
+    }
+
     @GetMapping("/by-doctor/{doctorId}/available/sorted")    
     public ResponseEntity<AppointmentSlotDTO> getDoctorAvailableSlotsByStartTimeAsc(@PathVariable Long doctorId){
 
@@ -79,15 +149,26 @@ public class AppointmentSlotController {
         return ResponseEntity.ok(slot);
     }
 
+    // Materialises a weekly template (e.g. Mon-Fri 09:00-17:00 in 30 min slots) in one request
+    @PostMapping("/bulk")
+    public ResponseEntity<SlotBulkResultDTO> createSlotsFromTemplate(@RequestBody @Valid SlotTemplateDTO template){
+        SlotBulkResultDTO result = appointmentSlotService.createSlotsFromTemplate(template);
+        return ResponseEntity.ok(result);
+    }
+
+    // startTime (optional) is the slot's current start time, as listed: it keeps the lookups in the slot's partition
     @PutMapping("/{id}")
-    public ResponseEntity<AppointmentSlotDTO> updateSlot(@PathVariable Long id, @RequestBody @Valid AppointmentSlotDTO dto){
-        AppointmentSlotDTO slot = appointmentSlotService.updateSlot(id, dto);
+    public ResponseEntity<AppointmentSlotDTO> updateSlot(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestBody @Valid AppointmentSlotDTO dto){
+        AppointmentSlotDTO slot = appointmentSlotService.updateSlot(id, startTime, dto);
         return ResponseEntity.ok(slot);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteSlot(@PathVariable Long id){
-        appointmentSlotService.deleteSlot(id);
+    public ResponseEntity<Void> deleteSlot(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime){
+        appointmentSlotService.deleteSlot(id, startTime);
         return ResponseEntity.noContent().build();
     }
 
@@ -1,6 +1,8 @@
 package com.medical.bookingapi.dto;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 //AppointmentCreateDTO is the form a patient fills out at the front desk, only what’s necessary to book the appointment, and nothing more
 
 @Data
@@ -9,5 +11,7 @@ public class AppointmentCreateDTO {
     private Long patientId;
     private Long doctorId;
     private Long slotId;
+    // The slot's start time as listed to the client; optional, but it lets the booking read only the slot's partition
+    private LocalDateTime slotStartTime;
     private String notes;
 }
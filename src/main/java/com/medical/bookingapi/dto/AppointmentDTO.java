@@ -2,9 +2,13 @@ package com.medical.bookingapi.dto;
 
 import java.time.LocalDateTime;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor // used by JPQL constructor projections, keep in field order
 public class AppointmentDTO {
     private Long id;
 
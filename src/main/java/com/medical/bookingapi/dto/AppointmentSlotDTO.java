@@ -1,10 +1,14 @@
 package com.medical.bookingapi.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor // used by JPQL constructor projections, keep in field order
 public class AppointmentSlotDTO {
     
     private Long id;
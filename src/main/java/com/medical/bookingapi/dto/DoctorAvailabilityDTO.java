@@ -0,0 +1,19 @@
+package com.medical.bookingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorAvailabilityDTO {
+
+    private Long doctorId;
+    private String speciality;
+    private String location;
+    private LocalDateTime freeFrom;   // start of the first free slot starting in the requested window
+
+}
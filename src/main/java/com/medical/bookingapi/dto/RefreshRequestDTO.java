@@ -0,0 +1,16 @@
+package com.medical.bookingapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class RefreshRequestDTO {
+
+    @NotBlank
+    private String refreshToken;
+
+}
@@ -0,0 +1,20 @@
+package com.medical.bookingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotBulkResultDTO {
+
+    private Long doctorId;
+    private int created;
+    private int skippedPast;      // template occurrences that had already started
+    private LocalDateTime firstStart;
+    private LocalDateTime lastEnd;
+
+}
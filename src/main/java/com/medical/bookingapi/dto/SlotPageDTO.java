@@ -0,0 +1,17 @@
+package com.medical.bookingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotPageDTO {
+
+    private List<AppointmentSlotDTO> items;
+    private String nextCursor;    // null on the last page
+
+}
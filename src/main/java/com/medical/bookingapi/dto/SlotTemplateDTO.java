@@ -0,0 +1,49 @@
+package com.medical.bookingapi.dto;
+
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Weekly calendar template: on every {@code days} weekday between {@code fromDate} and
+ * {@code toDate} (inclusive), back-to-back slots of {@code slotMinutes} are generated from
+ * {@code dayStart} until no full slot fits before {@code dayEnd}.
+ */
+@Data
+public class SlotTemplateDTO {
+
+    @NotNull
+    private Long doctorId;
+
+    @NotEmpty
+    private Set<DayOfWeek> days;
+
+    @NotNull
+    private LocalTime dayStart;
+
+    @NotNull
+    private LocalTime dayEnd;
+
+    @NotNull
+    @Min(5)
+    @Max(480)
+    private Integer slotMinutes;
+
+    @NotNull
+    private LocalDate fromDate;
+
+    @NotNull
+    private LocalDate toDate;
+
+    private String notes;
+    private String location;
+
+}
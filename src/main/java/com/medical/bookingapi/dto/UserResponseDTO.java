@@ -12,4 +12,5 @@ public class UserResponseDTO {
     private String email;
     private String role;
     private String token; // JWT
+    private String refreshToken; // opaque, for /api/auth/refresh
 }
@@ -11,6 +11,7 @@ public interface UserMapper {
     @Mapping(target = "firstName", source = "firstName")
     @Mapping(target = "lastName", source = "lastName")    @Mapping(target = "role", ignore = true)
     @Mapping(target = "token", ignore = true)
+    @Mapping(target = "refreshToken", ignore = true)
     UserResponseDTO toDto(User user);
 
 }
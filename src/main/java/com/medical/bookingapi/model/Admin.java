@@ -1,5 +1,6 @@
 package com.medical.bookingapi.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import lombok.Getter;
@@ -9,6 +10,7 @@ import lombok.Setter;
 @Getter @Setter @NoArgsConstructor
 @Entity
 @Table(name = "admins")
+@Cacheable(false)
 public class Admin extends User {
     // No extra fields for now, but you could add admin-specific data here
 }
@@ -17,24 +17,34 @@ import java.time.LocalDateTime;
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
-    @ManyToOne(optional = false) //Many appointments → one patient
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false) //Many appointments → one patient
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
 
     @NotNull
-    @ManyToOne(optional = false) //Many appointments for one doctor
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false) //Many appointments for one doctor
     @JoinColumn(name = "doctor_id", nullable = false)   
     private Doctor doctor;
 
     @NotNull
-    @OneToOne(optional = false) //One appointment → one slot    
+    @EqualsAndHashCode.Exclude
+    @OneToOne(fetch = FetchType.LAZY, optional = false) //One appointment → one slot    
     @JoinColumn(name = "slot_id", unique = true, nullable = false)
     private AppointmentSlot slot;
 
+    // The slot's start time, set with the slot: appointment_slot's key is (id, start_time), so joins
+    // and lookups that also match on it read one monthly partition instead of all of them (V11)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "slot_start_time", nullable = false)
+    private LocalDateTime slotStartTime;
+
     @Column(nullable = false)
     private String status = "BOOKED";
 
@@ -44,4 +54,9 @@ public class Appointment {
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
+
+    public void setSlot(AppointmentSlot slot) {
+        this.slot = slot;
+        this.slotStartTime = slot != null ? slot.getStartTime() : null;
+    }
 }
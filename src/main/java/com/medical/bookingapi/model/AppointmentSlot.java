@@ -13,14 +13,21 @@ import java.time.LocalDateTime;
 @Getter @Setter @NoArgsConstructor
 @EqualsAndHashCode @Entity
 @Table(name = "appointment_slot")
+@NamedEntityGraph(name = AppointmentSlot.WITH_DOCTOR, attributeNodes = @NamedAttributeNode("doctor"))
 public class AppointmentSlot {
-    
+
+    public static final String WITH_DOCTOR = "AppointmentSlot.withDoctor";
+
+    // Sequence ids (pre-allocated in blocks of 50) let Hibernate batch slot inserts; IDENTITY cannot
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_slot_seq")
+    @SequenceGenerator(name = "appointment_slot_seq", sequenceName = "appointment_slot_seq", allocationSize = 50)
     private Long id;
 
+    // Lazy: most reads only need doctor.id, which the proxy holds without a select
     @NotNull
-    @ManyToOne(optional = false)
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "doctor_id", nullable = false)
     private Doctor doctor;
 
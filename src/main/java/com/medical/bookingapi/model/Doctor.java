@@ -13,6 +13,7 @@ import lombok.Setter;
 @EqualsAndHashCode(callSuper = true) // Includes `id` from User in equals/hashCode
 @Entity
 @Table(name = "doctor")
+@Cacheable // second-level cache, region User.CACHE_REGION (read-write, declared on User)
 public class Doctor extends User{
     
     @NotBlank
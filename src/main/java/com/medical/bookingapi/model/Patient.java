@@ -1,5 +1,6 @@
 package com.medical.bookingapi.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
@@ -20,6 +21,7 @@ import java.time.LocalDate;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "patient")
+@Cacheable(false) // medical data, and read far less often than doctors
 public class Patient extends User {
 
     @Past
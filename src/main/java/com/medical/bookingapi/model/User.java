@@ -11,6 +11,8 @@ import lombok.Setter;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor 
@@ -18,9 +20,18 @@ import org.hibernate.annotations.UpdateTimestamp;
 @Inheritance(strategy = InheritanceType.JOINED)          // one table per subclass
 //“Create one parent table plus one child table per subclass,
 //and link them with the same primary key. Hibernate will join them for you when it loads an object.”
+// Second-level caching can only be declared on the hierarchy root; Patient and Admin opt out again
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 public abstract class User {
+
+    // Hibernate second-level cache region (configured in application.conf)
+    public static final String CACHE_REGION = "users";
     
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence (blocks of 50, V9) so registrations and imports can be batched; IDENTITY cannot
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
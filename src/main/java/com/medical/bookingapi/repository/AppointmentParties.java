@@ -0,0 +1,7 @@
+package com.medical.bookingapi.repository;
+
+// Who an appointment belongs to, read from its foreign keys for ownership checks
+public interface AppointmentParties {
+    Long getPatientId();
+    Long getDoctorId();
+}
@@ -1,26 +1,68 @@
 package com.medical.bookingapi.repository;
 
+import com.medical.bookingapi.dto.AppointmentDTO;
 import com.medical.bookingapi.model.Appointment;
-import com.medical.bookingapi.model.Doctor;
-import com.medical.bookingapi.model.Patient;
 import com.medical.bookingapi.model.AppointmentSlot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-    List<Appointment> findByDoctor(Doctor doctor);
+    // Exactly the AppointmentDTO columns in one statement. Mapping loaded entities instead initialises
+    // each lazy patient, doctor and slot proxy with its own select through the JOINED user tables (N+1),
+    // along with allergies and slot notes that the DTO never shows. The slot is joined on its whole
+    // (id, start_time) key, so each appointment reads only its slot's monthly partition.
+    String DTO_QUERY = """
+        select new com.medical.bookingapi.dto.AppointmentDTO(
+            a.id, p.id, p.firstName, d.id, d.firstName, d.speciality,
+            s.id, s.startTime, s.endTime, a.status, a.notes, a.createdAt)
+        from Appointment a
+        join a.patient p
+        join a.doctor d
+        join a.slot s on s.startTime = a.slotStartTime
+    """;
 
-    List<Appointment> findByPatient(Patient patient);
+    @Query(DTO_QUERY + "where d.id = :doctorId order by s.startTime, a.id")
+    List<AppointmentDTO> findDtosByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Query(DTO_QUERY + "where p.id = :patientId order by s.startTime, a.id")
+    List<AppointmentDTO> findDtosByPatientId(@Param("patientId") Long patientId);
+
+    @Query(DTO_QUERY + "where a.status = :status order by s.startTime, a.id")
+    List<AppointmentDTO> findDtosByStatus(@Param("status") String status);
+
+    // All appointments of a doctor with a specific status (CANCELLED, BOOKED etc.)
+    @Query(DTO_QUERY + "where d.id = :doctorId and a.status = :status order by s.startTime, a.id")
+    List<AppointmentDTO> findDtosByDoctorIdAndStatus(@Param("doctorId") Long doctorId, @Param("status") String status);
+
+    @Query(DTO_QUERY + "where a.slot.id = :slotId")
+    Optional<AppointmentDTO> findDtoBySlotId(@Param("slotId") Long slotId);
+
+    // The appointment with its patient, doctor and slot (and the slot's doctor) fetched in the same select;
+    // matching the slot's start time as well keeps that join to one partition
+    @Query("""
+        select a from Appointment a
+        join fetch a.patient
+        join fetch a.doctor
+        join fetch a.slot s
+        join fetch s.doctor
+        where a.id = :id
+          and s.startTime = a.slotStartTime
+    """)
+    Optional<Appointment> findWithPartiesAndSlotById(@Param("id") Long id);
 
     Optional<Appointment> findBySlot(AppointmentSlot slot);
 
     boolean existsBySlot(AppointmentSlot slot);
 
-    List<Appointment> findByStatus(String status);
+    // Foreign keys only (no joins), for OwnershipAuthorization
+    @Query("select a.patient.id as patientId, a.doctor.id as doctorId from Appointment a where a.id = :id")
+    Optional<AppointmentParties> findPartiesById(@Param("id") Long id);
 
-    // Get all appointments for a doctor with a specific status (CANCELLED, BOOKED etc.)
-    List<Appointment> findByDoctorAndStatus(Doctor doctor, String status);
+    @Query("select a.patient.id as patientId, a.doctor.id as doctorId from Appointment a where a.slot.id = :slotId")
+    Optional<AppointmentParties> findPartiesBySlotId(@Param("slotId") Long slotId);
 }
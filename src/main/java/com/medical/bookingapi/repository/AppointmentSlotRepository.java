@@ -1,51 +1,159 @@
 package com.medical.bookingapi.repository;
 
+import com.medical.bookingapi.dto.AppointmentSlotDTO;
 import com.medical.bookingapi.model.AppointmentSlot;
 import com.medical.bookingapi.model.Doctor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot, Long> {
 
     List<AppointmentSlot> findByDoctor(Doctor doctor);
 
-    List<AppointmentSlot> findByBookedFalse();
+    // Lookups by id come in pairs. The primary key is (id, start_time) since V5: with the start time
+    // (clients have it from the slot listings) PostgreSQL reads the slot's own monthly partition, with
+    // the id alone it probes every partition's index. The id-only variants serve clients that do not
+    // send the start time yet.
 
-    List<AppointmentSlot> findByDoctorAndBookedFalse(Doctor doctor);
+    Optional<AppointmentSlot> findByIdAndStartTime(Long id, LocalDateTime startTime);
+
+    // For callers that read the doctor's fields (names, speciality, location), not only its id
+    @EntityGraph(AppointmentSlot.WITH_DOCTOR)
+    Optional<AppointmentSlot> findWithDoctorByIdAndStartTime(Long id, LocalDateTime startTime);
+
+    @EntityGraph(AppointmentSlot.WITH_DOCTOR)
+    Optional<AppointmentSlot> findWithDoctorById(Long id);
+
+    // The owning doctor's id straight from the foreign key, for OwnershipAuthorization
+    @Query("select s.doctor.id from AppointmentSlot s where s.id = :id and s.startTime = :startTime")
+    Optional<Long> findDoctorIdByIdAndStartTime(@Param("id") Long id, @Param("startTime") LocalDateTime startTime);
+
+    @Query("select s.doctor.id from AppointmentSlot s where s.id = :id")
+    Optional<Long> findDoctorIdById(@Param("id") Long id);
+
+    // Resolves the start time for a booking that did not send one; everything after it is pruned
+    @Query("select s.startTime from AppointmentSlot s where s.id = :id")
+    Optional<LocalDateTime> findStartTimeById(@Param("id") Long id);
+
+    // Free slots that have not started yet; the start_time bound lets PostgreSQL skip past months' partitions
+    List<AppointmentSlot> findByDoctorAndBookedFalseAndStartTimeAfter(Doctor doctor, LocalDateTime after);
 
     // Find slots within a specific time range
     List<AppointmentSlot> findByStartTimeBetween(LocalDateTime start, LocalDateTime end);
 
+    // Same range as findByStartTimeBetween, but read through a forward-only cursor in chunks of
+    // 500 rows and projected to DTOs. Must be consumed (and closed) inside a transaction: the
+    // PostgreSQL driver only honours the fetch size when autocommit is off.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        select new com.medical.bookingapi.dto.AppointmentSlotDTO(
+            s.id, s.doctor.id, s.startTime, s.endTime, s.booked, s.location, s.notes)
+        from AppointmentSlot s
+        where s.startTime between :start and :end
+        order by s.startTime asc, s.id asc
+    """)
+    Stream<AppointmentSlotDTO> streamByStartTimeBetween(@Param("start") LocalDateTime start,
+                                                        @Param("end") LocalDateTime end);
+
     // Find the next available slot for a doctor *sos*
-    Optional<AppointmentSlot> findFirstByDoctorAndBookedFalseOrderByStartTimeAsc(Doctor doctor);
+    Optional<AppointmentSlot> findFirstByDoctorAndBookedFalseAndStartTimeAfterOrderByStartTimeAsc(Doctor doctor,
+                                                                                                 LocalDateTime after);
 
-    // For the SAME doctor, an overlap exists iff: existing.end > new.start AND existing.start < new.end
-    // This treats [10:00,10:30] and [10:30,11:00] as NON-overlapping (adjacent is OK).
+    // Keyset (seek) page of free slots ordered by (startTime, id), projected straight into DTOs.
+    // (afterStart, afterId) is the last row of the previous page; the first page passes (from, Long.MIN_VALUE).
+    // The redundant "startTime >= :afterStart" keeps the predicate a plain range scan on start_time.
     @Query("""
-        select (count(s) > 0) from AppointmentSlot s
-        where s.doctor = :doctor
-        and s.endTime   > :start
-        and s.startTime < :end
+        select new com.medical.bookingapi.dto.AppointmentSlotDTO(
+            s.id, s.doctor.id, s.startTime, s.endTime, s.booked, s.location, s.notes)
+        from AppointmentSlot s
+        where s.booked = false
+          and s.startTime >= :afterStart
+          and (s.startTime > :afterStart or s.id > :afterId)
+          and s.startTime < :before
+        order by s.startTime asc, s.id asc
     """)
-    boolean existsOverlapping(@Param("doctor") Doctor doctor,
-                                @Param("start") LocalDateTime start,
-                                @Param("end") LocalDateTime end);
+    List<AppointmentSlotDTO> findAvailablePage(@Param("afterStart") LocalDateTime afterStart,
+                                               @Param("afterId") Long afterId,
+                                               @Param("before") LocalDateTime before,
+                                               Pageable page);
 
     @Query("""
-    select (count(s) > 0) from AppointmentSlot s
-    where s.doctor = :doctor
-        and s.id <> :id
-        and s.endTime   > :start
-        and s.startTime < :end
+        select new com.medical.bookingapi.dto.AppointmentSlotDTO(
+            s.id, s.doctor.id, s.startTime, s.endTime, s.booked, s.location, s.notes)
+        from AppointmentSlot s
+        where s.doctor.id = :doctorId
+          and s.booked = false
+          and s.startTime >= :afterStart
+          and (s.startTime > :afterStart or s.id > :afterId)
+          and s.startTime < :before
+        order by s.startTime asc, s.id asc
     """)
-    boolean existsOverlappingExcludingId(@Param("doctor") Doctor doctor,
-                                        @Param("id") Long id,
-                                        @Param("start") LocalDateTime start,
-                                        @Param("end") LocalDateTime end);
+    List<AppointmentSlotDTO> findAvailablePageByDoctorId(@Param("doctorId") Long doctorId,
+                                                         @Param("afterStart") LocalDateTime afterStart,
+                                                         @Param("afterId") Long afterId,
+                                                         @Param("before") LocalDateTime before,
+                                                         Pageable page);
+
+    // Every bookable slot from the start of the current day on, read through a cursor (feeds AvailabilityIndex
+    // at startup and on each rebuild). Bounded on start_time rather than end_time so only current and future
+    // partitions are read. A rejected or cancelled appointment leaves its slot unbooked but keeps the unique
+    // slot_id, so such slots are left out.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        select s.doctor.id as doctorId, s.startTime as startTime, s.endTime as endTime
+        from AppointmentSlot s
+        where s.booked = false
+          and s.startTime >= :from
+          and not exists (select 1 from Appointment a where a.slot.id = s.id and a.slotStartTime = s.startTime)
+    """)
+    Stream<FreeSlotInterval> streamFreeIntervals(@Param("from") LocalDateTime from);
+
+    // Atomically reserves a free slot for booking: returns 1 if this caller claimed it, 0 if the slot
+    // is missing (or starts at another time), belongs to another doctor, is already booked, or the
+    // patient does not exist. The start time confines the update to the slot's partition.
+    // The row lock taken by the UPDATE serialises concurrent bookings of the same slot.
+    // Declaring the table it writes keeps Hibernate from invalidating every second-level cache region.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointment_slot"))
+    @Query(value = """
+        update appointment_slot
+           set is_booked = true
+         where id = :slotId
+           and start_time = :startTime
+           and doctor_id = :doctorId
+           and is_booked = false
+           and exists (select 1 from patient p where p.id = :patientId)
+    """, nativeQuery = true)
+    int claimSlot(@Param("slotId") Long slotId,
+                  @Param("startTime") LocalDateTime startTime,
+                  @Param("doctorId") Long doctorId,
+                  @Param("patientId") Long patientId);
+
+    // Deletes the slot unless it is booked or an appointment points at it, checked in the same statement
+    // so it cannot race a booking (a separate exists-check could). A booking's claim sets is_booked
+    // under the row lock first, so a delete waiting on that lock re-checks the updated row and leaves
+    // it alone. The foreign key from appointment (V11) backs this up. Returns 0 when the slot was kept.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointment_slot"))
+    @Query(value = """
+        delete from appointment_slot s
+         where s.id = :id
+           and s.start_time = :startTime
+           and s.is_booked = false
+           and not exists (select 1 from appointment a where a.slot_id = :id)
+    """, nativeQuery = true)
+    int deleteIfFreeAndUnreferenced(@Param("id") Long id, @Param("startTime") LocalDateTime startTime);
 
 }
@@ -0,0 +1,10 @@
+package com.medical.bookingapi.repository;
+
+/**
+ * The columns authentication needs, read from users alone (no joins to doctor/patient/admins).
+ * The names are there so login can answer without loading the entity.
+ * There is no enabled column yet, so {@link UserRepository#findAuthViewByEmail} always reports true.
+ */
+public record AuthUserView(Long id, String email, String role, String passwordHash, boolean enabled,
+                           String firstName, String lastName) {
+}
@@ -1,7 +1,10 @@
 package com.medical.bookingapi.repository;
 
 import com.medical.bookingapi.model.Doctor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
@@ -9,6 +12,10 @@ import java.util.Optional;
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 
     Optional<Doctor> findByEmail(String email);
+
+    // Query cache: keeps the matching ids, the doctors themselves come from the second-level cache.
+    // Invalidated whenever Hibernate writes to the users or doctor table.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Doctor> findBySpeciality(String speciality);
 
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.medical.bookingapi.repository;
+
+import java.time.LocalDateTime;
+
+// Slim projection of an unbooked slot, used to warm the in-memory availability index
+public interface FreeSlotInterval {
+    Long getDoctorId();
+    LocalDateTime getStartTime();
+    LocalDateTime getEndTime();
+}
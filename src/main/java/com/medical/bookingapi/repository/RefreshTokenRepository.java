@@ -0,0 +1,34 @@
+package com.medical.bookingapi.repository;
+
+import com.medical.bookingapi.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // the user comes along: a refresh issues a new access token for it
+    @Query("select t from RefreshToken t join fetch t.user where t.tokenHash = :hash")
+    Optional<RefreshToken> findWithUserByTokenHash(@Param("hash") String hash);
+
+    // Conditional update, so of two concurrent refreshes with the same token only one wins
+    @Modifying
+    @Query("""
+        update RefreshToken t set t.usedAt = :now
+        where t.id = :id and t.usedAt is null and t.revokedAt is null
+    """)
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.familyId = :family and t.revokedAt is null")
+    int revokeFamily(@Param("family") UUID family, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,12 +2,26 @@ package com.medical.bookingapi.repository;
 
 import com.medical.bookingapi.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Loads the subclass entity (outer joins to doctor, patient and admins); authentication uses findAuthViewByEmail
     Optional<User> findByEmail(String email);
 
-    boolean existsByEmail(String email);
+    // Emails are unique regardless of case (idx_users_email_lower)
+    @Query("select count(u) > 0 from User u where lower(u.email) = lower(:email)")
+    boolean existsByEmail(@Param("email") String email);
+
+    // Slim projection for authentication, matched case-insensitively through idx_users_email_lower.
+    // Unlike findByEmail it reads users alone: no subclass joins, no patient allergies text.
+    @Query("""
+        select new com.medical.bookingapi.repository.AuthUserView(
+            u.id, u.email, u.role, u.password_hash, true, u.firstName, u.lastName)
+        from User u
+        where lower(u.email) = lower(:email)
+    """)
+    Optional<AuthUserView> findAuthViewByEmail(@Param("email") String email);
 }
-    
\ No newline at end of file
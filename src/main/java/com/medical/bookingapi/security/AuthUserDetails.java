@@ -0,0 +1,74 @@
+package com.medical.bookingapi.security;
+
+import com.medical.bookingapi.repository.AuthUserView;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * UserDetails over the cached {@link AuthUserView}. Unlike {@link CustomUserDetails} it holds no
+ * entity, so it is safe to keep in a cache and share across requests.
+ */
+public class AuthUserDetails implements UserDetails, BookingPrincipal {
+
+    private final AuthUserView view;
+
+    public AuthUserDetails(AuthUserView view) {
+        this.view = view;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(view.role()));
+    }
+
+    @Override
+    public String getPassword() {
+        return view.passwordHash();
+    }
+
+    @Override
+    public String getUsername() {
+        return view.email();
+    }
+
+    @Override public boolean isAccountNonExpired() { return true; }
+    @Override public boolean isAccountNonLocked() { return true; }
+    @Override public boolean isCredentialsNonExpired() { return true; }
+    @Override public boolean isEnabled() { return view.enabled(); }
+
+    public AuthUserView getView() { return view; }
+
+    @Override
+    public Long getUserId() { return view.id(); }
+
+    @Override
+    public String getRole() { return view.role(); }
+
+    // the view has no subtype, so go by role; JOINED inheritance makes the user id the doctor / patient id
+    @Override
+    public Long getDoctorId() { return hasRole("DOCTOR") ? view.id() : null; }
+
+    @Override
+    public Long getPatientId() { return hasRole("PATIENT") ? view.id() : null; }
+
+    private boolean hasRole(String role) {
+        return role.equals(view.role()) || ("ROLE_" + role).equals(view.role());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AuthUserDetails that)) return false;
+        return Objects.equals(view.id(), that.view.id());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(view.id());
+    }
+}
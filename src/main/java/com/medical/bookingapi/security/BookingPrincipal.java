@@ -0,0 +1,19 @@
+package com.medical.bookingapi.security;
+
+/**
+ * The ids ownership rules compare against (and the claims JwtService issues), whichever way the
+ * user was authenticated:
+ * {@link JwtPrincipal} (token claims), {@link AuthUserDetails} (pre-"uid" tokens) or
+ * {@link CustomUserDetails} (login). doctorId / patientId are null unless the user has that role;
+ * with JOINED inheritance they equal the user id when set.
+ */
+public interface BookingPrincipal {
+
+    String getRole();
+
+    Long getUserId();
+
+    Long getDoctorId();
+
+    Long getPatientId();
+}
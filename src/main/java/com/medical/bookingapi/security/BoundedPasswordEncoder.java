@@ -0,0 +1,123 @@
+package com.medical.bookingapi.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs the (deliberately slow) delegate encoder on a small pool sized to the CPU instead of on
+ * whatever request thread asked. At most {@code threads + queueCapacity} request threads wait here;
+ * beyond that callers fail fast with 503 and Retry-After, so a login burst cannot tie up the whole
+ * Tomcat pool and starve cheap endpoints.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  Duration retryAfter, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.retryAfter = retryAfter;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("booking.auth.hash.duration").tag("operation", "encode")
+                .description("Time spent hashing a password on the hashing pool").register(meterRegistry);
+        this.matchesTimer = Timer.builder("booking.auth.hash.duration").tag("operation", "matches")
+                .description("Time spent verifying a password on the hashing pool").register(meterRegistry);
+        this.rejected = Counter.builder("booking.auth.hash.rejected")
+                .description("Hashing requests shed with 503 because the queue was full").register(meterRegistry);
+        Gauge.builder("booking.auth.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Hashing requests waiting for a thread").register(meterRegistry);
+        Gauge.builder("booking.auth.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing threads currently busy").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(work);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new Busy(retryAfter);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new Busy(retryAfter);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** 503 with a Retry-After header; GlobalExceptionHandler keeps both. */
+    static class Busy extends ResponseStatusException {
+
+        private final long retryAfterSeconds;
+
+        Busy(Duration retryAfter) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent logins, retry shortly");
+            this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return headers;
+        }
+    }
+}
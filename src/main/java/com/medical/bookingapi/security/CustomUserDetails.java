@@ -1,5 +1,7 @@
 package com.medical.bookingapi.security;
 
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.model.Patient;
 import com.medical.bookingapi.model.User;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -9,7 +11,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
-public class CustomUserDetails implements UserDetails {
+public class CustomUserDetails implements UserDetails, BookingPrincipal {
 
     private final User user;
 
@@ -40,6 +42,19 @@ public class CustomUserDetails implements UserDetails {
 
     public User getUser() { return user; }
 
+    @Override
+    public Long getUserId() { return user.getId(); }
+
+    @Override
+    public String getRole() { return user.getRole(); }
+
+    // JOINED inheritance: a doctor's / patient's id is its user id
+    @Override
+    public Long getDoctorId() { return user instanceof Doctor ? user.getId() : null; }
+
+    @Override
+    public Long getPatientId() { return user instanceof Patient ? user.getId() : null; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
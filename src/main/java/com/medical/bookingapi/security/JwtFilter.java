@@ -28,6 +28,7 @@ public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationList revocations;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -48,44 +49,63 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String username;
+        final VerifiedToken token;
 
-        // Return 401 (not 403) for malformed/invalid tokens
+        // Signature, expiry and claims are checked once here; return 401 (not 403) for malformed/invalid tokens
         try {
-            username = jwtService.extractUsername(jwt);
+            token = jwtService.verify(jwt);
         } catch (JwtException | IllegalArgumentException ex) {
-            SecurityContextHolder.clearContext();
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.setContentType("application/json");
-            response.getWriter().write("{\"error\":\"invalid_token\"}");
+            unauthorized(response, "invalid_token");
             return;
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        // In-memory check (one Bloom filter probe unless the user has revocations)
+        if (revocations.isRevoked(token)) {
+            unauthorized(response, "token_revoked");
+            return;
+        }
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+        final String username = token.subject();
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Object principal;
+            Collection<? extends GrantedAuthority> authorities;
 
-                // Map token role (e.g. "DOCTOR") to Spring authorities ("ROLE_DOCTOR")
-                String roleFromToken = jwtService.extractRole(jwt); // this method should read the "role" claim
-                Collection<? extends GrantedAuthority> authorities;
-
-                if (roleFromToken != null && !roleFromToken.isBlank()) {
-                    String authority = roleFromToken.startsWith("ROLE_")
-                            ? roleFromToken
-                            : "ROLE_" + roleFromToken;
-                    authorities = List.of(new SimpleGrantedAuthority(authority));
-                } else {
-                    authorities = userDetails.getAuthorities();
+            if (token.isSelfContained()) {
+                // Everything authorization needs is in the signed claims: no database access
+                principal = token.toPrincipal();
+                authorities = List.of(authority(token.role()));
+            } else {
+                // Tokens issued before the "uid" claim: look the user up until they expire
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (!jwtService.isTokenValid(token, userDetails)) {
+                    filterChain.doFilter(request, response);
+                    return;
                 }
-
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+                principal = userDetails;
+                // Map token role (e.g. "DOCTOR") to Spring authorities ("ROLE_DOCTOR")
+                String roleFromToken = token.role();
+                authorities = roleFromToken != null && !roleFromToken.isBlank()
+                        ? List.of(authority(roleFromToken))
+                        : userDetails.getAuthorities();
             }
+
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(principal, null, authorities);
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private static void unauthorized(HttpServletResponse response, String error) throws IOException {
+        SecurityContextHolder.clearContext();
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
+    }
+
+    private static GrantedAuthority authority(String role) {
+        return new SimpleGrantedAuthority(role.startsWith("ROLE_") ? role : "ROLE_" + role);
+    }
 }
@@ -0,0 +1,33 @@
+package com.medical.bookingapi.security;
+
+import java.security.Principal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Principal built by JwtFilter straight from token claims, without loading the user.
+ * Exposes what the {@link OwnershipAuthorization} rules need as a {@link BookingPrincipal};
+ * getName() is the email, so {@code Authentication.getName()} keeps working.
+ * doctorId / patientId are null unless the user has that role.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal implements Principal, BookingPrincipal {
+
+    private final Long userId;
+    private final String email;
+    private final String role;
+    private final Long doctorId;
+    private final Long patientId;
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
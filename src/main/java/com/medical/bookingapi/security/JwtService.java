@@ -1,6 +1,5 @@
 package com.medical.bookingapi.security;
 
-import com.medical.bookingapi.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.jsonwebtoken.*;
@@ -20,6 +19,7 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -29,8 +29,18 @@ public class JwtService {
     @Value("${security.jwt.secret}")
     private String secret;
 
-    private static final Duration EXPIRATION = Duration.ofHours(10);
+    // Short-lived: clients renew through /api/auth/refresh (RefreshTokenService) without a password check
+    @Value("${security.jwt.access-token-ttl:15m}")
+    private Duration accessTokenTtl = Duration.ofMinutes(15);
+
+    // Claims that let JwtFilter build the principal without a database lookup
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_DOCTOR_ID = "doctorId";
+    static final String CLAIM_PATIENT_ID = "patientId";
     private SecretKey key;
+    // Built once: the parser is immutable and safe to share between request threads
+    private JwtParser parser;
 
     @PostConstruct
     public void init() {
@@ -64,27 +74,58 @@ public class JwtService {
         }
 
         this.key = Keys.hmacShaKeyFor(material);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
-    private JwtParser parser() {
-        return Jwts.parserBuilder().setSigningKey(key).build();
-    }
-
-    public String generateToken(UserDetails userDetails) {
-        User user = ((CustomUserDetails) userDetails).getUser();
+    // Any UserDetails that is also a BookingPrincipal: CustomUserDetails over an entity, or
+    // AuthUserDetails over the slim login view. The bound makes the compiler check it, not a cast.
+    public <T extends UserDetails & BookingPrincipal> String generateToken(T principal) {
         Instant now = Instant.now();
-        return Jwts.builder()
-                .setSubject(user.getEmail())
-                .claim("role", user.getRole())
+        JwtBuilder builder = Jwts.builder()
+                .setSubject(principal.getUsername())
+                .claim(CLAIM_ROLE, principal.getRole())
+                .claim(CLAIM_USER_ID, principal.getUserId());
+        if (principal.getDoctorId() != null) {
+            builder.claim(CLAIM_DOCTOR_ID, principal.getDoctorId());
+        } else if (principal.getPatientId() != null) {
+            builder.claim(CLAIM_PATIENT_ID, principal.getPatientId());
+        }
+        return builder
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(now.plus(EXPIRATION)))
+                .setExpiration(Date.from(now.plus(accessTokenTtl)))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Checks signature and expiry once and returns the claims the filter needs.
+     * Throws {@link JwtException} (or {@link IllegalArgumentException} for a blank token) when invalid.
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date exp = claims.getExpiration();
+        if (exp == null) {
+            throw new MalformedJwtException("Token has no expiration");
+        }
+        return new VerifiedToken(claims.getSubject(), claims.get(CLAIM_ROLE, String.class),
+                claims.get(CLAIM_USER_ID, Long.class), claims.get(CLAIM_DOCTOR_ID, Long.class),
+                claims.get(CLAIM_PATIENT_ID, Long.class), claims.getId(),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(), exp.toInstant());
+    }
+
+    /** Upper bound on how long an issued token stays valid; revocations are kept at least this long. */
+    public Duration tokenLifetime() {
+        return accessTokenTtl;
+    }
+
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return userDetails.getUsername().equals(token.subject()) && !token.isExpired(Instant.now());
+    }
+
     public String extractUsername(String token) { return extractClaim(token, Claims::getSubject); }
     public String extractEmail(String token)    { return extractUsername(token); }
-    public String extractRole(String token)     { return extractClaim(token, c -> c.get("role", String.class)); }
+    public String extractRole(String token)     { return extractClaim(token, c -> c.get(CLAIM_ROLE, String.class)); }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
@@ -97,7 +138,7 @@ public class JwtService {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        Claims claims = parser().parseClaimsJws(token).getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
         return resolver.apply(claims);
     }
 }
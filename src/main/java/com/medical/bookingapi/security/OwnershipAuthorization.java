@@ -0,0 +1,193 @@
+package com.medical.bookingapi.security;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import com.medical.bookingapi.repository.AppointmentParties;
+import com.medical.bookingapi.repository.AppointmentRepository;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ownership rules for the filter chain, as plain Java instead of {@code @PreAuthorize} SpEL: no
+ * method-security proxy, no expression evaluation per call. Ids come from the {@link BookingPrincipal}
+ * and the matched path variable (or query parameter); owners are read from foreign keys only.
+ * <p>
+ * Admins pass every rule. When the id does not parse or the row does not exist, a caller with the
+ * right role is let through so the controller answers 400 / 404 as before.
+ */
+@Component
+@RequiredArgsConstructor
+public class OwnershipAuthorization {
+
+    private static final String ADMIN = "ROLE_ADMIN";
+    private static final String DOCTOR = "ROLE_DOCTOR";
+    private static final String PATIENT = "ROLE_PATIENT";
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentSlotRepository slotRepository;
+
+    /** Doctors and admins, or the patient whose id is in the {@code name} path variable or parameter. */
+    public AuthorizationManager<RequestAuthorizationContext> patientOrStaff(String name) {
+        return (authentication, context) -> {
+            Authentication auth = authentication.get();
+            if (hasRole(auth, ADMIN) || hasRole(auth, DOCTOR)) {
+                return GRANTED;
+            }
+            BookingPrincipal principal = principal(auth);
+            Long patientId = id(context, name);
+            return decide(hasRole(auth, PATIENT) && principal != null && patientId != null
+                && patientId.equals(principal.getPatientId()));
+        };
+    }
+
+    /** The doctor the appointment {@code {id}} is with (e.g. to change its status). */
+    public AuthorizationManager<RequestAuthorizationContext> appointmentDoctor() {
+        return (authentication, context) -> {
+            Authentication auth = authentication.get();
+            if (hasRole(auth, ADMIN)) {
+                return GRANTED;
+            }
+            BookingPrincipal principal = principal(auth);
+            if (!hasRole(auth, DOCTOR) || principal == null) {
+                return DENIED;
+            }
+            return decide(appointment(id(context, "id"))
+                .map(p -> Objects.equals(p.getDoctorId(), principal.getDoctorId()))
+                .orElse(true));
+        };
+    }
+
+    /** The patient or doctor of the appointment {@code {id}}. */
+    public AuthorizationManager<RequestAuthorizationContext> appointmentParty() {
+        return (authentication, context) -> {
+            Authentication auth = authentication.get();
+            if (hasRole(auth, ADMIN)) {
+                return GRANTED;
+            }
+            BookingPrincipal principal = principal(auth);
+            if (principal == null) {
+                return DENIED;
+            }
+            return decide(appointment(id(context, "id"))
+                .map(p -> isParty(p, principal))
+                .orElse(true));
+        };
+    }
+
+    /** The patient who booked slot {@code {slotId}}, or the doctor it belongs to. */
+    public AuthorizationManager<RequestAuthorizationContext> slotParty() {
+        return (authentication, context) -> {
+            Authentication auth = authentication.get();
+            if (hasRole(auth, ADMIN)) {
+                return GRANTED;
+            }
+            BookingPrincipal principal = principal(auth);
+            if (principal == null) {
+                return DENIED;
+            }
+            return decide(appointmentForSlot(id(context, "slotId"))
+                .map(p -> isParty(p, principal))
+                .orElse(true));
+        };
+    }
+
+    /** The doctor slot {@code {id}} belongs to (to edit or delete it). */
+    public AuthorizationManager<RequestAuthorizationContext> slotDoctor() {
+        return (authentication, context) -> {
+            Authentication auth = authentication.get();
+            if (hasRole(auth, ADMIN)) {
+                return GRANTED;
+            }
+            BookingPrincipal principal = principal(auth);
+            if (!hasRole(auth, DOCTOR) || principal == null) {
+                return DENIED;
+            }
+            Long slotId = id(context, "id");
+            if (slotId == null) {
+                return GRANTED;
+            }
+            // With the slot's start time the owner is read from its own partition
+            LocalDateTime startTime = startTime(context);
+            return decide((startTime != null
+                    ? slotRepository.findDoctorIdByIdAndStartTime(slotId, startTime)
+                    : slotRepository.findDoctorIdById(slotId))
+                .map(owner -> owner.equals(principal.getDoctorId()))
+                .orElse(true));
+        };
+    }
+
+    private static boolean isParty(AppointmentParties parties, BookingPrincipal principal) {
+        return (principal.getPatientId() != null && principal.getPatientId().equals(parties.getPatientId()))
+            || (principal.getDoctorId() != null && principal.getDoctorId().equals(parties.getDoctorId()));
+    }
+
+    private Optional<AppointmentParties> appointment(Long id) {
+        return id == null ? Optional.empty() : appointmentRepository.findPartiesById(id);
+    }
+
+    private Optional<AppointmentParties> appointmentForSlot(Long slotId) {
+        return slotId == null ? Optional.empty() : appointmentRepository.findPartiesBySlotId(slotId);
+    }
+
+    private static AuthorizationDecision decide(boolean granted) {
+        return granted ? GRANTED : DENIED;
+    }
+
+    private static boolean hasRole(Authentication auth, String authority) {
+        if (auth == null || !auth.isAuthenticated()) {
+            return false;
+        }
+        for (GrantedAuthority granted : auth.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BookingPrincipal principal(Authentication auth) {
+        return auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof BookingPrincipal p ? p : null;
+    }
+
+    private static LocalDateTime startTime(RequestAuthorizationContext context) {
+        String raw = context.getRequest().getParameter("startTime");
+        if (raw == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(raw, DateTimeFormatter.ISO_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+        private static Long id(RequestAuthorizationContext context, String name) {
+        String raw = context.getVariables().get(name);
+        if (raw == null) {
+            raw = context.getRequest().getParameter(name);
+        }
+        if (raw == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(raw);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
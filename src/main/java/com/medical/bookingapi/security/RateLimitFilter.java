@@ -0,0 +1,185 @@
+package com.medical.bookingapi.security;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.common.lang.NonNull;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Per-client token buckets for the routes in {@link RateLimitProperties}. Runs after JwtFilter, so
+ * authenticated requests are keyed by user id and anonymous ones (login) by client address
+ * (server.forward-headers-strategy makes that the real client behind a proxy).
+ * <p>
+ * A bucket is a single AtomicLong holding the time at which it will be full again (GCRA, the
+ * "virtual scheduling" form of a token bucket): a request adds one emission interval with a CAS, and
+ * is rejected when that would put the bucket more than {@code capacity} tokens in debt. No locks, no
+ * refill thread. Buckets live in a size-bounded Caffeine cache and expire once they would be full
+ * anyway, so evicting them never hands a client extra requests.
+ * <p>
+ * Every limited response carries RateLimit-Limit / RateLimit-Remaining / RateLimit-Reset (seconds
+ * until the bucket is full); a rejection is 429 with Retry-After.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LIMIT = "RateLimit-Limit";
+    static final String REMAINING = "RateLimit-Remaining";
+    static final String RESET = "RateLimit-Reset";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<Limit> limits;
+    private final LongSupplier clock;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.clock = clock;
+        this.limits = !properties.isEnabled() ? List.of() : properties.getRoutes().stream()
+                .map(route -> new Limit(route, properties.getMaxClients(), meterRegistry))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return limits.isEmpty() || "OPTIONS".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Limit limit = match(request);
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long now = clock.getAsLong();
+        AtomicLong bucket = limit.buckets.get(clientKey(request), k -> new AtomicLong(now));
+        long result = acquire(bucket, now, limit.intervalNanos, limit.burstNanos);
+
+        response.setHeader(LIMIT, limit.capacityHeader);
+        if (result > 0) {
+            response.setHeader(REMAINING, Long.toString((limit.burstNanos - result) / limit.intervalNanos));
+            response.setHeader(RESET, Long.toString(ceilSeconds(result)));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = -result;
+        limit.rejected.increment();
+        response.setHeader(REMAINING, "0");
+        response.setHeader(RESET, Long.toString(ceilSeconds(limit.burstNanos - limit.intervalNanos + waitNanos)));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(ceilSeconds(waitNanos)));
+        response.setStatus(429);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"rate_limited\"}");
+    }
+
+    /**
+     * Takes one token. Returns the bucket's debt after the request (how long until it is full again,
+     * always > 0) when allowed, or minus the time until a token is available when rejected.
+     */
+    static long acquire(AtomicLong bucket, long now, long intervalNanos, long burstNanos) {
+        while (true) {
+            long fullAt = bucket.get();
+            long next = (fullAt - now > 0 ? fullAt : now) + intervalNanos;
+            long debt = next - now;
+            if (debt > burstNanos) {
+                return burstNanos - debt;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return debt;
+            }
+        }
+    }
+
+    private Limit match(HttpServletRequest request) {
+        PathContainer path = null;
+        for (Limit limit : limits) {
+            if (limit.method != null && !limit.method.equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            if (path == null) {
+                path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+            }
+            if (limit.pattern.matches(path)) {
+                return limit;
+            }
+        }
+        return null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated()) {
+            if (auth.getPrincipal() instanceof JwtPrincipal principal && principal.getUserId() != null) {
+                return "u:" + principal.getUserId();
+            }
+            if (!"anonymousUser".equals(auth.getName())) {
+                return "n:" + auth.getName();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    }
+
+    private static final class Limit {
+        final PathPattern pattern;
+        final String method;
+        final long intervalNanos;
+        final long burstNanos;
+        final String capacityHeader;
+        final Cache<String, AtomicLong> buckets;
+        final Counter rejected;
+
+        Limit(RateLimitProperties.Route route, int maxClients, MeterRegistry meterRegistry) {
+            if (route.getCapacity() <= 0 || route.getPeriod() == null || route.getPeriod().isNegative()
+                    || route.getPeriod().isZero()) {
+                throw new IllegalArgumentException("Rate limit for " + route.getPattern()
+                        + " needs a positive capacity and period");
+            }
+            this.pattern = PathPatternParser.defaultInstance.parse(route.getPattern());
+            this.method = route.getMethod() == null || route.getMethod().isBlank() ? null : route.getMethod();
+            this.intervalNanos = Math.max(1, route.getPeriod().toNanos() / route.getCapacity());
+            this.burstNanos = intervalNanos * route.getCapacity();
+            this.capacityHeader = Integer.toString(route.getCapacity());
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxClients)
+                    .expireAfterAccess(Duration.ofNanos(burstNanos))
+                    .build();
+            this.rejected = Counter.builder("booking.ratelimit.rejected")
+                    .tag("route", route.getPattern())
+                    .description("Requests rejected with 429 by the per-client rate limit")
+                    .register(meterRegistry);
+        }
+    }
+}
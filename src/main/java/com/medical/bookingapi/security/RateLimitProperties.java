@@ -0,0 +1,44 @@
+package com.medical.bookingapi.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Per-route request limits enforced by {@link RateLimitFilter}, bound from {@code booking.rate-limit}.
+ * Each route allows bursts of {@code capacity} requests per client and refills {@code capacity}
+ * tokens every {@code period}. The first route whose pattern (and method, if set) matches applies;
+ * requests matching no route are not limited.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "booking.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // clients tracked per route; the least recently seen are evicted beyond this
+    private int maxClients = 100_000;
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Route {
+
+        /** Path pattern, e.g. {@code /api/appointmentSlots/available} or {@code /api/doctors/**}. */
+        private String pattern;
+
+        /** HTTP method to limit; all methods when empty. */
+        private String method;
+
+        private int capacity;
+
+        private Duration period = Duration.ofMinutes(1);
+    }
+}
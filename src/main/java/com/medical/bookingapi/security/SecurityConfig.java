@@ -1,6 +1,9 @@
 package com.medical.bookingapi.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -19,19 +22,26 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
 @RequiredArgsConstructor
-@EnableMethodSecurity(prePostEnabled = true)
+@EnableMethodSecurity(prePostEnabled = true, securedEnabled = true)
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
   private final JwtFilter jwtFilter;
   private final UserDetailsService userDetailsService;
 
+  // BCrypt runs on its own bounded pool (threads = 0 means one per core); see BoundedPasswordEncoder
   @Bean
-  PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  PasswordEncoder passwordEncoder(@Value("${booking.auth.hashing.threads:0}") int threads,
+                                  @Value("${booking.auth.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${booking.auth.hashing.retry-after:2s}") Duration retryAfter,
+                                  MeterRegistry meterRegistry) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity, retryAfter, meterRegistry);
   }
 
   @Bean
@@ -48,7 +58,9 @@ public class SecurityConfig {
   }
 
   @Bean
-  SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider provider) throws Exception {
+  SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider provider,
+                                  RateLimitProperties rateLimits, MeterRegistry meterRegistry,
+                                  OwnershipAuthorization ownership) throws Exception {
     return http
         .authenticationProvider(provider)
         .cors(Customizer.withDefaults())
@@ -57,6 +69,7 @@ public class SecurityConfig {
         .authorizeHttpRequests(auth -> auth
             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
             .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+            .requestMatchers("/actuator/**").hasRole("ADMIN")
             .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/v3/api-docs.yaml").permitAll()
             .requestMatchers("/api/users/login", "/api/auth/**", "/auth/**").permitAll()
             .requestMatchers("/h2-console/**").permitAll()
@@ -67,14 +80,26 @@ public class SecurityConfig {
             .requestMatchers(HttpMethod.PUT,  "/api/doctors/**").hasAnyRole("DOCTOR","ADMIN")
             .requestMatchers("/api/patients/**").authenticated()
             .requestMatchers(HttpMethod.POST, "/api/appointments").hasRole("PATIENT")
+            // ownership checks run here rather than as @PreAuthorize SpEL; see OwnershipAuthorization
+            .requestMatchers(HttpMethod.GET, "/api/appointments").access(ownership.patientOrStaff("patientId"))
+            .requestMatchers(HttpMethod.GET, "/api/appointments/by-patient/{patientId}").access(ownership.patientOrStaff("patientId"))
+            .requestMatchers(HttpMethod.GET, "/api/appointments/by-slot/{slotId}").access(ownership.slotParty())
+            .requestMatchers(HttpMethod.PUT, "/api/appointments/{id}").access(ownership.appointmentDoctor())
+            .requestMatchers(HttpMethod.DELETE, "/api/appointments/{id}").access(ownership.appointmentParty())
             .requestMatchers(HttpMethod.PUT, "/api/appointments/**").hasAnyRole("DOCTOR","ADMIN")
             .requestMatchers(HttpMethod.GET, "/api/appointments/**").authenticated()
             .requestMatchers(HttpMethod.POST, "/api/appointmentSlots").hasAnyRole("DOCTOR","ADMIN")
+            .requestMatchers(HttpMethod.POST, "/api/appointmentSlots/bulk").hasAnyRole("DOCTOR","ADMIN")
+            .requestMatchers(HttpMethod.PUT, "/api/appointmentSlots/{id}").access(ownership.slotDoctor())
+            .requestMatchers(HttpMethod.DELETE, "/api/appointmentSlots/{id}").access(ownership.slotDoctor())
             .requestMatchers(HttpMethod.PUT, "/api/appointmentSlots/**").hasAnyRole("DOCTOR","ADMIN")
             .requestMatchers(HttpMethod.DELETE, "/api/appointmentSlots/**").hasAnyRole("DOCTOR","ADMIN")
             .anyRequest().authenticated()
         )
         .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+        // after JwtFilter, so authenticated clients are limited per user rather than per address;
+        // not a bean, which Boot would also register with the servlet container ahead of the chain
+        .addFilterAfter(new RateLimitFilter(rateLimits, meterRegistry), JwtFilter.class)
         .headers(h -> h.frameOptions(f -> f.sameOrigin()))
         .build();
   }
@@ -86,7 +111,8 @@ public class SecurityConfig {
     cfg.setAllowedOrigins(List.of("https://medicalbooking.koyeb.app")); // frontend
     cfg.setAllowedMethods(List.of("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
     cfg.setAllowedHeaders(List.of("Authorization","Content-Type","Accept","Origin","X-Requested-With"));
-    cfg.setExposedHeaders(List.of("Authorization","Content-Type"));
+    cfg.setExposedHeaders(List.of("Authorization","Content-Type","X-Next-Cursor",
+        "RateLimit-Limit","RateLimit-Remaining","RateLimit-Reset","Retry-After"));
     cfg.setAllowCredentials(true);
     cfg.setMaxAge(3600L);
     UrlBasedCorsConfigurationSource src = new UrlBasedCorsConfigurationSource();
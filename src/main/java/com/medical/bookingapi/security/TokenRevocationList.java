@@ -0,0 +1,170 @@
+package com.medical.bookingapi.security;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.medical.bookingapi.service.AfterCommit;
+
+/**
+ * Tokens revoked before they expire, stored in revoked_token (V6) and mirrored in memory for
+ * JwtFilter. A row either names one token (jti) or, with a null jti, every token of the user issued
+ * up to revoked_at. The mirror is a Bloom filter over the user ids that have any row, backed by the
+ * exact jti set and per-user cutoffs: a token whose user is not in the filter (the common case) is
+ * accepted after a single probe; only filter hits consult the exact structures.
+ * <p>
+ * Other instances' revocations arrive by polling rows newer than the previous poll (with an overlap
+ * for transactions that commit late), so they apply within one refresh interval. Expired rows are
+ * purged and the filter is rebuilt from scratch every {@code rebuild-interval}.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    static final double FALSE_POSITIVE_RATE = 0.01;
+    static final int MIN_CAPACITY = 1024;
+    // how far back each poll looks past the previous one, for rows whose transaction committed late
+    static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration tokenLifetime;
+    private final Duration rebuildInterval;
+
+    private volatile Snapshot snapshot = Snapshot.empty(MIN_CAPACITY);
+    private Instant lastPoll;
+    private Instant nextRebuild = Instant.MIN;
+
+    public TokenRevocationList(JdbcTemplate jdbcTemplate, JwtService jwtService,
+                               @Value("${booking.auth.revocation.rebuild-interval:1h}") Duration rebuildInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tokenLifetime = jwtService.tokenLifetime();
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    /** False for tokens issued before the uid claim; those are re-checked against the user row anyway. */
+    public boolean isRevoked(VerifiedToken token) {
+        Long userId = token.userId();
+        Snapshot s = snapshot;
+        if (userId == null || !s.users.mightContain(userId)) {
+            return false;
+        }
+        Instant cutoff = s.userCutoffs.get(userId);
+        if (cutoff != null && (token.issuedAt() == null || !token.issuedAt().isAfter(cutoff))) {
+            return true;
+        }
+        return token.tokenId() != null && s.tokenIds.contains(token.tokenId());
+    }
+
+    /** Revokes one token, e.g. on logout. Applies locally once the surrounding transaction commits. */
+    public void revoke(VerifiedToken token) {
+        if (token.userId() == null || token.tokenId() == null) {
+            throw new IllegalArgumentException("Token has no uid/jti claim and cannot be revoked individually");
+        }
+        jdbcTemplate.update("""
+            insert into revoked_token (user_id, jti, revoked_at, expires_at) values (?, ?, ?, ?)
+            on conflict (jti) do nothing
+            """, token.userId(), token.tokenId(), Timestamp.from(Instant.now()), Timestamp.from(token.expiresAt()));
+        AfterCommit.run(() -> apply(token.userId(), token.tokenId(), null));
+    }
+
+    /** Revokes every token issued to the user so far, e.g. when the account is deleted. */
+    public void revokeAllFor(Long userId) {
+        Instant now = Instant.now();
+        jdbcTemplate.update("insert into revoked_token (user_id, revoked_at, expires_at) values (?, ?, ?)",
+            userId, Timestamp.from(now), Timestamp.from(now.plus(tokenLifetime)));
+        AfterCommit.run(() -> apply(userId, null, now));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${booking.auth.revocation.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        try {
+            if (!Instant.now().isBefore(nextRebuild) || snapshot.size() > snapshot.users.capacity()) {
+                rebuild();
+            } else {
+                poll();
+            }
+        } catch (DataAccessException e) {
+            // keep serving the current snapshot; the next run retries
+            log.warn("Could not refresh revoked tokens: {}", e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void rebuild() {
+        jdbcTemplate.update("delete from revoked_token where expires_at < now()");
+        Instant pollStart = dbNow();
+        List<Row> rows = jdbcTemplate.query("select user_id, jti, revoked_at from revoked_token", Row.MAPPER);
+        Snapshot next = Snapshot.empty(Math.max(MIN_CAPACITY, rows.size() * 2));
+        rows.forEach(r -> next.add(r.userId(), r.tokenId(), r.cutoff()));
+        snapshot = next;
+        lastPoll = pollStart;
+        nextRebuild = Instant.now().plus(rebuildInterval);
+        log.debug("Rebuilt revoked token filter from {} rows", rows.size());
+    }
+
+    private void poll() {
+        Instant pollStart = dbNow();
+        List<Row> rows = jdbcTemplate.query("select user_id, jti, revoked_at from revoked_token where revoked_at > ?",
+            Row.MAPPER, Timestamp.from(lastPoll.minus(POLL_OVERLAP)));
+        Snapshot s = snapshot;
+        rows.forEach(r -> s.add(r.userId(), r.tokenId(), r.cutoff()));
+        lastPoll = pollStart;
+    }
+
+    private synchronized void apply(Long userId, String tokenId, Instant cutoff) {
+        snapshot.add(userId, tokenId, cutoff);
+    }
+
+    private Instant dbNow() {
+        return jdbcTemplate.queryForObject("select now()", Timestamp.class).toInstant();
+    }
+
+    private record Row(long userId, String tokenId, Instant cutoff) {
+        static final RowMapper<Row> MAPPER = (rs, i) -> {
+            String jti = rs.getString("jti");
+            return new Row(rs.getLong("user_id"), jti, jti == null ? rs.getTimestamp("revoked_at").toInstant() : null);
+        };
+    }
+
+    private record Snapshot(LongBloomFilter users, Map<Long, Instant> userCutoffs, Set<String> tokenIds) {
+
+        static Snapshot empty(int capacity) {
+            return new Snapshot(new LongBloomFilter(capacity, FALSE_POSITIVE_RATE),
+                new ConcurrentHashMap<>(), ConcurrentHashMap.newKeySet());
+        }
+
+        // exact entries first, so a reader that sees the filter bit also finds the entry
+        void add(long userId, String tokenId, Instant cutoff) {
+            if (tokenId != null) {
+                tokenIds.add(tokenId);
+            } else {
+                userCutoffs.merge(userId, cutoff, (a, b) -> a.isAfter(b) ? a : b);
+            }
+            users.put(userId);
+        }
+
+        int size() {
+            return userCutoffs.size() + tokenIds.size();
+        }
+    }
+}
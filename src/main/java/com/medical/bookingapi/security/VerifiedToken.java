@@ -0,0 +1,26 @@
+package com.medical.bookingapi.security;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature and expiry {@link JwtService#verify(String)} has already checked.
+ * The filter reads username, role and expiry from here instead of parsing the token again.
+ * userId is null for tokens issued before the "uid" claim existed, tokenId (the jti claim) for
+ * tokens issued before revocation existed.
+ */
+public record VerifiedToken(String subject, String role, Long userId, Long doctorId, Long patientId,
+                            String tokenId, Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    /** True when the claims alone are enough to authenticate, without loading the user. */
+    public boolean isSelfContained() {
+        return userId != null && role != null && !role.isBlank();
+    }
+
+    public JwtPrincipal toPrincipal() {
+        return new JwtPrincipal(userId, subject, role, doctorId, patientId);
+    }
+}
@@ -6,7 +6,7 @@ import lombok.RequiredArgsConstructor;
 
 import java.util.NoSuchElementException;
 
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,10 +21,11 @@ import com.medical.bookingapi.repository.PatientRepository;
 import com.medical.bookingapi.repository.DoctorRepository;
 import com.medical.bookingapi.mapper.PatientMapper;
 import com.medical.bookingapi.mapper.DoctorMapper;
+import com.medical.bookingapi.security.TokenRevocationList;
 
 @Service
 @Validated
-@PreAuthorize("hasRole('ADMIN')") // requires ROLE_ADMIN authority at runtime
+@Secured("ROLE_ADMIN") // plain authority check, no SpEL evaluation per call
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class AdminService {
@@ -33,6 +34,9 @@ public class AdminService {
   private final DoctorRepository doctorRepo;
   private final PatientMapper patientMapper;
   private final DoctorMapper doctorMapper;
+  private final AvailabilityIndex availabilityIndex;
+  private final BookingCaches bookingCaches;
+  private final TokenRevocationList tokenRevocations;
 
   // ---------- PATIENTS ----------
 
@@ -48,6 +52,7 @@ public class AdminService {
         if (dto.getInsuranceId() != null) p.setInsuranceId(dto.getInsuranceId());
 
         Patient saved = patientRepo.save(p);
+        bookingCaches.evictAuthUser(p.getEmail());
         return patientMapper.toDto(saved);
     }
 
@@ -56,6 +61,8 @@ public class AdminService {
     Patient p = patientRepo.findById(id)
         .orElseThrow(() -> new NoSuchElementException("Patient not found"));
     patientRepo.delete(p); // avoids exists() + deleteById() race
+    tokenRevocations.revokeAllFor(id); // tokens carry their claims, so they would outlive the account
+    bookingCaches.evictAuthUser(p.getEmail());
     }
 
   // ---------- DOCTORS ----------
@@ -71,6 +78,9 @@ public class AdminService {
         if (dto.getLicenseNumber() != null) d.setLicenseNumber(dto.getLicenseNumber());
 
         Doctor saved = doctorRepo.save(d);
+        AfterCommit.run(() -> availabilityIndex.doctorUpdated(id, d.getSpeciality(), d.getLocation()));
+        bookingCaches.evictDoctor(id);
+        bookingCaches.evictAuthUser(d.getEmail());
         return doctorMapper.toDto(saved);
     }
 
@@ -79,5 +89,10 @@ public class AdminService {
         Doctor d = doctorRepo.findById(id)
             .orElseThrow(() -> new NoSuchElementException("Doctor not found"));
         doctorRepo.delete(d);
+        tokenRevocations.revokeAllFor(id);
+        AfterCommit.run(() -> availabilityIndex.doctorRemoved(id));
+        bookingCaches.evictDoctor(id);
+        bookingCaches.evictDoctorSlots(id);
+        bookingCaches.evictAuthUser(d.getEmail());
     }
 }
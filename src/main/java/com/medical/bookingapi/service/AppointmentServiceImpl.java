@@ -1,14 +1,16 @@
 package com.medical.bookingapi.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityNotFoundException;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.medical.bookingapi.dto.AppointmentCreateDTO;
@@ -16,7 +18,6 @@ import com.medical.bookingapi.dto.AppointmentDTO;
 import com.medical.bookingapi.mapper.AppointmentMapper;
 import com.medical.bookingapi.model.Appointment;
 import com.medical.bookingapi.model.AppointmentSlot;
-import com.medical.bookingapi.model.Doctor;
 import com.medical.bookingapi.model.Patient;
 import com.medical.bookingapi.repository.AppointmentRepository;
 import com.medical.bookingapi.repository.DoctorRepository;
@@ -35,50 +36,39 @@ public class AppointmentServiceImpl implements AppointmentService {
     private final AppointmentSlotRepository slotRepository;
     private final AppointmentRepository appointmentRepository;
     private final AppointmentMapper appointmentMapper;
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingCaches bookingCaches;
+
+    // The list reads below are single-statement DTO projections (see AppointmentRepository.DTO_QUERY)
 
     @Override
     public List<AppointmentDTO> findByDoctorId(Long doctorId) {
-        Doctor doctor = doctorRepository.findById(doctorId)
-            .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
-        
-        List<Appointment> appointments = appointmentRepository.findByDoctor(doctor);
-
-        return appointments.stream()
-                .map(appointmentMapper::toDto)
-                .collect(Collectors.toList());
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new EntityNotFoundException("Doctor not found");
+        }
+        return appointmentRepository.findDtosByDoctorId(doctorId);
     }
 
 
     @Override
     public List<AppointmentDTO> findByPatientId(Long patientId) {
-    
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
-
-        List<Appointment> appointments = appointmentRepository.findByPatient(patient);
-
-        return appointments.stream()
-                .map(appointmentMapper::toDto)
-                .collect(Collectors.toList());        
+        if (!patientRepository.existsById(patientId)) {
+            throw new EntityNotFoundException("Patient not found");
+        }
+        return appointmentRepository.findDtosByPatientId(patientId);
     }
     
     @Override
     public Optional<AppointmentDTO> findBySlotId(Long slotId) {
-        AppointmentSlot slot = slotRepository.findById(slotId)
-            .orElseThrow(() -> new EntityNotFoundException("Slot not found"));
-
-        return appointmentRepository.findBySlot(slot)
-                .map(appointmentMapper::toDto);
+        if (!slotRepository.existsById(slotId)) {
+            throw new EntityNotFoundException("Slot not found");
+        }
+        return appointmentRepository.findDtoBySlotId(slotId);
     }
 
     @Override
     public List<AppointmentDTO> findByStatus(String status) {
-
-        List<Appointment> appointments = appointmentRepository.findByStatus(status);
-
-        return appointments.stream()
-                .map(appointmentMapper::toDto)
-                .collect(Collectors.toList());
+        return appointmentRepository.findDtosByStatus(status);
     }
 
     @Override
@@ -90,58 +80,84 @@ public class AppointmentServiceImpl implements AppointmentService {
 
     @Override
     public List<AppointmentDTO> findByDoctorAndStatus(Long doctorId, String status) {
-        Doctor doctor = doctorRepository.findById(doctorId)
-            .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
-        List<Appointment> appointments = appointmentRepository.findByDoctorAndStatus(doctor, status);
-
-        return appointments.stream()
-                .map(appointmentMapper::toDto)
-                .collect(Collectors.toList());        
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new EntityNotFoundException("Doctor not found");
+        }
+        return appointmentRepository.findDtosByDoctorIdAndStatus(doctorId, status);
     }
 
 @Override
+@Transactional
 public AppointmentDTO bookAppointment(AppointmentCreateDTO dto) {
-    // Resolve FKs
-    Doctor doctor = doctorRepository.findById(dto.getDoctorId())
-        .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
-
-    Patient patient = patientRepository.findById(dto.getPatientId())
-        .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
-
-    AppointmentSlot slot = slotRepository.findById(dto.getSlotId())
-        .orElseThrow(() -> new EntityNotFoundException("Slot not found"));
-
-    // Guard: slot must belong to the same doctor the patient picked
-    if (slot.getDoctor() == null || !slot.getDoctor().getId().equals(doctor.getId())) {
-        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Slot does not belong to the selected doctor");
+    // Claim the slot with a single conditional UPDATE. It only succeeds when the slot exists,
+    // belongs to the selected doctor, is still free and the patient exists, so concurrent
+    // bookings of the same slot cannot both pass a read-then-write check.
+    // The slot's start time keys its partition; clients that do not send it pay one unpruned lookup
+    LocalDateTime startTime = dto.getSlotStartTime() != null
+        ? dto.getSlotStartTime()
+        : slotRepository.findStartTimeById(dto.getSlotId())
+            .orElseThrow(() -> new EntityNotFoundException("Slot not found"));
+    int claimed = slotRepository.claimSlot(dto.getSlotId(), startTime, dto.getDoctorId(), dto.getPatientId());
+    if (claimed == 0) {
+        throw bookingRejection(dto, startTime);
     }
 
-    // Guard: slot must be free
-    if (slot.isBooked() || appointmentRepository.existsBySlot(slot)) {
-        throw new ResponseStatusException(HttpStatus.CONFLICT, "Slot already booked");
-    }
+    // Slot (with its doctor) is needed for the response; the patient row is known to exist
+    AppointmentSlot slot = slotRepository.findWithDoctorByIdAndStartTime(dto.getSlotId(), startTime)
+        .orElseThrow(() -> new EntityNotFoundException("Slot not found"));
+    Patient patient = patientRepository.getReferenceById(dto.getPatientId());
 
     // Map DTO -> entity (notes, etc.)
     Appointment appointment = appointmentMapper.toEntity(dto);
-    appointment.setDoctor(doctor);
+    appointment.setDoctor(slot.getDoctor());
     appointment.setPatient(patient);
     appointment.setSlot(slot);
 
     // Align with UI workflow: new appointments start as PENDING
     appointment.setStatus("PENDING");
 
-    Appointment saved = appointmentRepository.save(appointment);
+    Appointment saved;
+    try {
+        // Flushed here: with sequence ids the insert would otherwise wait for commit, outside this catch
+        saved = appointmentRepository.saveAndFlush(appointment);
+    } catch (DataIntegrityViolationException e) {
+        // A rejected/cancelled appointment still holds the unique slot_id; the claim is rolled back
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Slot already booked", e);
+    }
 
-    // Reserve the slot so it disappears from "available" lists
-    slot.setBooked(true);
-    slotRepository.save(slot);
+    Long doctorId = slot.getDoctor().getId();
+    AfterCommit.run(() -> availabilityIndex.markUnavailable(doctorId, slot.getStartTime(), slot.getEndTime()));
+    bookingCaches.evictDoctorSlots(doctorId);
 
     return appointmentMapper.toDto(saved);
 }
 
+// Only reached when the claim failed: work out why, so callers keep getting precise errors
+private RuntimeException bookingRejection(AppointmentCreateDTO dto, LocalDateTime startTime) {
+    if (!doctorRepository.existsById(dto.getDoctorId())) {
+        return new EntityNotFoundException("Doctor not found");
+    }
+    if (!patientRepository.existsById(dto.getPatientId())) {
+        return new EntityNotFoundException("Patient not found");
+    }
+    // A start time that does not match the slot reads as a missing slot
+    AppointmentSlot slot = slotRepository.findByIdAndStartTime(dto.getSlotId(), startTime).orElse(null);
+    if (slot == null) {
+        return new EntityNotFoundException("Slot not found");
+    }
+    // Guard: slot must belong to the same doctor the patient picked
+    if (slot.getDoctor() == null || !slot.getDoctor().getId().equals(dto.getDoctorId())) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Slot does not belong to the selected doctor");
+    }
+    return new ResponseStatusException(HttpStatus.CONFLICT, "Slot already booked");
+}
+
+// Transactional so the slot change and the status change commit together, and so nothing the
+// response needs is read through a lazy association after the session has closed
 @Override
+@Transactional
 public AppointmentDTO updateStatus(Long id, String newStatus) {
-    Appointment appointment = appointmentRepository.findById(id)
+    Appointment appointment = appointmentRepository.findWithPartiesAndSlotById(id)
         .orElseThrow(() -> new EntityNotFoundException("Appointment not found with ID: " + id));
 
     String current = appointment.getStatus();
@@ -169,6 +185,9 @@ public AppointmentDTO updateStatus(Long id, String newStatus) {
         if (slot != null && slot.isBooked()) {
             slot.setBooked(false);
             slotRepository.save(slot);
+            // Not offered in the AvailabilityIndex: this appointment keeps the unique slot_id, so
+            // bookAppointment would answer 409 for the slot
+            bookingCaches.evictDoctorSlots(slot.getDoctor().getId());
         }
     }
 
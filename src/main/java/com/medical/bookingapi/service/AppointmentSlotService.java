@@ -3,28 +3,54 @@ package com.medical.bookingapi.service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.medical.bookingapi.dto.AppointmentSlotDTO;
+import com.medical.bookingapi.dto.DoctorAvailabilityDTO;
+import com.medical.bookingapi.dto.SlotBulkResultDTO;
 import com.medical.bookingapi.dto.SlotCreateDTO;
+import com.medical.bookingapi.dto.SlotPageDTO;
+import com.medical.bookingapi.dto.SlotTemplateDTO;
 
 public interface AppointmentSlotService {
     
 
     List<AppointmentSlotDTO> findByDoctorId(Long doctorId);
 
-    List<AppointmentSlotDTO> findByIsBookedFalse();
+    SlotPageDTO findAvailable(Long doctorId, LocalDateTime from, LocalDateTime to, String cursor, Integer size);
 
     List<AppointmentSlotDTO> findByDoctorAndIsBookedFalse(Long doctorId);
 
     List<AppointmentSlotDTO> findByStartTimeBetween(LocalDateTime start, LocalDateTime end);
 
+    // Pushes each slot of the range to the sink as it is read; nothing is collected in memory
+    void streamByStartTimeBetween(LocalDateTime start, LocalDateTime end, Consumer<AppointmentSlotDTO> sink);
+
     Optional<AppointmentSlotDTO> findFirstByDoctorAndIsBookedFalseOrderByStartTimeAsc(Long doctorId);
+
+    // Cross-doctor searches answered from the in-memory AvailabilityIndex
+    Optional<DoctorAvailabilityDTO> findEarliestAvailable(String speciality, String location, LocalDateTime from);
+
+    List<DoctorAvailabilityDTO> findFreeBetween(String speciality, String location,
+                                                LocalDateTime from, LocalDateTime to, Integer limit);
     
     AppointmentSlotDTO createSlot(SlotCreateDTO dto);
+
+    SlotBulkResultDTO createSlotsFromTemplate(SlotTemplateDTO template);
     
-    AppointmentSlotDTO updateSlot(Long id, AppointmentSlotDTO dto);
+    // startTime is the slot's current start time when the caller knows it (null otherwise): it
+    // confines the lookups to the slot's monthly partition
+    AppointmentSlotDTO updateSlot(Long id, LocalDateTime startTime, AppointmentSlotDTO dto);
+
+    default AppointmentSlotDTO updateSlot(Long id, AppointmentSlotDTO dto) {
+        return updateSlot(id, null, dto);
+    }
+
+    void deleteSlot(Long id, LocalDateTime startTime);
 
-    void deleteSlot(Long id);
+    default void deleteSlot(Long id) {
+        deleteSlot(id, null);
+    }
 
     Optional<AppointmentSlotDTO> findById(Long id);
 
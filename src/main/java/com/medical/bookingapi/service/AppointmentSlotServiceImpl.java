@@ -1,14 +1,33 @@
 package com.medical.bookingapi.service;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.sql.SQLException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.medical.bookingapi.config.CacheConfig;
 import com.medical.bookingapi.dto.AppointmentSlotDTO;
+import com.medical.bookingapi.dto.DoctorAvailabilityDTO;
+import com.medical.bookingapi.dto.SlotBulkResultDTO;
 import com.medical.bookingapi.dto.SlotCreateDTO;
+import com.medical.bookingapi.dto.SlotPageDTO;
+import com.medical.bookingapi.dto.SlotTemplateDTO;
 import com.medical.bookingapi.mapper.AppointmentSlotMapper;
 import com.medical.bookingapi.model.AppointmentSlot;
 import com.medical.bookingapi.model.Doctor;
@@ -25,8 +44,41 @@ public class AppointmentSlotServiceImpl implements AppointmentSlotService {
     private final AppointmentSlotRepository appointmentSlotRepository;
     private final AppointmentSlotMapper appointmentSlotMapper;
     private final DoctorRepository doctorRepository; 
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingCaches bookingCaches;
+
+    // SQLSTATE for exclusion_violation: appointment_slot_no_overlap rejected an overlapping slot
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    // SQLSTATE for check_violation, and the check (V10) that keeps a slot within one month so the
+    // per-partition appointment_slot_no_overlap sees every overlap
+    private static final String CHECK_VIOLATION = "23514";
+    private static final String WITHIN_MONTH = "appointment_slot_within_month";
+
+    // A template may span at most a year and produce at most this many slots per request
+    private static final long MAX_TEMPLATE_DAYS = 366;
+
+    @Value("${booking.slots.bulk.max-slots:5000}")
+    private int maxBulkSlots;
+
+    // Upper bound used when /available is called without "to"; far enough out, still a valid SQL timestamp
+    private static final LocalDateTime OPEN_END = LocalDateTime.of(9999, 12, 31, 23, 59);
+
+    // Doctors returned by /free when the client does not ask for a limit, and the hard cap
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
 
+    @Value("${booking.slots.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${booking.slots.page.max-size:200}")
+    private int maxPageSize;
+
+    // Read-write on purpose, here and in findByDoctorAndIsBookedFalse: the result is cached for
+    // minutes, so it is read from the primary rather than a lagging replica (ReadReplicaConfig)
     @Override
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.DOCTOR_SLOTS, key = "#doctorId")
     public List<AppointmentSlotDTO> findByDoctorId(Long doctorId) {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new EntityNotFoundException("Doctor not found with ID: " + doctorId));
@@ -39,14 +91,39 @@ public class AppointmentSlotServiceImpl implements AppointmentSlotService {
     }
 
     @Override
-    public List<AppointmentSlotDTO> findByIsBookedFalse() {
-      
-        List<AppointmentSlot> slots = appointmentSlotRepository.findByBookedFalse();        
+    @Transactional(readOnly = true)
+    public SlotPageDTO findAvailable(Long doctorId, LocalDateTime from, LocalDateTime to, String cursor, Integer size) {
+        int limit = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+        if (limit < 1) {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
 
-        return slots.stream()
-                .map(appointmentSlotMapper::toDto)
-                .collect(Collectors.toList());
+        // Without an explicit window: free slots from now on (past ones cannot be booked anyway)
+        LocalDateTime lower = from != null ? from : LocalDateTime.now();
+        LocalDateTime upper = to != null ? to : OPEN_END;
+
+        LocalDateTime afterStart = lower;
+        long afterId = Long.MIN_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            SlotCursor position = SlotCursor.decode(cursor);
+            if (!position.startTime().isBefore(lower)) {
+                afterStart = position.startTime();
+                afterId = position.id();
+            }
+        }
 
+        // One extra row tells us whether another page exists without a count query
+        Pageable page = PageRequest.of(0, limit + 1);
+        List<AppointmentSlotDTO> rows = doctorId == null
+            ? appointmentSlotRepository.findAvailablePage(afterStart, afterId, upper, page)
+            : appointmentSlotRepository.findAvailablePageByDoctorId(doctorId, afterStart, afterId, upper, page);
+
+        if (rows.size() <= limit) {
+            return new SlotPageDTO(rows, null);
+        }
+        List<AppointmentSlotDTO> items = rows.subList(0, limit);
+        AppointmentSlotDTO last = items.get(limit - 1);
+        return new SlotPageDTO(items, new SlotCursor(last.getStartTime(), last.getId()).encode());
     }
 
     @Override
@@ -58,11 +135,13 @@ public class AppointmentSlotServiceImpl implements AppointmentSlotService {
     }
 
     @Override
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.DOCTOR_AVAILABLE_SLOTS, key = "#doctorId")
     public List<AppointmentSlotDTO> findByDoctorAndIsBookedFalse(Long doctorId) {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new EntityNotFoundException("Doctor not found with ID: " + doctorId));
 
-        List<AppointmentSlot> slots = appointmentSlotRepository.findByDoctorAndBookedFalse(doctor);        
+        List<AppointmentSlot> slots = appointmentSlotRepository.findByDoctorAndBookedFalseAndStartTimeAfter(doctor, LocalDateTime.now());
 
         return slots.stream()
                 .map(appointmentSlotMapper::toDto)
@@ -81,16 +160,39 @@ public class AppointmentSlotServiceImpl implements AppointmentSlotService {
 
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamByStartTimeBetween(LocalDateTime start, LocalDateTime end, Consumer<AppointmentSlotDTO> sink) {
+        try (Stream<AppointmentSlotDTO> slots = appointmentSlotRepository.streamByStartTimeBetween(start, end)) {
+            slots.forEach(sink);
+        }
+    }
+
     @Override
     public Optional<AppointmentSlotDTO> findFirstByDoctorAndIsBookedFalseOrderByStartTimeAsc(Long doctorId) {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new EntityNotFoundException("Doctor not found with ID: " + doctorId));
 
         return appointmentSlotRepository
-                .findFirstByDoctorAndBookedFalseOrderByStartTimeAsc(doctor)
+                .findFirstByDoctorAndBookedFalseAndStartTimeAfterOrderByStartTimeAsc(doctor, LocalDateTime.now())
                 .map(appointmentSlotMapper::toDto);
     }
 
+    @Override
+    public Optional<DoctorAvailabilityDTO> findEarliestAvailable(String speciality, String location, LocalDateTime from) {
+        return availabilityIndex.search(speciality, location, from, null, 1).stream().findFirst();
+    }
+
+    @Override
+    public List<DoctorAvailabilityDTO> findFreeBetween(String speciality, String location,
+                                                       LocalDateTime from, LocalDateTime to, Integer limit) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        int max = limit == null ? DEFAULT_SEARCH_LIMIT : Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+        return availabilityIndex.search(speciality, location, from, to, max);
+    }
+
     @Override
     public AppointmentSlotDTO createSlot(SlotCreateDTO dto) {
         AppointmentSlot slot = appointmentSlotMapper.toEntity(dto);
@@ -109,21 +211,101 @@ public class AppointmentSlotServiceImpl implements AppointmentSlotService {
 
         slot.setLocation(dto.getLocation());  
         slot.setNotes(dto.getNotes());        
-        // Overlap guard for same doctor (adjacent is OK)
-        if (appointmentSlotRepository.existsOverlapping(doctor, slot.getStartTime(), slot.getEndTime())) {
-            throw new IllegalStateException("Overlapping slot for doctor");
-        }
 
-        AppointmentSlot saved = appointmentSlotRepository.save(slot);
+        // Overlaps for the same doctor (adjacent is OK) are rejected by the database at flush
+        AppointmentSlot saved = saveChecked(slot);
+        availabilityIndex.markFree(doctor, saved.getStartTime(), saved.getEndTime());
+        bookingCaches.evictDoctorSlots(doctor.getId());
         return appointmentSlotMapper.toDto(saved);
     }
 
+    @Override
+    @Transactional
+    public SlotBulkResultDTO createSlotsFromTemplate(SlotTemplateDTO template) {
+        if (!template.getDayStart().isBefore(template.getDayEnd())) {
+            throw new IllegalArgumentException("dayStart must be before dayEnd");
+        }
+        if (template.getToDate().isBefore(template.getFromDate())) {
+            throw new IllegalArgumentException("toDate must not be before fromDate");
+        }
+        if (ChronoUnit.DAYS.between(template.getFromDate(), template.getToDate()) >= MAX_TEMPLATE_DAYS) {
+            throw new IllegalArgumentException("Template range must not exceed " + MAX_TEMPLATE_DAYS + " days");
+        }
 
+        Doctor doctor = doctorRepository.findById(template.getDoctorId())
+            .orElseThrow(() -> new EntityNotFoundException("Doctor not found with ID: " + template.getDoctorId()));
+
+        Duration length = Duration.ofMinutes(template.getSlotMinutes());
+        LocalDateTime now = LocalDateTime.now();
+        List<AppointmentSlot> slots = new ArrayList<>();
+        int skippedPast = 0;
+
+        for (LocalDate day = template.getFromDate(); !day.isAfter(template.getToDate()); day = day.plusDays(1)) {
+            if (!template.getDays().contains(day.getDayOfWeek())) {
+                continue;
+            }
+            LocalDateTime dayEnd = day.atTime(template.getDayEnd());
+            for (LocalDateTime start = day.atTime(template.getDayStart());
+                 !start.plus(length).isAfter(dayEnd);
+                 start = start.plus(length)) {
+
+                // Slots must lie in the future (@Future on the entity); drop the part of today already gone
+                if (!start.isAfter(now)) {
+                    skippedPast++;
+                    continue;
+                }
+                if (slots.size() == maxBulkSlots) {
+                    throw new IllegalArgumentException("Template produces more than " + maxBulkSlots + " slots");
+                }
+                LocalDateTime end = start.plus(length);
+
+                AppointmentSlot slot = new AppointmentSlot();
+                slot.setDoctor(doctor);
+                slot.setStartTime(start);
+                slot.setEndTime(end);
+                slot.setBooked(false);
+                slot.setLocation(template.getLocation());
+                slot.setNotes(template.getNotes());
+                slots.add(slot);
+            }
+        }
+
+        // Sequence ids + hibernate.jdbc.batch_size let Hibernate send these as JDBC batches of 50.
+        // Generated slots are back-to-back, so only the doctor's existing slots can collide; the
+        // flush surfaces such a collision here and the whole template is rolled back.
+        List<AppointmentSlot> saved;
+        try {
+            saved = appointmentSlotRepository.saveAll(slots);
+            appointmentSlotRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw translateOverlap(e);
+        }
+        AfterCommit.run(() -> saved.forEach(slot ->
+            availabilityIndex.markFree(doctor, slot.getStartTime(), slot.getEndTime())));
+        bookingCaches.evictDoctorSlots(doctor.getId());
+
+        return new SlotBulkResultDTO(
+            doctor.getId(),
+            saved.size(),
+            skippedPast,
+            saved.isEmpty() ? null : saved.get(0).getStartTime(),
+            saved.isEmpty() ? null : saved.get(saved.size() - 1).getEndTime());
+    }
+
+    // Transactional so the slot stays managed: saveAndFlush then returns the same instance instead of a
+    // merged copy whose lazy doctor could no longer be initialised
     @Override
-    public AppointmentSlotDTO updateSlot(Long id, AppointmentSlotDTO dto) {
-        AppointmentSlot slot = appointmentSlotRepository.findById(id)
+    @Transactional
+    public AppointmentSlotDTO updateSlot(Long id, LocalDateTime startTime, AppointmentSlotDTO dto) {
+        // With its doctor: markFree below reads the speciality and location
+        AppointmentSlot slot = (startTime != null
+                        ? appointmentSlotRepository.findWithDoctorByIdAndStartTime(id, startTime)
+                        : appointmentSlotRepository.findWithDoctorById(id))
                 .orElseThrow(() -> new EntityNotFoundException("Appointment slot not found with ID: " + id));
 
+        Long previousDoctorId = slot.getDoctor().getId();
+        LocalDateTime previousStart = slot.getStartTime();
+        LocalDateTime previousEnd = slot.getEndTime();
         boolean wasBooked = slot.isBooked();
         boolean wantsToUnbook = !dto.isBooked();
         if (wasBooked && !wantsToUnbook) {
@@ -131,8 +313,9 @@ public class AppointmentSlotServiceImpl implements AppointmentSlotService {
         }
 
         // Update foreign key if doctorId provided
+        Doctor doctor = slot.getDoctor();
         if (dto.getDoctorId() != null) {
-            Doctor doctor = doctorRepository.findById(dto.getDoctorId())
+            doctor = doctorRepository.findById(dto.getDoctorId())
                     .orElseThrow(() -> new EntityNotFoundException("Doctor not found with ID: " + dto.getDoctorId()));
             slot.setDoctor(doctor);
         }
@@ -143,22 +326,65 @@ public class AppointmentSlotServiceImpl implements AppointmentSlotService {
         slot.setBooked(dto.isBooked());
         slot.setNotes(dto.getNotes());
 
-        // Now check for overlap using the NEW values
-        if (appointmentSlotRepository.existsOverlappingExcludingId(
-                slot.getDoctor(), slot.getId(), slot.getStartTime(), slot.getEndTime())) {
-            throw new IllegalStateException("Overlapping slot for doctor");
+        // tsrange() in appointment_slot_no_overlap rejects an inverted range with a plain SQL error
+        if (slot.getStartTime() != null && slot.getEndTime() != null && !slot.getStartTime().isBefore(slot.getEndTime())) {
+            throw new IllegalArgumentException("Invalid slot time range");
         }
 
-        return appointmentSlotMapper.toDto(appointmentSlotRepository.save(slot));
+        AppointmentSlot saved = saveChecked(slot);
+        // The doctor loaded above, already initialised, rather than whatever saved.getDoctor() holds
+        Doctor owner = doctor;
+        LocalDateTime newStart = saved.getStartTime();
+        LocalDateTime newEnd = saved.getEndTime();
+        if (!wasBooked) {
+            AfterCommit.run(() -> availabilityIndex.markUnavailable(previousDoctorId, previousStart, previousEnd));
+        }
+        if (!saved.isBooked()) {
+            AfterCommit.run(() -> availabilityIndex.markFree(owner, newStart, newEnd));
+        }
+        bookingCaches.evictDoctorSlots(previousDoctorId);
+        if (!previousDoctorId.equals(owner.getId())) {
+            bookingCaches.evictDoctorSlots(owner.getId());
+        }
+        return appointmentSlotMapper.toDto(saved);
+    }
+
+
+    // Writes immediately so an overlap comes back from this call rather than at commit
+    private AppointmentSlot saveChecked(AppointmentSlot slot) {
+        try {
+            return appointmentSlotRepository.saveAndFlush(slot);
+        } catch (DataIntegrityViolationException e) {
+            throw translateOverlap(e);
+        }
     }
 
+    private static RuntimeException translateOverlap(DataIntegrityViolationException e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        if (cause instanceof SQLException sql && EXCLUSION_VIOLATION.equals(sql.getSQLState())) {
+            return new IllegalStateException("Overlapping slot for doctor", e);
+        }
+        if (cause instanceof SQLException sql && CHECK_VIOLATION.equals(sql.getSQLState())
+                && sql.getMessage() != null && sql.getMessage().contains(WITHIN_MONTH)) {
+            return new IllegalArgumentException("A slot cannot span two calendar months", e);
+        }
+        return e;
+    }
 
     @Override
-    public void deleteSlot(Long id) {
-        if (!appointmentSlotRepository.existsById(id)) {
-            throw new EntityNotFoundException("Appointment slot not found with ID: " + id);
+    @Transactional
+    public void deleteSlot(Long id, LocalDateTime startTime) {
+        AppointmentSlot slot = (startTime != null
+                        ? appointmentSlotRepository.findByIdAndStartTime(id, startTime)
+                        : appointmentSlotRepository.findById(id))
+                .orElseThrow(() -> new EntityNotFoundException("Appointment slot not found with ID: " + id));
+        // One conditional statement, so a booking committing in between cannot be left without its slot
+        if (appointmentSlotRepository.deleteIfFreeAndUnreferenced(id, slot.getStartTime()) == 0) {
+            throw new IllegalStateException("Slot is booked or has an appointment");
         }
-        appointmentSlotRepository.deleteById(id);
+        Long doctorId = slot.getDoctor().getId();
+        AfterCommit.run(() -> availabilityIndex.markUnavailable(doctorId, slot.getStartTime(), slot.getEndTime()));
+        bookingCaches.evictDoctorSlots(doctorId);
     }
 
 
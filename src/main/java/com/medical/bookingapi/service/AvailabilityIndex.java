@@ -0,0 +1,223 @@
+package com.medical.bookingapi.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.medical.bookingapi.dto.DoctorAvailabilityDTO;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+import com.medical.bookingapi.repository.DoctorRepository;
+import com.medical.bookingapi.repository.FreeSlotInterval;
+
+/**
+ * In-memory map of where doctors have free slots, for "earliest free slot for any cardiologist
+ * in Limassol" style searches across many doctors.
+ * <p>
+ * Each doctor has a sorted map of its free slots, start time to end time, so every answer is the
+ * start of a real slot that can be booked as it stands. The index is loaded from the database once
+ * the application is ready and maintained by this instance's booking and slot services after their
+ * transactions commit. Other instances' bookings and slot edits never reach it that way, so it is
+ * also rebuilt from the database every {@code booking.availability.rebuild-interval-ms}: with
+ * several instances a search can be that far behind, and booking still re-checks the slot.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final AppointmentSlotRepository slotRepository;
+    private final DoctorRepository doctorRepository;
+    private final TransactionTemplate warmUpTx;
+    private final Object rebuildLock = new Object();
+    // Replaced wholesale by each rebuild; searches read whichever copy is current
+    private volatile Map<Long, DoctorDays> doctors = new ConcurrentHashMap<>();
+    // Changes made while a rebuild reads the database, replayed onto the new copy before it is
+    // swapped in, so a commit landing mid-rebuild is not lost. Guarded by this; null when idle.
+    private List<Consumer<Map<Long, DoctorDays>>> pending;
+
+    public AvailabilityIndex(AppointmentSlotRepository slotRepository,
+                             DoctorRepository doctorRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.slotRepository = slotRepository;
+        this.doctorRepository = doctorRepository;
+        // Not read-only: with a read replica configured that would load the index from the replica,
+        // and the index is only ever patched afterwards, so anything it lagged by would stay missing
+        this.warmUpTx = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long started = System.nanoTime();
+        int loaded = rebuild();
+        log.info("Availability index warmed for {} doctors in {} ms",
+                loaded, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.availability.rebuild-interval-ms:60000}",
+            initialDelayString = "${booking.availability.rebuild-interval-ms:60000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            // keep serving the current copy; the next run retries
+            log.warn("Could not rebuild the availability index: {}", e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private int rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            Map<Long, DoctorDays> next = new ConcurrentHashMap<>();
+            try {
+                warmUpTx.executeWithoutResult(status -> {
+                    for (Doctor d : doctorRepository.findAll()) {
+                        next.computeIfAbsent(d.getId(), id -> new DoctorDays()).describe(d.getSpeciality(), d.getLocation());
+                    }
+                    try (Stream<FreeSlotInterval> free = slotRepository.streamFreeIntervals(LocalDate.now().atStartOfDay())) {
+                        free.forEach(s -> next.computeIfAbsent(s.getDoctorId(), id -> new DoctorDays())
+                                .markFree(s.getStartTime(), s.getEndTime()));
+                    }
+                });
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pending = null;
+                }
+                throw e;
+            }
+            // replay and swap under one lock, so no change can fall between them
+            synchronized (this) {
+                pending.forEach(change -> change.accept(next));
+                pending = null;
+                doctors = next;
+            }
+            return next.size();
+        }
+    }
+
+    // Applies a change to the current copy, and to the one being built if a rebuild is running
+    private synchronized void update(Consumer<Map<Long, DoctorDays>> change) {
+        change.accept(doctors);
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    // ---------- maintenance (call after commit) ----------
+
+    public void markFree(Doctor doctor, LocalDateTime start, LocalDateTime end) {
+        Long doctorId = doctor.getId();
+        String speciality = doctor.getSpeciality();
+        String location = doctor.getLocation();
+        update(copy -> copy.computeIfAbsent(doctorId, id -> {
+            DoctorDays created = new DoctorDays();
+            created.describe(speciality, location);
+            return created;
+        }).markFree(start, end));
+    }
+
+    // Drops the free slots starting in [start, end): the slot that was booked, moved or deleted
+    public void markUnavailable(Long doctorId, LocalDateTime start, LocalDateTime end) {
+        update(copy -> {
+            DoctorDays days = copy.get(doctorId);
+            if (days != null) {
+                days.markUnavailable(start, end);
+            }
+        });
+    }
+
+    public void doctorUpdated(Long doctorId, String speciality, String location) {
+        update(copy -> {
+            DoctorDays days = copy.get(doctorId);
+            if (days != null) {
+                days.describe(speciality, location);
+            }
+        });
+    }
+
+    public void doctorRemoved(Long doctorId) {
+        update(copy -> copy.remove(doctorId));
+    }
+
+    // ---------- queries ----------
+
+    /**
+     * For every doctor matching the (case-insensitive, optional) speciality and location, the start
+     * of its first free slot starting in [from, to); earliest first, at most {@code limit} doctors.
+     * {@code from} defaults to (and is never earlier than) now; {@code to} is open when null.
+     */
+    public List<DoctorAvailabilityDTO> search(String speciality, String location,
+                                              LocalDateTime from, LocalDateTime to, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lower = from == null || from.isBefore(now) ? now : from;
+        LocalDateTime upper = to == null ? LocalDateTime.MAX : to;
+        List<DoctorAvailabilityDTO> hits = new ArrayList<>();
+        for (Map.Entry<Long, DoctorDays> entry : doctors.entrySet()) {
+            DoctorDays d = entry.getValue();
+            if (!matches(speciality, d.speciality) || !matches(location, d.location)) {
+                continue;
+            }
+            d.free.headMap(now).clear(); // slots that have started can never answer a query again
+            LocalDateTime free = d.firstFree(lower, upper);
+            if (free != null) {
+                hits.add(new DoctorAvailabilityDTO(entry.getKey(), d.speciality, d.location, free));
+            }
+        }
+        hits.sort(Comparator.comparing(DoctorAvailabilityDTO::getFreeFrom)
+                .thenComparing(DoctorAvailabilityDTO::getDoctorId));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    private static boolean matches(String wanted, String actual) {
+        return wanted == null || wanted.isBlank() || wanted.equalsIgnoreCase(actual);
+    }
+
+    private static final class DoctorDays {
+
+        private volatile String speciality;
+        private volatile String location;
+        // free slots of this doctor, start -> end; the overlap constraint keeps starts unique
+        private final ConcurrentSkipListMap<LocalDateTime, LocalDateTime> free = new ConcurrentSkipListMap<>();
+
+        void describe(String speciality, String location) {
+            this.speciality = speciality;
+            this.location = location;
+        }
+
+        void markFree(LocalDateTime start, LocalDateTime end) {
+            if (start != null && end != null) {
+                free.put(start, end);
+            }
+        }
+
+        void markUnavailable(LocalDateTime start, LocalDateTime end) {
+            if (start != null && end != null && start.isBefore(end)) {
+                free.subMap(start, true, end, false).clear();
+            }
+        }
+
+        LocalDateTime firstFree(LocalDateTime from, LocalDateTime to) {
+            LocalDateTime start = free.ceilingKey(from);
+            return start != null && start.isBefore(to) ? start : null;
+        }
+    }
+}
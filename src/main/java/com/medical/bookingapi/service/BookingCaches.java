@@ -0,0 +1,61 @@
+package com.medical.bookingapi.service;
+
+import java.util.Locale;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.medical.bookingapi.config.CacheConfig;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Invalidation for the read caches in {@link CacheConfig}. Evictions run after the surrounding
+ * transaction commits, so a concurrent reader cannot re-cache the pre-commit state after we evict.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingCaches {
+
+    private final CacheManager cacheManager;
+
+    // Slot lists of one doctor: any slot created, moved, deleted, booked or freed
+    public void evictDoctorSlots(Long doctorId) {
+        if (doctorId == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            evict(CacheConfig.DOCTOR_SLOTS, doctorId);
+            evict(CacheConfig.DOCTOR_AVAILABLE_SLOTS, doctorId);
+        });
+    }
+
+    // Doctor profile edits; slot DTOs only carry the doctor id, so their lists stay valid
+    public void evictDoctor(Long doctorId) {
+        if (doctorId == null) {
+            return;
+        }
+        AfterCommit.run(() -> evict(CacheConfig.DOCTORS, doctorId));
+    }
+
+    // Registration, profile/admin edits and deletes: the next authentication re-reads the user
+    public void evictAuthUser(String email) {
+        if (email == null) {
+            return;
+        }
+        AfterCommit.run(() -> evict(CacheConfig.AUTH_USERS, authUserKey(email)));
+    }
+
+    // Logins match email case-insensitively, so every spelling shares one cache entry
+    static String authUserKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -1,27 +1,67 @@
 package com.medical.bookingapi.service;
 
-import com.medical.bookingapi.model.User;
+import com.medical.bookingapi.config.CacheConfig;
+import com.medical.bookingapi.repository.AuthUserView;
 import com.medical.bookingapi.repository.UserRepository;
-import com.medical.bookingapi.security.CustomUserDetails;
+import com.medical.bookingapi.security.AuthUserDetails;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
+/**
+ * Loads the slim {@link AuthUserView} through the short-TTL "authUsers" cache, so repeated requests
+ * from the same user do not hit the database. Entries are evicted via {@link BookingCaches#evictAuthUser}
+ * whenever a user is registered, updated or deleted. Misses are not cached.
+ */
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache cache;
+    private final Counter cacheHits;     // database lookups avoided
+    private final Counter databaseLookups;
+
+    public CustomUserDetailsService(UserRepository userRepository, CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cache = cacheManager.getCache(CacheConfig.AUTH_USERS);
+        this.cacheHits = Counter.builder("booking.auth.user.lookups")
+                .tag("source", "cache")
+                .description("Authentication user lookups answered from the cache (database lookups avoided)")
+                .register(meterRegistry);
+        this.databaseLookups = Counter.builder("booking.auth.user.lookups")
+                .tag("source", "database")
+                .description("Authentication user lookups that queried the database")
+                .register(meterRegistry);
+        if (cache instanceof CaffeineCache caffeine) {
+            Gauge.builder("booking.auth.user.cache.hit.ratio", caffeine.getNativeCache(), c -> c.stats().hitRate())
+                    .description("Hit ratio of the authentication user cache")
+                    .register(meterRegistry);
+        }
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-
-        return new CustomUserDetails(user); 
+        String key = BookingCaches.authUserKey(email);
+        AuthUserView user = cache != null ? cache.get(key, AuthUserView.class) : null;
+        if (user != null) {
+            cacheHits.increment();
+        } else {
+            databaseLookups.increment();
+            user = userRepository.findAuthViewByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+            if (cache != null) {
+                cache.put(key, user);
+            }
+        }
+        return new AuthUserDetails(user);
     }
 }
 
@@ -29,9 +69,8 @@ public class CustomUserDetailsService implements UserDetailsService {
 
 // Spring Security calls loadUserByUsername(email)
 
-// Your service fetches the user and returns their details (via CustomUserDetails)
+// Your service fetches the user and returns their details (via AuthUserDetails)
 
 // Spring checks the hashed password
 
 // If valid → the user is authenticated and added to the SecurityContext
-
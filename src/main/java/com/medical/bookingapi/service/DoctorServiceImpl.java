@@ -3,10 +3,13 @@ package com.medical.bookingapi.service;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.medical.bookingapi.config.CacheConfig;
 import com.medical.bookingapi.dto.DoctorDTO;
 import com.medical.bookingapi.dto.DoctorProfileUpdateDTO;
 import com.medical.bookingapi.dto.DoctorRegistrationDTO;
@@ -24,8 +27,14 @@ public class DoctorServiceImpl implements DoctorService {
     private final DoctorRepository doctorRepository;
     private final DoctorMapper doctorMapper;
     private final PasswordEncoder passwordEncoder; 
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingCaches bookingCaches;
         
+    // Read-write on purpose, like findBySpeciality: whatever this reads is cached, so it comes from
+    // the primary, never from a lagging replica (ReadReplicaConfig)
     @Override
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.DOCTORS, key = "#id")
     public DoctorDTO findById(Long id) {
         Doctor doctor = doctorRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
@@ -43,7 +52,9 @@ public class DoctorServiceImpl implements DoctorService {
 
     }
 
+    // Feeds the Hibernate query cache, which keeps a result until the next write to the doctor tables
     @Override
+    @Transactional
     public List<DoctorDTO> findBySpeciality(String specialty) {
 
         List<Doctor> doctors = doctorRepository.findBySpeciality(specialty);
@@ -62,7 +73,9 @@ public class DoctorServiceImpl implements DoctorService {
         doctor.setPassword_hash(passwordEncoder.encode(dto.getPassword()));
         // Set the role
         doctor.setRole("DOCTOR");
-        return doctorMapper.toDto(doctorRepository.save(doctor));
+        Doctor saved = doctorRepository.save(doctor);
+        bookingCaches.evictAuthUser(saved.getEmail());
+        return doctorMapper.toDto(saved);
     }
 
     public DoctorDTO me() {
@@ -83,7 +96,11 @@ public class DoctorServiceImpl implements DoctorService {
         me.setLocation(dto.getLocation());
         me.setLicenseNumber(dto.getLicenseNumber());
 
-        return doctorMapper.toDto(doctorRepository.save(me));
+        Doctor saved = doctorRepository.save(me);
+        availabilityIndex.doctorUpdated(me.getId(), me.getSpeciality(), me.getLocation());
+        bookingCaches.evictDoctor(me.getId());
+        bookingCaches.evictAuthUser(email);
+        return doctorMapper.toDto(saved);
     }
 
     
@@ -0,0 +1,90 @@
+package com.medical.bookingapi.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind for users.last_login. Logins only record (userId -> time) in memory; a scheduled flush
+ * writes everything collected since the last run as one UPDATE ... FROM (VALUES ...) per chunk, and
+ * the context flushes once more on graceful shutdown. A crash loses at most one interval of
+ * timestamps, which is acceptable for a "last seen" field.
+ */
+@Component
+public class LastLoginRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    static final int CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(Long userId) {
+        if (userId != null) {
+            pending.merge(userId, LocalDateTime.now(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${booking.users.last-login.flush-interval-ms:10000}")
+    public void flush() {
+        List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>();
+        for (Map.Entry<Long, LocalDateTime> e : pending.entrySet()) {
+            Long id = e.getKey();
+            LocalDateTime ts = e.getValue();
+            // a newer login that raced in stays pending for the next flush
+            if (pending.remove(id, ts)) {
+                batch.add(Map.entry(id, ts));
+            }
+        }
+        for (int from = 0; from < batch.size(); from += CHUNK_SIZE) {
+            List<Map.Entry<Long, LocalDateTime>> chunk = batch.subList(from, Math.min(from + CHUNK_SIZE, batch.size()));
+            try {
+                write(chunk);
+            } catch (DataAccessException ex) {
+                chunk.forEach(e -> record(e.getKey(), e.getValue()));
+                log.warn("Could not flush {} last-login timestamps, will retry: {}", chunk.size(), ex.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void record(Long userId, LocalDateTime ts) {
+        pending.merge(userId, ts, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    private void write(List<Map.Entry<Long, LocalDateTime>> chunk) {
+        StringBuilder sql = new StringBuilder("update users set last_login = v.ts from (values ");
+        Object[] args = new Object[chunk.size() * 2];
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(cast(? as bigint), cast(? as timestamp))");
+            args[2 * i] = chunk.get(i).getKey();
+            args[2 * i + 1] = chunk.get(i).getValue();
+        }
+        sql.append(") as v(id, ts) where users.id = v.id");
+        jdbcTemplate.update(sql.toString(), args);
+    }
+}
@@ -25,6 +25,7 @@ public class PatientServiceImpl implements PatientService {
     private final PatientRepository patientRepository;
     private final PatientMapper patientMapper;
     private final PasswordEncoder passwordEncoder;
+    private final BookingCaches bookingCaches;
 
     @Override
     public PatientDTO getPatientById(Long id) {
@@ -60,7 +61,9 @@ public class PatientServiceImpl implements PatientService {
         // Set the role
         patient.setRole("PATIENT");
 
-        return patientMapper.toDto(patientRepository.save(patient));
+        Patient saved = patientRepository.save(patient);
+        bookingCaches.evictAuthUser(saved.getEmail());
+        return patientMapper.toDto(saved);
     }
 
     public PatientDTO me() {
@@ -81,6 +84,7 @@ public class PatientServiceImpl implements PatientService {
         me.setInsuranceId(dto.getInsuranceId());
 
         Patient saved = patientRepository.save(me);
+        bookingCaches.evictAuthUser(email);
         return patientMapper.toDto(saved);
     }
 
@@ -9,36 +9,27 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final LastLoginRecorder lastLoginRecorder;
 
     @Override
     public UserResponseDTO getUserByEmail(String email) {
         User user = userRepository.findByEmail(email)
             .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        user.setLastLogin(LocalDateTime.now());
-        userRepository.save(user);
+        lastLoginRecorder.record(user.getId());
 
         return userMapper.toDto(user);
     }
 
-
+    // Buffered; LastLoginRecorder writes it in the next batched flush
     @Override
     public void updateLastLogin(User user) {
-        User existingUser = userRepository.findById(user.getId())
-            .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        existingUser.setLastLogin(LocalDateTime.now());
-        userRepository.save(existingUser);
+        lastLoginRecorder.record(user.getId());
     }
-
-
-    
 }
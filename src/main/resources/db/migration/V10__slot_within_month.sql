@@ -0,0 +1,23 @@
+-- A slot may not span a month boundary. appointment_slot_no_overlap exists once per monthly
+-- partition (V5), so without this two overlapping slots on either side of a boundary were accepted.
+-- With it, a slot lies entirely within the month of the partition that holds it, every pair of
+-- overlapping slots of a doctor shares that partition, and its exclusion constraint rejects them.
+-- end_time is exclusive, so a slot ending exactly at midnight on the 1st still belongs to the month before.
+
+-- Refuse to migrate (rather than fail on an anonymous check error) while such slots exist
+do $$
+declare
+    v_count bigint;
+begin
+    select count(*) into v_count
+      from appointment_slot
+     where date_trunc('month', start_time) <> date_trunc('month', end_time - interval '1 microsecond');
+    if v_count > 0 then
+        raise exception '% appointment slot(s) span a month boundary; split or move them before migrating', v_count;
+    end if;
+end $$;
+
+-- added on the parent, so it is checked on every partition, including ones created later
+alter table appointment_slot
+    add constraint appointment_slot_within_month
+    check (date_trunc('month', start_time) = date_trunc('month', end_time - interval '1 microsecond'));
@@ -0,0 +1,32 @@
+-- appointment carries its slot's start_time next to slot_id. appointment_slot's primary key is
+-- (id, start_time) since V5, so a lookup or join on the id alone probes every monthly partition;
+-- with the start time as well it reads only the slot's own month.
+--
+-- The pair also restores the foreign key V5 had to drop: (slot_id, slot_start_time) references the
+-- whole primary key. ON UPDATE CASCADE keeps the copy in step when a slot is moved to another time
+-- (PostgreSQL 15+ applies it to rows that move between partitions as well).
+
+alter table appointment add column slot_start_time timestamp(6);
+
+update appointment a
+   set slot_start_time = s.start_time
+  from appointment_slot s
+ where s.id = a.slot_id;
+
+-- Refuse to migrate (rather than fail on a not-null error) while appointments point at missing slots
+do $$
+declare
+    v_count bigint;
+begin
+    select count(*) into v_count from appointment where slot_start_time is null;
+    if v_count > 0 then
+        raise exception '% appointment(s) reference a slot that does not exist; fix or remove them before migrating', v_count;
+    end if;
+end $$;
+
+alter table appointment alter column slot_start_time set not null;
+
+alter table appointment
+    add constraint fk_appointment_slot
+    foreign key (slot_id, slot_start_time) references appointment_slot (id, start_time)
+    on update cascade;
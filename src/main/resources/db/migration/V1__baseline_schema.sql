@@ -0,0 +1,54 @@
+-- Schema as Hibernate (ddl-auto=update) created it before migrations took over.
+-- Existing databases are baselined at this version and never run this script.
+
+create table users (
+    id            bigint generated by default as identity primary key,
+    role          varchar(255) not null,
+    first_name    varchar(255),
+    last_name     varchar(255),
+    email         varchar(255) not null unique,
+    password_hash varchar(255) not null,
+    created_at    timestamp(6),
+    last_login    timestamp(6)
+);
+
+create table admins (
+    id bigint primary key references users (id)
+);
+
+create table doctor (
+    id             bigint primary key references users (id),
+    speciality     varchar(255) not null,
+    location       varchar(255) not null,
+    license_number varchar(255)
+);
+
+create table patient (
+    id            bigint primary key references users (id),
+    date_of_birth date,
+    blood_type    varchar(255),
+    allergies     text,
+    insurance_id  varchar(255)
+);
+
+create sequence appointment_slot_seq start with 1 increment by 50;
+
+create table appointment_slot (
+    id         bigint primary key,
+    doctor_id  bigint not null references doctor (id),
+    start_time timestamp(6) not null,
+    end_time   timestamp(6) not null,
+    is_booked  boolean not null,
+    notes      text,
+    location   varchar(255)
+);
+
+create table appointment (
+    id         bigint generated by default as identity primary key,
+    patient_id bigint not null references patient (id),
+    doctor_id  bigint not null references doctor (id),
+    slot_id    bigint not null unique references appointment_slot (id),
+    status     varchar(255) not null,
+    notes      text,
+    created_at timestamp(6)
+);
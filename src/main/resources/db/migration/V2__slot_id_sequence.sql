@@ -0,0 +1,13 @@
+-- appointment_slot ids come from appointment_slot_seq (pooled, allocationSize 50). Databases
+-- created while the column was IDENTITY still carry the identity default and a sequence that
+-- starts at 1, so drop the former and move the latter past the highest existing id.
+-- Replaces the SlotSequenceAligner startup runner.
+
+create sequence if not exists appointment_slot_seq start with 1 increment by 50;
+
+alter table appointment_slot alter column id drop identity if exists;
+
+-- The pooled optimizer hands out (value - 50, value], so the next value must clear max(id) by 50
+select setval('appointment_slot_seq', m.target, false)
+  from (select max(id) + 50 + 1 as target from appointment_slot) m
+ where m.target > (select last_value from appointment_slot_seq);
@@ -0,0 +1,27 @@
+-- Indexes for the repository finders on the hot paths. CONCURRENTLY keeps the tables writable
+-- while they build; Flyway runs this script outside a transaction because of it.
+
+-- findByDoctor, overlap checks and the overlap index load
+create index concurrently if not exists idx_slot_doctor_start
+    on appointment_slot (doctor_id, start_time);
+
+-- free slots of one doctor: findByDoctorAndBookedFalse, first free slot, /available?doctorId
+create index concurrently if not exists idx_slot_free_doctor_start
+    on appointment_slot (doctor_id, start_time) where is_booked = false;
+
+-- /available keyset pages across doctors, ordered by (start_time, id)
+create index concurrently if not exists idx_slot_free_start_id
+    on appointment_slot (start_time, id) where is_booked = false;
+
+-- /between and its NDJSON export
+create index concurrently if not exists idx_slot_start
+    on appointment_slot (start_time);
+
+create index concurrently if not exists idx_appointment_patient
+    on appointment (patient_id);
+
+create index concurrently if not exists idx_appointment_doctor_status
+    on appointment (doctor_id, status);
+
+create index concurrently if not exists idx_appointment_status
+    on appointment (status);
@@ -0,0 +1,9 @@
+-- A doctor's slots must not overlap; adjacent slots ([09:00,09:30) and [09:30,10:00)) are fine.
+-- Enforced here instead of a check-then-insert in the service, which two concurrent writes could
+-- both pass. Fails if overlapping slots already exist: remove those before migrating.
+
+create extension if not exists btree_gist;
+
+alter table appointment_slot
+    add constraint appointment_slot_no_overlap
+    exclude using gist (doctor_id with =, tsrange(start_time, end_time, '[)') with &&);
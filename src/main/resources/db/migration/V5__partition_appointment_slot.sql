@@ -0,0 +1,125 @@
+-- appointment_slot becomes a table range-partitioned by month on start_time, so range queries
+-- only touch the months they ask for and old months can be detached without a bulk DELETE.
+-- Runs in one transaction: the existing rows are copied into the new layout, then the old table
+-- is dropped. Budget for the copy (and the write lock it holds) on large tables.
+--
+-- Consequences of partitioning:
+--  * the primary key has to contain the partition key, so it is (id, start_time); ids still come
+--    from appointment_slot_seq and stay unique on their own
+--  * a foreign key can only reference that whole key, so appointment.slot_id no longer has one;
+--    AppointmentSlotServiceImpl refuses to delete slots that an appointment points at
+--  * appointment_slot_no_overlap cannot live on the parent (PostgreSQL only allows exclusion
+--    constraints there when they compare the partition key with "="), so every partition carries
+--    its own copy; two slots that overlap across a month boundary are not caught by it
+
+-- 1. appointment.slot_id -> appointment_slot (named by Hibernate or by V1, depending on the database)
+do $$
+declare
+    fk record;
+begin
+    for fk in select conname from pg_constraint
+               where conrelid = 'appointment'::regclass
+                 and confrelid = 'appointment_slot'::regclass
+                 and contype = 'f'
+    loop
+        execute format('alter table appointment drop constraint %I', fk.conname);
+    end loop;
+end $$;
+
+alter table appointment_slot rename to appointment_slot_unpartitioned;
+-- frees the appointment_slot_pkey name (index names are unique per schema) for the new table
+alter table appointment_slot_unpartitioned rename constraint appointment_slot_pkey to appointment_slot_unpartitioned_pkey;
+
+-- 2. the partitioned parent and a default partition that catches months nobody created yet
+create table appointment_slot (
+    id         bigint not null,
+    doctor_id  bigint not null references doctor (id),
+    start_time timestamp(6) not null,
+    end_time   timestamp(6) not null,
+    is_booked  boolean not null,
+    notes      text,
+    location   varchar(255),
+    primary key (id, start_time)
+) partition by range (start_time);
+
+create table appointment_slot_default partition of appointment_slot default;
+
+alter table appointment_slot_default
+    add constraint appointment_slot_default_no_overlap
+    exclude using gist (doctor_id with =, tsrange(start_time, end_time, '[)') with &&);
+
+-- 3. creates the partition for the month containing p_month (no-op if it exists); rows already in
+--    the default partition for that month are moved into it. Also called by SlotPartitionMaintainer.
+create or replace function create_appointment_slot_partition(p_month date) returns boolean
+language plpgsql as $$
+declare
+    v_from date := date_trunc('month', p_month)::date;
+    v_to   date := (date_trunc('month', p_month) + interval '1 month')::date;
+    v_name text := 'appointment_slot_p' || to_char(v_from, 'YYYY_MM');
+begin
+    if to_regclass(v_name) is not null then
+        return false;
+    end if;
+
+    execute format('create table %I (like appointment_slot including defaults including constraints)', v_name);
+    execute format('alter table %I add constraint %I exclude using gist '
+                   '(doctor_id with =, tsrange(start_time, end_time, ''[)'') with &&)',
+                   v_name, v_name || '_no_overlap');
+    execute format('with moved as (delete from appointment_slot_default'
+                   ' where start_time >= %L and start_time < %L returning *)'
+                   ' insert into %I select * from moved', v_from, v_to, v_name);
+    -- attaching (rather than CREATE ... PARTITION OF) only takes a SHARE UPDATE EXCLUSIVE lock on
+    -- the parent; the parent's indexes are built on the new partition as part of the attach
+    execute format('alter table appointment_slot attach partition %I for values from (%L) to (%L)',
+                   v_name, v_from, v_to);
+    return true;
+end $$;
+
+-- Detaches the partition for the month containing p_month and moves it to the archive schema,
+-- where it stays queryable for reporting. Skipped while any appointment still points at one of its
+-- slots, since Appointment always loads its slot. Returns 'archived', 'missing' or 'referenced'.
+create or replace function archive_appointment_slot_partition(p_month date) returns text
+language plpgsql as $$
+declare
+    v_name text := 'appointment_slot_p' || to_char(date_trunc('month', p_month), 'YYYY_MM');
+    v_referenced boolean;
+begin
+    if to_regclass(v_name) is null then
+        return 'missing';
+    end if;
+
+    execute format('select exists (select 1 from appointment a join %I s on s.id = a.slot_id)', v_name)
+       into v_referenced;
+    if v_referenced then
+        return 'referenced';
+    end if;
+
+    -- a plain DETACH locks the parent exclusively (CONCURRENTLY is not allowed next to a default
+    -- partition); give up rather than queue behind long-running queries
+    perform set_config('lock_timeout', '5s', true);
+    execute format('alter table appointment_slot detach partition %I', v_name);
+    create schema if not exists archive;
+    execute format('alter table %I set schema archive', v_name);
+    return 'archived';
+end $$;
+
+-- 4. partitions for every month that has slots, and the next twelve
+select create_appointment_slot_partition(m::date)
+  from generate_series(
+           date_trunc('month', least(coalesce((select min(start_time) from appointment_slot_unpartitioned), localtimestamp),
+                                     localtimestamp)),
+           date_trunc('month', greatest(coalesce((select max(start_time) from appointment_slot_unpartitioned), localtimestamp),
+                                        localtimestamp) + interval '12 months'),
+           interval '1 month') m;
+
+insert into appointment_slot (id, doctor_id, start_time, end_time, is_booked, notes, location)
+select id, doctor_id, start_time, end_time, is_booked, notes, location
+  from appointment_slot_unpartitioned;
+
+drop table appointment_slot_unpartitioned;
+
+-- 5. the V3 indexes, now partitioned (built per partition, inherited by future ones)
+create index idx_slot_doctor_start on appointment_slot (doctor_id, start_time);
+create index idx_slot_free_doctor_start on appointment_slot (doctor_id, start_time) where is_booked = false;
+create index idx_slot_free_start_id on appointment_slot (start_time, id) where is_booked = false;
+create index idx_slot_start on appointment_slot (start_time);
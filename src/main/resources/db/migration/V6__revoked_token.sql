@@ -0,0 +1,15 @@
+-- Tokens revoked before their expiry (see TokenRevocationList). A row with a jti revokes that one
+-- token; a row without one revokes every token of user_id issued up to revoked_at. user_id has no
+-- foreign key on purpose: deleting a user is the main reason to revoke its tokens.
+-- Rows are purged once expires_at (the latest expiry of any token they can match) has passed.
+
+create table revoked_token (
+    id         bigserial primary key,
+    user_id    bigint not null,
+    jti        varchar(64) unique,
+    revoked_at timestamptz not null,
+    expires_at timestamptz not null
+);
+
+-- other instances poll for rows newer than their previous refresh
+create index idx_revoked_token_revoked_at on revoked_token (revoked_at);
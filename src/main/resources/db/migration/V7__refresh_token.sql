@@ -0,0 +1,18 @@
+-- Opaque refresh tokens (see RefreshTokenService). Only a SHA-256 of the token is stored. Every
+-- refresh marks the presented token used and issues its successor in the same family; presenting
+-- a used token again revokes the whole family. Rows go with their user.
+
+create table refresh_token (
+    id         bigint generated by default as identity primary key,
+    user_id    bigint not null references users (id) on delete cascade,
+    family_id  uuid not null,
+    token_hash varchar(64) not null unique,
+    issued_at  timestamp(6) not null,
+    expires_at timestamp(6) not null,
+    used_at    timestamp(6),
+    revoked_at timestamp(6)
+);
+
+create index idx_refresh_token_family on refresh_token (family_id);
+-- for the cascade when a user is deleted
+create index idx_refresh_token_user on refresh_token (user_id);
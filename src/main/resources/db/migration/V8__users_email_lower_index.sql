@@ -0,0 +1,6 @@
+-- Logins look users up by lower(email) (UserRepository.findAuthViewByEmail / existsByEmail), which
+-- the plain unique constraint on email cannot serve. Unique as well, so two accounts can no longer
+-- differ only in the case of their email; the build fails on existing duplicates, which have to be
+-- merged first. CONCURRENTLY keeps users writable; Flyway runs this outside a transaction.
+create unique index concurrently if not exists idx_users_email_lower
+    on users (lower(email));
@@ -0,0 +1,37 @@
+-- users, appointment and refresh_token ids move from IDENTITY to pooled sequences (allocationSize 50),
+-- as appointment_slot did in V2, so Hibernate can batch their inserts.
+--
+-- The identity is replaced by a column default on the same sequence rather than dropped outright:
+-- instances still running the IDENTITY mapping during a rolling deploy insert without an id and keep
+-- working. Each such insert consumes one sequence value, and with it the block of 50 a pooled
+-- instance would have derived from that value, so the two kinds of writer never collide.
+
+-- No inserts between reading max(id) and switching the default (held until the migration commits)
+lock table users, appointment, refresh_token in exclusive mode;
+
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists appointment_seq start with 1 increment by 50;
+create sequence if not exists refresh_token_seq start with 1 increment by 50;
+
+-- The pooled optimizer hands out (value - 50, value], so the next value must clear max(id) by 50
+select setval('users_seq', m.target, false)
+  from (select max(id) + 50 + 1 as target from users) m
+ where m.target > (select last_value from users_seq);
+select setval('appointment_seq', m.target, false)
+  from (select max(id) + 50 + 1 as target from appointment) m
+ where m.target > (select last_value from appointment_seq);
+select setval('refresh_token_seq', m.target, false)
+  from (select max(id) + 50 + 1 as target from refresh_token) m
+ where m.target > (select last_value from refresh_token_seq);
+
+alter table users alter column id drop identity if exists;
+alter table users alter column id set default nextval('users_seq');
+alter sequence users_seq owned by users.id;
+
+alter table appointment alter column id drop identity if exists;
+alter table appointment alter column id set default nextval('appointment_seq');
+alter sequence appointment_seq owned by appointment.id;
+
+alter table refresh_token alter column id drop identity if exists;
+alter table refresh_token alter column id set default nextval('refresh_token_seq');
+alter sequence refresh_token_seq owned by refresh_token.id;
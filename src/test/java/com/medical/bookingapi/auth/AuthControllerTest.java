@@ -1,6 +1,7 @@
 package com.medical.bookingapi.auth;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medical.bookingapi.dto.RefreshRequestDTO;
 import com.medical.bookingapi.dto.RegisterRequestDTO;
 import com.medical.bookingapi.dto.UserLoginDTO;
 import com.medical.bookingapi.dto.UserResponseDTO;
@@ -13,8 +14,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -125,6 +129,58 @@ void register_whenServiceThrows_shouldReturn500_fromExceptionHandler() throws Ex
 
   }
 
+  @Test
+  void login_whenPasswordHashingIsSaturated_returns503WithRetryAfter() throws Exception {
+    UserLoginDTO login = new UserLoginDTO();
+    trySet(login, "email", "pat@example.com");
+    trySet(login, "password", "secret123");
+    when(authService.login(any(UserLoginDTO.class))).thenThrow(
+        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent logins, retry shortly") {
+          @Override
+          public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "2");
+            return headers;
+          }
+        });
+
+    mvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(login)))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+  }
+
+  @Test
+  void refresh_shouldReturn200_withRotatedTokens() throws Exception {
+    UserResponseDTO resp = new UserResponseDTO();
+    resp.setToken("new-jwt");
+    resp.setRefreshToken("new-refresh");
+    when(authService.refresh(any(RefreshRequestDTO.class))).thenReturn(resp);
+
+    mvc.perform(post("/api/auth/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"refreshToken\":\"old-refresh\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.token").value("new-jwt"))
+        .andExpect(jsonPath("$.refreshToken").value("new-refresh"));
+
+    ArgumentCaptor<RefreshRequestDTO> captor = ArgumentCaptor.forClass(RefreshRequestDTO.class);
+    verify(authService).refresh(captor.capture());
+    assertThat(captor.getValue().getRefreshToken()).isEqualTo("old-refresh");
+  }
+
+  @Test
+  void refresh_whenTokenIsRejected_shouldReturn401() throws Exception {
+    when(authService.refresh(any(RefreshRequestDTO.class)))
+        .thenThrow(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
+
+    mvc.perform(post("/api/auth/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"refreshToken\":\"reused\"}"))
+        .andExpect(status().isUnauthorized());
+  }
+
   // ---------- tiny reflection helpers so this compiles even if your DTOs use Lombok and no builder ----------
   private static void trySet(Object target, String field, Object value) {
     try {
@@ -2,9 +2,15 @@ package com.medical.bookingapi.auth;
 
 import com.medical.bookingapi.dto.*;
 import com.medical.bookingapi.model.*;
+import com.medical.bookingapi.repository.AuthUserView;
 import com.medical.bookingapi.repository.UserRepository;
+import com.medical.bookingapi.security.AuthUserDetails;
 import com.medical.bookingapi.security.CustomUserDetails;
 import com.medical.bookingapi.security.JwtService;
+import com.medical.bookingapi.security.TokenRevocationList;
+import com.medical.bookingapi.security.VerifiedToken;
+import com.medical.bookingapi.service.BookingCaches;
+import com.medical.bookingapi.service.LastLoginRecorder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -15,6 +21,9 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Instant;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -24,6 +33,10 @@ class AuthServiceTest {
     @Mock private UserRepository userRepository;
     @Mock private PasswordEncoder passwordEncoder;
     @Mock private AuthenticationManager authenticationManager;
+    @Mock private BookingCaches bookingCaches;
+    @Mock private LastLoginRecorder lastLoginRecorder;
+    @Mock private TokenRevocationList tokenRevocations;
+    @Mock private RefreshTokenService refreshTokenService;
 
     @InjectMocks private AuthService authService;
 
@@ -40,6 +53,7 @@ class AuthServiceTest {
 
         authService.registerPatient(dto);
 
+        verify(bookingCaches).evictAuthUser("john@example.com");
         verify(userRepository).save(argThat(user ->
             user instanceof Patient p &&
             p.getFirstName().equals("John") &&
@@ -61,23 +75,18 @@ class AuthServiceTest {
     }
 
     @Test
-    void login_returnsUserResponse_whenValidCredentials() {
+    void login_returnsUserResponse_fromTheAuthView_withoutLoadingTheEntity() {
         UserLoginDTO loginDTO = new UserLoginDTO("john@example.com", "pass123");
 
-        Patient patient = new Patient();
-        patient.setId(1L);
-        patient.setFirstName("John");
-        patient.setLastName("Doe");
-        patient.setEmail("john@example.com");
-        patient.setRole("PATIENT");
-
-        CustomUserDetails cud = new CustomUserDetails(patient);
+        AuthUserDetails details = new AuthUserDetails(
+                new AuthUserView(1L, "john@example.com", "PATIENT", "hash", true, "John", "Doe"));
         Authentication auth = mock(Authentication.class);
 
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(auth);
-        when(auth.getPrincipal()).thenReturn(cud);
-        when(jwtService.generateToken(cud)).thenReturn("jwt-token");
+        when(auth.getPrincipal()).thenReturn(details);
+        when(jwtService.generateToken(details)).thenReturn("jwt-token");
+        when(refreshTokenService.issue(1L)).thenReturn("refresh-token");
 
         UserResponseDTO response = authService.login(loginDTO);
 
@@ -87,6 +96,29 @@ class AuthServiceTest {
         assertEquals("john@example.com", response.getEmail());
         assertEquals("PATIENT", response.getRole());
         assertEquals("jwt-token", response.getToken());
+        assertEquals("refresh-token", response.getRefreshToken());
+        verify(lastLoginRecorder).record(1L);
+        verify(userRepository, never()).findByEmail(any());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void login_withAnotherPrincipalType_readsTheAuthView() {
+        UserLoginDTO loginDTO = new UserLoginDTO("john@example.com", "pass123");
+
+        Authentication auth = mock(Authentication.class);
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(auth);
+        when(auth.getPrincipal()).thenReturn("john@example.com");
+        when(userRepository.findAuthViewByEmail("john@example.com")).thenReturn(Optional.of(
+                new AuthUserView(1L, "john@example.com", "PATIENT", "hash", true, "John", "Doe")));
+        when(jwtService.generateToken(any(AuthUserDetails.class))).thenReturn("jwt-token");
+
+        UserResponseDTO response = authService.login(loginDTO);
+
+        assertEquals("John", response.getFirstName());
+        assertEquals("jwt-token", response.getToken());
+        verify(userRepository, never()).findByEmail(any());
     }
 
     @Test
@@ -100,4 +132,35 @@ class AuthServiceTest {
 
         assertEquals("Invalid credentials", ex.getMessage());
     }
+
+    @Test
+    void logout_revokesThePresentedToken() {
+        VerifiedToken token = new VerifiedToken("john@example.com", "PATIENT", 1L, null, 1L, "jti-1",
+            Instant.now(), Instant.now().plusSeconds(60));
+        when(jwtService.verify("jwt")).thenReturn(token);
+
+        authService.logout("jwt", "refresh");
+
+        verify(tokenRevocations).revoke(token);
+        verify(refreshTokenService).revoke("refresh");
+    }
+
+    @Test
+    void refresh_issuesNewTokens_withoutAuthenticatingOrHashing() {
+        Patient patient = new Patient();
+        patient.setId(1L);
+        patient.setFirstName("John");
+        patient.setEmail("john@example.com");
+        patient.setRole("PATIENT");
+        when(refreshTokenService.rotate("old-refresh"))
+                .thenReturn(new RefreshTokenService.Rotation(patient, "new-refresh"));
+        when(jwtService.generateToken(any(CustomUserDetails.class))).thenReturn("jwt-token");
+
+        UserResponseDTO response = authService.refresh(new RefreshRequestDTO("old-refresh"));
+
+        assertEquals(1L, response.getId());
+        assertEquals("jwt-token", response.getToken());
+        assertEquals("new-refresh", response.getRefreshToken());
+        verifyNoInteractions(authenticationManager, passwordEncoder, lastLoginRecorder);
+    }
 }
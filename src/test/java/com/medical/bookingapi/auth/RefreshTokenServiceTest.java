@@ -0,0 +1,130 @@
+package com.medical.bookingapi.auth;
+
+import com.medical.bookingapi.model.Patient;
+import com.medical.bookingapi.model.RefreshToken;
+import com.medical.bookingapi.repository.RefreshTokenRepository;
+import com.medical.bookingapi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+  @Mock RefreshTokenRepository repository;
+  @Mock UserRepository userRepository;
+
+  RefreshTokenService service;
+  Patient patient;
+
+  @BeforeEach
+  void setUp() {
+    service = new RefreshTokenService(repository, userRepository, Duration.ofDays(14));
+    patient = new Patient();
+    patient.setId(9L);
+    patient.setEmail("pat@test.local");
+    patient.setRole("PATIENT");
+  }
+
+  private RefreshToken stored(String token, UUID family) {
+    RefreshToken t = new RefreshToken();
+    t.setId(1L);
+    t.setUser(patient);
+    t.setFamilyId(family);
+    t.setTokenHash(RefreshTokenService.hash(token));
+    t.setIssuedAt(LocalDateTime.now().minusMinutes(5));
+    t.setExpiresAt(LocalDateTime.now().plusDays(1));
+    return t;
+  }
+
+  @Test
+  void issue_storesOnlyTheHash_inANewFamily() {
+    when(userRepository.getReferenceById(9L)).thenReturn(patient);
+
+    String token = service.issue(9L);
+
+    ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+    verify(repository).save(saved.capture());
+    assertEquals(RefreshTokenService.hash(token), saved.getValue().getTokenHash());
+    assertNotEquals(token, saved.getValue().getTokenHash());
+    assertNotNull(saved.getValue().getFamilyId());
+    assertSame(patient, saved.getValue().getUser());
+    assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now().plusDays(13)));
+  }
+
+  @Test
+  void rotate_marksTheTokenUsed_andIssuesASuccessorInTheSameFamily() {
+    UUID family = UUID.randomUUID();
+    when(repository.findWithUserByTokenHash(RefreshTokenService.hash("old")))
+        .thenReturn(Optional.of(stored("old", family)));
+    when(repository.markUsed(eq(1L), any())).thenReturn(1);
+
+    RefreshTokenService.Rotation rotation = service.rotate("old");
+
+    assertSame(patient, rotation.user());
+    assertNotEquals("old", rotation.refreshToken());
+    ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+    verify(repository).save(saved.capture());
+    assertEquals(family, saved.getValue().getFamilyId());
+    assertEquals(RefreshTokenService.hash(rotation.refreshToken()), saved.getValue().getTokenHash());
+    verify(repository, never()).revokeFamily(any(), any());
+  }
+
+  @Test
+  void rotate_withAnAlreadyUsedToken_revokesTheFamily() {
+    UUID family = UUID.randomUUID();
+    when(repository.findWithUserByTokenHash(RefreshTokenService.hash("old")))
+        .thenReturn(Optional.of(stored("old", family)));
+    when(repository.markUsed(eq(1L), any())).thenReturn(0);
+
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.rotate("old"));
+
+    assertEquals(HttpStatus.UNAUTHORIZED, ex.getStatusCode());
+    verify(repository).revokeFamily(eq(family), any());
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void rotate_rejectsUnknownExpiredAndRevokedTokens() {
+    RefreshToken expired = stored("expired", UUID.randomUUID());
+    expired.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+    RefreshToken revoked = stored("revoked", UUID.randomUUID());
+    revoked.setRevokedAt(LocalDateTime.now().minusMinutes(1));
+    when(repository.findWithUserByTokenHash(any())).thenReturn(Optional.empty());
+    when(repository.findWithUserByTokenHash(RefreshTokenService.hash("expired"))).thenReturn(Optional.of(expired));
+    when(repository.findWithUserByTokenHash(RefreshTokenService.hash("revoked"))).thenReturn(Optional.of(revoked));
+
+    assertThrows(ResponseStatusException.class, () -> service.rotate("unknown"));
+    assertThrows(ResponseStatusException.class, () -> service.rotate("expired"));
+    assertThrows(ResponseStatusException.class, () -> service.rotate("revoked"));
+    verify(repository, never()).markUsed(any(), any());
+    verify(repository, never()).revokeFamily(any(), any());
+  }
+
+  @Test
+  void revoke_revokesTheFamily_andIgnoresUnknownTokens() {
+    UUID family = UUID.randomUUID();
+    when(repository.findWithUserByTokenHash(RefreshTokenService.hash("t"))).thenReturn(Optional.of(stored("t", family)));
+    when(repository.findWithUserByTokenHash(RefreshTokenService.hash("unknown"))).thenReturn(Optional.empty());
+
+    service.revoke("t");
+    service.revoke("unknown");
+
+    verify(repository, times(1)).revokeFamily(eq(family), any());
+  }
+}
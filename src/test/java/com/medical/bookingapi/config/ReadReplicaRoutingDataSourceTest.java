@@ -0,0 +1,127 @@
+package com.medical.bookingapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadReplicaRoutingDataSourceTest {
+
+  DataSource primary;
+  DataSource replica;
+  Connection primaryConnection;
+  Connection replicaConnection;
+  SimpleMeterRegistry meterRegistry;
+  AtomicLong now;
+  ReadReplicaRoutingDataSource router;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    primary = mock(DataSource.class);
+    replica = mock(DataSource.class);
+    primaryConnection = mock(Connection.class);
+    replicaConnection = mock(Connection.class);
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(replica.getConnection()).thenReturn(replicaConnection);
+    meterRegistry = new SimpleMeterRegistry();
+    now = new AtomicLong();
+    router = new ReadReplicaRoutingDataSource(primary, replica, Duration.ofSeconds(5), meterRegistry, now::get);
+  }
+
+  @AfterEach
+  void clear() {
+    SecurityContextHolder.clearContext();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clear();
+    }
+  }
+
+  private static void signIn(String user) {
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(user, null, AuthorityUtils.createAuthorityList("ROLE_PATIENT")));
+  }
+
+  // the connection a transaction would get; commits it when asked, as the transaction manager would
+  private Connection inTransaction(boolean readOnly, boolean commit) throws SQLException {
+    TransactionSynchronizationManager.initSynchronization();
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    try {
+      Connection connection = router.getConnection();
+      if (commit) {
+        TransactionSynchronizationUtils.triggerAfterCommit();
+      }
+      return connection;
+    } finally {
+      TransactionSynchronizationManager.clear();
+    }
+  }
+
+  private double routed(String pool, String transaction) {
+    return meterRegistry.get("booking.datasource.routed").tag("pool", pool).tag("transaction", transaction)
+        .counter().count();
+  }
+
+  @Test
+  void readOnlyTransactions_useTheReplica_everythingElseThePrimary() throws SQLException {
+    assertSame(replicaConnection, inTransaction(true, true));
+    assertSame(primaryConnection, inTransaction(false, true));
+    // no transaction at all (JdbcTemplate jobs, Flyway, Hibernate bootstrap)
+    assertSame(primaryConnection, router.getConnection());
+  }
+
+  @Test
+  void afterCommittingAWrite_theSameUserReadsFromThePrimary_untilTheWindowPasses() throws SQLException {
+    signIn("alice@test.local");
+    inTransaction(false, true);
+
+    assertSame(primaryConnection, inTransaction(true, true));
+    now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+    assertSame(replicaConnection, inTransaction(true, true));
+
+    assertEquals(2, routed("primary", "read-write") + routed("primary", "read-only"));
+    assertEquals(1, routed("replica", "read-only"));
+  }
+
+  @Test
+  void anotherUsersWrite_doesNotMoveReadsOffTheReplica() throws SQLException {
+    signIn("alice@test.local");
+    inTransaction(false, true);
+
+    signIn("bob@test.local");
+    assertSame(replicaConnection, inTransaction(true, true));
+  }
+
+  @Test
+  void rolledBackWrite_doesNotOpenTheWindow() throws SQLException {
+    signIn("alice@test.local");
+    inTransaction(false, false);
+
+    assertSame(replicaConnection, inTransaction(true, true));
+  }
+
+  @Test
+  void anonymousWrites_areNotTracked() throws SQLException {
+    SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken(
+        "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+    inTransaction(false, true);
+
+    assertSame(replicaConnection, inTransaction(true, true));
+  }
+}
@@ -2,6 +2,10 @@ package com.medical.bookingapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.medical.bookingapi.dto.AppointmentSlotDTO;
+import com.medical.bookingapi.dto.DoctorAvailabilityDTO;
+import com.medical.bookingapi.dto.SlotBulkResultDTO;
+import com.medical.bookingapi.dto.SlotPageDTO;
+import com.medical.bookingapi.dto.SlotTemplateDTO;
 import com.medical.bookingapi.service.AppointmentSlotService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,15 +16,25 @@ import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(
@@ -49,12 +63,77 @@ class AppointmentSlotControllerTest {
 
   @Test
   void getAvailableSlots_shouldReturn200() throws Exception {
-    when(appointmentSlotService.findByIsBookedFalse())
-        .thenReturn(List.of(new AppointmentSlotDTO()));
+    when(appointmentSlotService.findAvailable(null, null, null, null, null))
+        .thenReturn(new SlotPageDTO(List.of(new AppointmentSlotDTO()), null));
 
     mvc.perform(get("/api/appointmentSlots/available"))
         .andExpect(status().isOk())
-        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$[0]").exists())
+        .andExpect(header().doesNotExist("X-Next-Cursor"));
+  }
+
+  @Test
+  void getAvailableSlots_withFilters_passesThem_andReturnsNextCursorHeader() throws Exception {
+    LocalDateTime from = LocalDateTime.parse("2030-01-07T00:00:00");
+    when(appointmentSlotService.findAvailable(7L, from, null, "abc", 20))
+        .thenReturn(new SlotPageDTO(List.of(new AppointmentSlotDTO()), "next-token"));
+
+    mvc.perform(get("/api/appointmentSlots/available")
+            .param("doctorId", "7")
+            .param("from", "2030-01-07T00:00:00")
+            .param("cursor", "abc")
+            .param("size", "20"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Next-Cursor", "next-token"));
+  }
+
+  @Test
+  void getAvailableSlots_withBadCursor_shouldReturn400() throws Exception {
+    when(appointmentSlotService.findAvailable(null, null, null, "garbage", null))
+        .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+    mvc.perform(get("/api/appointmentSlots/available").param("cursor", "garbage"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error").value("Invalid cursor"));
+  }
+
+  @Test
+  void getEarliestAvailable_shouldReturn200_withFirstFreeDoctor() throws Exception {
+    LocalDateTime freeFrom = LocalDateTime.parse("2030-01-07T09:00:00");
+    when(appointmentSlotService.findEarliestAvailable("Cardiology", "Limassol", null))
+        .thenReturn(Optional.of(new DoctorAvailabilityDTO(7L, "Cardiology", "Limassol", freeFrom)));
+
+    mvc.perform(get("/api/appointmentSlots/earliest")
+            .param("speciality", "Cardiology")
+            .param("location", "Limassol"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.doctorId").value(7))
+        .andExpect(jsonPath("$.freeFrom").value("2030-01-07T09:00:00"));
+  }
+
+  @Test
+  void getEarliestAvailable_whenNothingFree_shouldReturn404() throws Exception {
+    when(appointmentSlotService.findEarliestAvailable(null, null, null)).thenReturn(Optional.empty());
+
+    mvc.perform(get("/api/appointmentSlots/earliest"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void getFreeBetween_passesWindowAndLimit() throws Exception {
+    LocalDateTime from = LocalDateTime.parse("2030-01-07T00:00:00");
+    LocalDateTime to = LocalDateTime.parse("2030-01-08T00:00:00");
+    when(appointmentSlotService.findFreeBetween("Cardiology", null, from, to, 5))
+        .thenReturn(List.of(new DoctorAvailabilityDTO(7L, "Cardiology", "Nicosia", from.plusHours(9))));
+
+    mvc.perform(get("/api/appointmentSlots/free")
+            .param("speciality", "Cardiology")
+            .param("from", "2030-01-07T00:00:00")
+            .param("to", "2030-01-08T00:00:00")
+            .param("limit", "5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].doctorId").value(7));
   }
 
   @Test
@@ -92,6 +171,36 @@ class AppointmentSlotControllerTest {
         .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void streamSlotsBetween_writesOneJsonObjectPerLine() throws Exception {
+    LocalDateTime start = LocalDateTime.parse("2030-01-01T00:00:00");
+    LocalDateTime end = LocalDateTime.parse("2030-04-01T00:00:00");
+    doAnswer(inv -> {
+      Consumer<AppointmentSlotDTO> sink = inv.getArgument(2);
+      sink.accept(new AppointmentSlotDTO(1L, 7L, start.plusHours(9), start.plusHours(10), false, null, null));
+      sink.accept(new AppointmentSlotDTO(2L, 7L, start.plusHours(10), start.plusHours(11), true, "Room 2", null));
+      return null;
+    }).when(appointmentSlotService).streamByStartTimeBetween(eq(start), eq(end), any(Consumer.class));
+
+    MvcResult pending = mvc.perform(get("/api/appointmentSlots/between/stream")
+            .param("start", "2030-01-01T00:00:00")
+            .param("end", "2030-04-01T00:00:00"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    String body = mvc.perform(asyncDispatch(pending))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+        .andReturn().getResponse().getContentAsString();
+
+    String[] lines = body.split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(1L, objectMapper.readValue(lines[0], AppointmentSlotDTO.class).getId());
+    assertEquals("Room 2", objectMapper.readValue(lines[1], AppointmentSlotDTO.class).getLocation());
+    assertTrue(body.endsWith("\n"));
+  }
+
   @Test
   void getDoctorFirstAvailableSorted_whenMissing_shouldReturn404() throws Exception {
     when(appointmentSlotService.findFirstByDoctorAndIsBookedFalseOrderByStartTimeAsc(5L))
@@ -106,6 +215,66 @@ class AppointmentSlotControllerTest {
     mvc.perform(delete("/api/appointmentSlots/{id}", 12))
         .andExpect(status().isNoContent());
 
-    verify(appointmentSlotService).deleteSlot(12L);
+    verify(appointmentSlotService).deleteSlot(12L, null);
+  }
+
+  @Test
+  void deleteSlot_passesTheStartTime_whenGiven() throws Exception {
+    mvc.perform(delete("/api/appointmentSlots/{id}", 12).param("startTime", "2030-01-07T09:00:00"))
+        .andExpect(status().isNoContent());
+
+    verify(appointmentSlotService).deleteSlot(12L, LocalDateTime.parse("2030-01-07T09:00:00"));
+  }
+
+  @Test
+  void createSlotsFromTemplate_shouldReturn200_withSummary() throws Exception {
+    when(appointmentSlotService.createSlotsFromTemplate(any(SlotTemplateDTO.class)))
+        .thenReturn(new SlotBulkResultDTO(7L, 120, 0,
+            LocalDateTime.parse("2030-01-07T09:00:00"), LocalDateTime.parse("2030-01-11T17:00:00")));
+
+    String body = """
+        {"doctorId":7,"days":["MONDAY","FRIDAY"],"dayStart":"09:00","dayEnd":"17:00",
+         "slotMinutes":30,"fromDate":"2030-01-07","toDate":"2030-01-11"}
+        """;
+
+    mvc.perform(post("/api/appointmentSlots/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(120))
+        .andExpect(jsonPath("$.doctorId").value(7));
+  }
+
+  @Test
+  void createSlotsFromTemplate_whenDaysMissing_shouldReturn400() throws Exception {
+    String body = """
+        {"doctorId":7,"dayStart":"09:00","dayEnd":"17:00",
+         "slotMinutes":30,"fromDate":"2030-01-07","toDate":"2030-01-11"}
+        """;
+
+    mvc.perform(post("/api/appointmentSlots/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.days").exists());
+
+    verify(appointmentSlotService, never()).createSlotsFromTemplate(any());
+  }
+
+  @Test
+  void createSlotsFromTemplate_whenOverlapping_shouldReturn409() throws Exception {
+    when(appointmentSlotService.createSlotsFromTemplate(any(SlotTemplateDTO.class)))
+        .thenThrow(new IllegalStateException("Overlapping slot for doctor at 2030-01-07T10:00"));
+
+    String body = """
+        {"doctorId":7,"days":["MONDAY"],"dayStart":"09:00","dayEnd":"17:00",
+         "slotMinutes":30,"fromDate":"2030-01-07","toDate":"2030-01-11"}
+        """;
+
+    mvc.perform(post("/api/appointmentSlots/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body))
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("$.error").value("Overlapping slot for doctor at 2030-01-07T10:00"));
   }
 }
@@ -0,0 +1,159 @@
+package com.medical.bookingapi.it;
+
+import com.medical.bookingapi.repository.AuthUserView;
+import com.medical.bookingapi.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The authentication lookup (UserRepository.findAuthViewByEmail) against the entity lookup it
+ * replaced (findByEmail on the JOINED User hierarchy): the SQL Hibernate sends for each, and the
+ * case-insensitive email index (V8) serving the former. Patients carry a few KB of allergies text.
+ * The latency comparison is opt-in: {@code mvn verify -Dbenchmarks=true -Dit.test=AuthLookupIT}.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class AuthLookupIT {
+
+  private static final int USERS = 5_000;
+
+  /** Records the SQL Hibernate prepares; registered by class name below. */
+  public static class SqlRecorder implements StatementInspector {
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      STATEMENTS.add(sql);
+      return sql;
+    }
+  }
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_auth_lookup")
+      .withUsername("test")
+      .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerProps(DynamicPropertyRegistry r) {
+    r.add("spring.datasource.url", postgres::getJdbcUrl);
+    r.add("spring.datasource.username", postgres::getUsername);
+    r.add("spring.datasource.password", postgres::getPassword);
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    r.add("spring.jpa.show-sql", () -> "false");
+    r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    r.add("spring.jpa.properties.hibernate.session_factory.statement_inspector", SqlRecorder.class::getName);
+    r.add("security.jwt.secret", () -> "test-secret-please-change");
+  }
+
+  @Autowired JdbcTemplate jdbc;
+  @Autowired UserRepository userRepository;
+
+  @BeforeEach
+  void seed() {
+    if (jdbc.queryForObject("select count(*) from users where email like 'lookup-%'", Integer.class) > 0) {
+      return;
+    }
+    jdbc.update("""
+        insert into users (role, first_name, last_name, email, password_hash)
+        select 'PATIENT', 'Lookup', 'User' || g, 'lookup-' || g || '@test.local', 'not-used'
+          from generate_series(1, ?) g
+        """, USERS);
+    jdbc.update("""
+        insert into patient (id, blood_type, allergies)
+        select id, 'O+', repeat('penicillin, latex, peanuts; ', 150)
+          from users where email like 'lookup-%'
+        """);
+    jdbc.execute("analyze users");
+    jdbc.execute("analyze patient");
+  }
+
+  private static String lastUsersQuery() {
+    for (int i = SqlRecorder.STATEMENTS.size() - 1; i >= 0; i--) {
+      String sql = SqlRecorder.STATEMENTS.get(i);
+      if (sql.contains("from users")) {
+        return sql;
+      }
+    }
+    return fail("no query on users was recorded");
+  }
+
+  @Test
+  void authLookup_readsUsersAlone_whereTheEntityLookupJoinsEverySubclassTable() {
+    SqlRecorder.STATEMENTS.clear();
+    assertTrue(userRepository.findByEmail("lookup-42@test.local").isPresent());
+    String entitySql = lastUsersQuery();
+
+    SqlRecorder.STATEMENTS.clear();
+    AuthUserView view = userRepository.findAuthViewByEmail("Lookup-42@Test.Local").orElseThrow();
+    String authSql = lastUsersQuery();
+
+    System.out.println("findByEmail:         " + entitySql);
+    System.out.println("findAuthViewByEmail: " + authSql);
+
+    assertTrue(entitySql.contains("join patient"), entitySql);
+    assertTrue(entitySql.contains("join doctor"), entitySql);
+    assertTrue(entitySql.contains("join admins"), entitySql);
+    assertTrue(entitySql.contains("allergies"), entitySql);
+    assertFalse(authSql.contains("join"), authSql);
+    assertFalse(authSql.contains("allergies"), authSql);
+    assertTrue(authSql.contains("lower("), authSql);
+    assertEquals("lookup-42@test.local", view.email());
+    assertEquals("PATIENT", view.role());
+  }
+
+  @Test
+  void caseInsensitiveLookup_usesTheLowerEmailIndex() {
+    String plan = String.join("\n", jdbc.queryForList(
+        "explain select id, email, role, password_hash from users where lower(email) = lower('LOOKUP-42@test.local')",
+        String.class));
+
+    assertTrue(plan.contains("idx_users_email_lower"), plan);
+  }
+
+  // ---------- benchmark ----------
+
+  @Test
+  @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+  void benchmark_authLookup_againstEntityLookup() {
+    double[] entity = measure(i -> userRepository.findByEmail("lookup-" + (1 + i % USERS) + "@test.local").orElseThrow());
+    double[] auth = measure(i -> userRepository.findAuthViewByEmail("lookup-" + (1 + i % USERS) + "@test.local").orElseThrow());
+
+    System.out.printf("findByEmail (entity, subclass joins): p50=%.3f ms p99=%.3f ms%n", entity[0], entity[1]);
+    System.out.printf("findAuthViewByEmail (users only):     p50=%.3f ms p99=%.3f ms%n", auth[0], auth[1]);
+  }
+
+  // {p50, p99} in ms over 2000 lookups of different users, after a warm-up
+  private static double[] measure(IntConsumer lookup) {
+    for (int i = 0; i < 500; i++) {
+      lookup.accept(i);
+    }
+    int runs = 2_000;
+    double[] ms = new double[runs];
+    for (int i = 0; i < runs; i++) {
+      long t0 = System.nanoTime();
+      lookup.accept(i * 7);
+      ms[i] = (System.nanoTime() - t0) / 1_000_000.0;
+    }
+    Arrays.sort(ms);
+    return new double[] { ms[runs / 2], ms[(int) (runs * 0.99)] };
+  }
+}
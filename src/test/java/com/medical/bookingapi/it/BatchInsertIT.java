@@ -0,0 +1,184 @@
+package com.medical.bookingapi.it;
+
+import com.medical.bookingapi.model.AppointmentSlot;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.repository.AppointmentRepository;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+import com.medical.bookingapi.repository.DoctorRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Insert batching against PostgreSQL: with pooled sequence ids Hibernate groups inserts into JDBC
+ * batches, which the driver rewrites into multi-row statements (reWriteBatchedInserts, set on the
+ * datasource url in application.yml and repeated below because the container url replaces it).
+ * The 100k-slot comparison of batched and row-by-row inserts is opt-in:
+ * {@code mvn verify -Dbenchmarks=true -Dit.test=BatchInsertIT}.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BatchInsertIT {
+
+  private static final int DOCTORS = 200;
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_batch")
+      .withUsername("test")
+      .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerProps(DynamicPropertyRegistry r) {
+    r.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "&reWriteBatchedInserts=true");
+    r.add("spring.datasource.username", postgres::getUsername);
+    r.add("spring.datasource.password", postgres::getPassword);
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    r.add("spring.jpa.show-sql", () -> "false");
+    r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    r.add("security.jwt.secret", () -> "test-secret-please-change");
+  }
+
+  @Autowired DoctorRepository doctorRepository;
+  @Autowired AppointmentSlotRepository slotRepository;
+  @Autowired AppointmentRepository appointmentRepository;
+  @Autowired EntityManagerFactory emf;
+  @Autowired PlatformTransactionManager transactionManager;
+  @PersistenceContext EntityManager entityManager;
+
+  Statistics stats;
+  List<Doctor> doctors;
+  LocalDateTime firstSlot;
+
+  @BeforeEach
+  void setUp() {
+    stats = emf.unwrap(SessionFactory.class).getStatistics();
+    appointmentRepository.deleteAllInBatch();
+    slotRepository.deleteAllInBatch();
+    firstSlot = LocalDateTime.now().plusDays(2).withHour(8).withMinute(0).withSecond(0).withNano(0);
+
+    doctors = doctorRepository.findByEmail("batch-doc-0@test.local").isPresent()
+        ? doctorsByEmail()
+        : doctorRepository.saveAll(newDoctors());
+  }
+
+  private List<Doctor> newDoctors() {
+    List<Doctor> created = new ArrayList<>();
+    for (int i = 0; i < DOCTORS; i++) {
+      Doctor d = new Doctor();
+      d.setFirstName("Batch");
+      d.setLastName("Doc");
+      d.setEmail("batch-doc-" + i + "@test.local");
+      d.setPassword_hash("not-used");
+      d.setRole("DOCTOR");
+      d.setLocation("Limassol");
+      d.setSpeciality("Orthopaedics");
+      created.add(d);
+    }
+    return created;
+  }
+
+  private List<Doctor> doctorsByEmail() {
+    List<Doctor> found = new ArrayList<>();
+    for (int i = 0; i < DOCTORS; i++) {
+      found.add(doctorRepository.findByEmail("batch-doc-" + i + "@test.local").orElseThrow());
+    }
+    return found;
+  }
+
+  // slot n of the run: doctors take turns, each doctor's slots follow one another without overlap
+  private AppointmentSlot slot(int n) {
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setDoctor(doctors.get(n % DOCTORS));
+    LocalDateTime start = firstSlot.plusMinutes(30L * (n / DOCTORS));
+    slot.setStartTime(start);
+    slot.setEndTime(start.plusMinutes(30));
+    slot.setBooked(false);
+    return slot;
+  }
+
+  // inserts `count` slots, `chunk` per transaction, with the given JDBC batch size
+  private void insertSlots(int count, int chunk, int batchSize) {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    for (int from = 0; from < count; from += chunk) {
+      int start = from;
+      int end = Math.min(count, from + chunk);
+      tx.executeWithoutResult(status -> {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        List<AppointmentSlot> slots = new ArrayList<>(end - start);
+        for (int n = start; n < end; n++) {
+          slots.add(slot(n));
+        }
+        slotRepository.saveAll(slots);
+      });
+    }
+  }
+
+  @Test
+  void slotInserts_areSentInBatches_withIdsFromPooledBlocks() {
+    stats.clear();
+    insertSlots(500, 500, 50);
+
+    assertEquals(500, stats.getEntityInsertCount());
+    // ten insert batches and one nextval per block of 50 ids; row by row it would be 500+ statements
+    assertTrue(stats.getPrepareStatementCount() <= 25, "statements: " + stats.getPrepareStatementCount());
+    assertEquals(500, slotRepository.count());
+  }
+
+  @Test
+  void doctorIds_comeFromTheUsersSequence_inBlocks() {
+    List<Long> ids = doctors.stream().map(Doctor::getId).sorted().toList();
+
+    assertEquals(DOCTORS, ids.stream().distinct().count());
+    // saved together, so they come from consecutive blocks with no gaps left by other writers
+    assertEquals(DOCTORS - 1, ids.get(DOCTORS - 1) - ids.get(0));
+  }
+
+  // ---------- benchmark ----------
+
+  @Test
+  @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+  void benchmark_insert100kSlots_batchedAndRowByRow() {
+    int count = 100_000;
+
+    double rowByRow = rowsPerSecond(count, 1);
+    double batched = rowsPerSecond(count, 50);
+
+    System.out.printf("100k slot inserts, one statement per row: %.0f rows/s%n", rowByRow);
+    System.out.printf("100k slot inserts, batches of 50:         %.0f rows/s%n", batched);
+  }
+
+  private double rowsPerSecond(int count, int batchSize) {
+    slotRepository.deleteAllInBatch();
+    insertSlots(2_000, 1_000, batchSize);
+    slotRepository.deleteAllInBatch();
+
+    long t0 = System.nanoTime();
+    insertSlots(count, 1_000, batchSize);
+    double seconds = (System.nanoTime() - t0) / 1e9;
+    assertEquals(count, slotRepository.count());
+    return count / seconds;
+  }
+}
@@ -0,0 +1,213 @@
+package com.medical.bookingapi.it;
+
+import com.medical.bookingapi.dto.AppointmentCreateDTO;
+import com.medical.bookingapi.model.*;
+import com.medical.bookingapi.repository.*;
+import com.medical.bookingapi.service.AppointmentService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers a single slot with simultaneous bookings and checks that the
+ * conditional claim in {@code bookAppointment} lets exactly one through.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BookingConcurrencyIT {
+
+  private static final int PATIENTS = 50;
+  private static final int ATTEMPTS = 400;
+  private static final int THREADS  = 64;
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_conc")
+      .withUsername("test")
+      .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerProps(DynamicPropertyRegistry r) {
+    r.add("spring.datasource.url", postgres::getJdbcUrl);
+    r.add("spring.datasource.username", postgres::getUsername);
+    r.add("spring.datasource.password", postgres::getPassword);
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    r.add("spring.jpa.show-sql", () -> "false");
+    r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    r.add("security.jwt.secret", () -> "test-secret-please-change");
+  }
+
+  @Autowired AppointmentService appointmentService;
+  @Autowired DoctorRepository doctorRepository;
+  @Autowired PatientRepository patientRepository;
+  @Autowired AppointmentSlotRepository slotRepository;
+  @Autowired AppointmentRepository appointmentRepository;
+
+  Doctor doctor;
+  List<Long> patientIds;
+
+  @BeforeEach
+  void setUp() {
+    appointmentRepository.deleteAllInBatch();
+    slotRepository.deleteAllInBatch();
+
+    doctor = doctorRepository.findByEmail("conc-doc@test.local").orElseGet(() -> {
+      Doctor d = new Doctor();
+      d.setFirstName("Conc");
+      d.setLastName("Doc");
+      d.setEmail("conc-doc@test.local");
+      d.setPassword_hash("not-used");
+      d.setRole("DOCTOR");
+      d.setLocation("Limassol");
+      d.setSpeciality("Cardiology");
+      return doctorRepository.save(d);
+    });
+
+    patientIds = new ArrayList<>();
+    for (int i = 0; i < PATIENTS; i++) {
+      String email = "conc-pat-" + i + "@test.local";
+      Patient p = patientRepository.findByEmail(email).orElseGet(() -> {
+        Patient np = new Patient();
+        np.setFirstName("Pat");
+        np.setLastName("Conc");
+        np.setEmail(email);
+        np.setPassword_hash("not-used");
+        np.setRole("PATIENT");
+        return patientRepository.save(np);
+      });
+      patientIds.add(p.getId());
+    }
+  }
+
+  private Long seedSlot(LocalDateTime start) {
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setDoctor(doctor);
+    slot.setStartTime(start);
+    slot.setEndTime(start.plusMinutes(30));
+    slot.setBooked(false);
+    return slotRepository.saveAndFlush(slot).getId();
+  }
+
+  private AppointmentCreateDTO request(Long slotId, Long patientId) {
+    AppointmentCreateDTO dto = new AppointmentCreateDTO();
+    dto.setDoctorId(doctor.getId());
+    dto.setPatientId(patientId);
+    dto.setSlotId(slotId);
+    dto.setNotes("concurrency");
+    return dto;
+  }
+
+  @Test
+  void simultaneous_bookings_for_one_slot_have_exactly_one_winner() throws Exception {
+    Long slotId = seedSlot(LocalDateTime.now().plusDays(1).withSecond(0).withNano(0));
+
+    AtomicInteger won = new AtomicInteger();
+    AtomicInteger conflicts = new AtomicInteger();
+    List<Throwable> unexpected = new CopyOnWriteArrayList<>();
+    CountDownLatch startGate = new CountDownLatch(1);
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < ATTEMPTS; i++) {
+        Long patientId = patientIds.get(i % PATIENTS);
+        futures.add(pool.submit(() -> {
+          startGate.await();
+          try {
+            appointmentService.bookAppointment(request(slotId, patientId));
+            won.incrementAndGet();
+          } catch (ResponseStatusException e) {
+            if (e.getStatusCode().value() == 409) conflicts.incrementAndGet();
+            else unexpected.add(e);
+          } catch (Throwable t) {
+            unexpected.add(t);
+          }
+          return null;
+        }));
+      }
+      startGate.countDown();
+      for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+    assertEquals(1, won.get(), "exactly one booking must win the slot");
+    assertEquals(ATTEMPTS - 1, conflicts.get(), "every other booking must get 409");
+
+    AppointmentSlot slot = slotRepository.findById(slotId).orElseThrow();
+    assertTrue(slot.isBooked());
+    assertTrue(appointmentRepository.findBySlot(slot).isPresent());
+    assertEquals(1, appointmentRepository.count());
+  }
+
+  /**
+   * Latency of the claim-based path versus the previous read-check-write sequence
+   * (three lookups, an exists query, the insert and a second slot save, no transaction),
+   * replayed here through the repositories. Run with {@code -Dbenchmarks=true}.
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+  void booking_latency_claim_vs_read_check_write() {
+    int rounds = 300;
+    LocalDateTime base = LocalDateTime.now().plusDays(2).withSecond(0).withNano(0);
+
+    long[] legacy = new long[rounds];
+    long[] claim = new long[rounds];
+    for (int i = 0; i < rounds; i++) {
+      Long legacySlot = seedSlot(base.plusMinutes(60L * i));
+      Long claimSlot = seedSlot(base.plusMinutes(60L * i + 30));
+      Long patientId = patientIds.get(i % PATIENTS);
+
+      long t0 = System.nanoTime();
+      legacyBook(legacySlot, patientId);
+      legacy[i] = System.nanoTime() - t0;
+
+      t0 = System.nanoTime();
+      appointmentService.bookAppointment(request(claimSlot, patientId));
+      claim[i] = System.nanoTime() - t0;
+    }
+
+    System.out.printf("booking latency (us)  read-check-write p50=%d p99=%d | claim p50=%d p99=%d%n",
+        percentile(legacy, 50), percentile(legacy, 99), percentile(claim, 50), percentile(claim, 99));
+  }
+
+  private void legacyBook(Long slotId, Long patientId) {
+    Doctor d = doctorRepository.findById(doctor.getId()).orElseThrow();
+    Patient p = patientRepository.findById(patientId).orElseThrow();
+    AppointmentSlot s = slotRepository.findById(slotId).orElseThrow();
+    if (s.isBooked() || appointmentRepository.existsBySlot(s)) throw new IllegalStateException("booked");
+    Appointment a = new Appointment();
+    a.setDoctor(d);
+    a.setPatient(p);
+    a.setSlot(s);
+    a.setStatus("PENDING");
+    appointmentRepository.save(a);
+    s.setBooked(true);
+    slotRepository.save(s);
+  }
+
+  private static long percentile(long[] nanos, int pct) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    int idx = Math.min(sorted.length - 1, (int) Math.ceil(pct / 100.0 * sorted.length) - 1);
+    return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(idx, 0)]);
+  }
+}
@@ -45,7 +45,7 @@ class BookingFlowIT {
     r.add("spring.datasource.url", postgres::getJdbcUrl);
     r.add("spring.datasource.username", postgres::getUsername);
     r.add("spring.datasource.password", postgres::getPassword);
-    r.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     r.add("spring.jpa.show-sql", () -> "false");
     r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
     r.add("security.jwt.secret", () -> "test-secret-please-change");
@@ -0,0 +1,166 @@
+package com.medical.bookingapi.it;
+
+import com.medical.bookingapi.model.AppointmentSlot;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+import com.medical.bookingapi.repository.DoctorRepository;
+import com.medical.bookingapi.service.AvailabilityIndex;
+import com.medical.bookingapi.service.DoctorService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Read-replica routing (ReadReplicaConfig) with two independent PostgreSQL instances standing in for
+ * primary and replica. Nothing replicates between them, so a row written through the application is
+ * visible only to reads routed to the primary: that is how each test tells where a read went.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ReadReplicaRoutingIT {
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_primary")
+      .withUsername("test")
+      .withPassword("test");
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_replica")
+      .withUsername("test")
+      .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerProps(DynamicPropertyRegistry r) {
+    r.add("spring.datasource.url", primary::getJdbcUrl);
+    r.add("spring.datasource.username", primary::getUsername);
+    r.add("spring.datasource.password", primary::getPassword);
+    r.add("booking.datasource.replica.url", replica::getJdbcUrl);
+    r.add("booking.datasource.read-your-writes-window", () -> "1s");
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    r.add("spring.jpa.show-sql", () -> "false");
+    r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    r.add("security.jwt.secret", () -> "test-secret-please-change");
+  }
+
+  // Flyway runs against the primary only; a real replica would receive the schema by replication
+  @BeforeAll
+  static void migrateReplica() {
+    Flyway.configure()
+        .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+        .locations("classpath:db/migration")
+        .load()
+        .migrate();
+  }
+
+  @Autowired DoctorRepository doctorRepository;
+  @Autowired AppointmentSlotRepository slotRepository;
+  @Autowired DoctorService doctorService;
+  @Autowired AvailabilityIndex availabilityIndex;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired MeterRegistry meterRegistry;
+
+  @AfterEach
+  void signOut() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static void signIn(String user) {
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(user, null, AuthorityUtils.createAuthorityList("ROLE_DOCTOR")));
+  }
+
+  private String saveDoctor() {
+    Doctor d = new Doctor();
+    d.setFirstName("Routed");
+    d.setLastName("Doc");
+    d.setEmail("routed-" + UUID.randomUUID() + "@test.local");
+    d.setPassword_hash("not-used");
+    d.setRole("DOCTOR");
+    d.setLocation("Nicosia");
+    d.setSpeciality("Neurology");
+    return doctorRepository.save(d).getEmail();
+  }
+
+  // findByEmail is a read-only repository transaction; run inside a read-write one when asked
+  private Optional<Doctor> find(String email, boolean readOnly) {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    tx.setReadOnly(readOnly);
+    return tx.execute(status -> doctorRepository.findByEmail(email));
+  }
+
+  @Test
+  void readOnlyTransactions_readTheReplica_readWriteTransactionsThePrimary() {
+    String email = saveDoctor();
+
+    assertTrue(find(email, true).isEmpty());
+    assertTrue(find(email, false).isPresent());
+  }
+
+  @Test
+  void aUsersOwnWrite_isReadBackFromThePrimary_forTheWindow() throws InterruptedException {
+    signIn("writer@test.local");
+    String email = saveDoctor();
+    assertTrue(find(email, true).isPresent());
+
+    signIn("someone-else@test.local");
+    assertTrue(find(email, true).isEmpty());
+
+    Thread.sleep(1_500);
+    signIn("writer@test.local");
+    assertTrue(find(email, true).isEmpty());
+  }
+
+  // a cache filled from a lagging replica would keep the stale result until it expires
+  @Test
+  void readsThatFillACache_stayOnThePrimary() {
+    String email = saveDoctor();
+    Long id = find(email, false).orElseThrow().getId();
+
+    assertEquals(email, doctorService.findById(id).getEmail());
+    assertTrue(doctorService.findBySpeciality("Neurology").stream().anyMatch(d -> d.getId().equals(id)));
+
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setDoctor(doctorRepository.getReferenceById(id));
+    slot.setStartTime(LocalDate.now().plusDays(2).atTime(10, 0));
+    slot.setEndTime(slot.getStartTime().plusMinutes(30));
+    slotRepository.save(slot);
+    availabilityIndex.warmUp();
+    assertTrue(availabilityIndex.search("Neurology", "Nicosia", slot.getStartTime(), slot.getEndTime(), 100)
+        .stream().anyMatch(a -> a.getDoctorId().equals(id)));
+  }
+
+  @Test
+  void eachPool_hasItsOwnMeters() {
+    find("nobody@test.local", true);
+    find("nobody@test.local", false);
+
+    assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "primary").gauge());
+    assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "replica").gauge());
+    assertTrue(meterRegistry.get("booking.datasource.routed")
+        .tag("pool", "replica").tag("transaction", "read-only").counter().count() >= 1);
+  }
+}
@@ -0,0 +1,161 @@
+package com.medical.bookingapi.it;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Flyway migrations the way production sees them: against an empty database, and
+ * against a schema that Hibernate's ddl-auto=update created before migrations existed.
+ */
+@Testcontainers
+class SchemaMigrationIT {
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_migrations")
+      .withUsername("test")
+      .withPassword("test");
+
+  private static Flyway flyway(String schema) {
+    return Flyway.configure()
+        .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+        .schemas(schema)
+        .locations("classpath:db/migration")
+        .baselineOnMigrate(true)
+        .baselineVersion("1")
+        .load();
+  }
+
+  private static Connection connect() throws SQLException {
+    return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+  }
+
+  private static List<String> indexes(Statement st, String schema) throws SQLException {
+    List<String> names = new ArrayList<>();
+    try (ResultSet rs = st.executeQuery(
+        "select indexname from pg_indexes where schemaname = '" + schema + "' and indexname like 'idx_%' order by 1")) {
+      while (rs.next()) names.add(rs.getString(1));
+    }
+    return names;
+  }
+
+  @Test
+  void emptyDatabase_getsFullSchemaAndIndexes() throws Exception {
+    MigrateResult result = flyway("fresh").migrate();
+
+    assertEquals("11", result.targetSchemaVersion);
+    try (Connection c = connect(); Statement st = c.createStatement()) {
+      assertEquals(List.of(
+          "idx_appointment_doctor_status", "idx_appointment_patient", "idx_appointment_status",
+          "idx_refresh_token_family", "idx_refresh_token_user", "idx_revoked_token_revoked_at",
+          "idx_slot_doctor_start", "idx_slot_free_doctor_start", "idx_slot_free_start_id", "idx_slot_start",
+          "idx_users_email_lower"),
+          indexes(st, "fresh"));
+      try (ResultSet rs = st.executeQuery(
+          "select indexdef from pg_indexes where schemaname = 'fresh' and indexname = 'idx_slot_free_doctor_start'")) {
+        assertTrue(rs.next());
+        assertTrue(rs.getString(1).contains("WHERE (is_booked = false)"));
+      }
+    }
+  }
+
+  @Test
+  void legacyHibernateSchema_isBaselined_andSlotSequenceMovedPastExistingIds() throws Exception {
+    try (Connection c = connect(); Statement st = c.createStatement()) {
+      st.execute("create schema legacy");
+      st.execute("set search_path to legacy");
+      st.execute("create table users (id bigint primary key, email varchar(255) not null unique)");
+      st.execute("create table doctor (id bigint primary key)");
+      st.execute("insert into doctor (id) values (1)");
+      // the slot table as it looked while ids still came from an IDENTITY column
+      st.execute("""
+          create table appointment_slot (
+              id bigint generated by default as identity primary key,
+              doctor_id bigint not null, start_time timestamp(6) not null, end_time timestamp(6) not null,
+              is_booked boolean not null, notes text, location varchar(255))
+          """);
+      st.execute("""
+          create table appointment (
+              id bigint generated by default as identity primary key,
+              patient_id bigint not null, doctor_id bigint not null, slot_id bigint not null unique,
+              status varchar(255) not null, notes text, created_at timestamp(6))
+          """);
+      st.execute("""
+          insert into appointment_slot (id, doctor_id, start_time, end_time, is_booked)
+          values (100000, 1, now() + interval '1 day', now() + interval '1 day 30 minutes', false)
+          """);
+      st.execute("insert into users (id, email) values (5000, 'legacy@test.local')");
+      st.execute("""
+          insert into appointment (id, patient_id, doctor_id, slot_id, status)
+          values (7000, 5000, 1, 100000, 'PENDING')
+          """);
+    }
+
+    MigrateResult result = flyway("legacy").migrate();
+
+    assertEquals("11", result.targetSchemaVersion);
+    try (Connection c = connect(); Statement st = c.createStatement()) {
+      // the pooled optimizer uses (value - 50, value]: the whole first block must clear the legacy id
+      try (ResultSet rs = st.executeQuery("select nextval('legacy.appointment_slot_seq')")) {
+        assertTrue(rs.next());
+        assertTrue(rs.getLong(1) - 49 > 100000);
+      }
+      try (ResultSet rs = st.executeQuery("""
+          select is_identity from information_schema.columns
+           where table_schema = 'legacy' and table_name = 'appointment_slot' and column_name = 'id'
+          """)) {
+        assertTrue(rs.next());
+        assertEquals("NO", rs.getString(1));
+      }
+      // V11: the appointment carries its slot's start time, covered by the restored foreign key
+      try (ResultSet rs = st.executeQuery("""
+          select a.slot_start_time = s.start_time
+            from legacy.appointment a join legacy.appointment_slot s on s.id = a.slot_id
+           where a.id = 7000
+          """)) {
+        assertTrue(rs.next());
+        assertTrue(rs.getBoolean(1));
+      }
+      // V9: the same for users and appointment, which keep a column default on their sequence
+      try (ResultSet rs = st.executeQuery("select nextval('legacy.users_seq'), nextval('legacy.appointment_seq')")) {
+        assertTrue(rs.next());
+        assertTrue(rs.getLong(1) - 49 > 5000);
+        assertTrue(rs.getLong(2) - 49 > 7000);
+      }
+      try (ResultSet rs = st.executeQuery("""
+          select table_name, is_identity, column_default from information_schema.columns
+           where table_schema = 'legacy' and table_name in ('users', 'appointment', 'refresh_token')
+             and column_name = 'id'
+           order by table_name
+          """)) {
+        for (String table : List.of("appointment", "refresh_token", "users")) {
+          assertTrue(rs.next());
+          assertEquals(table, rs.getString(1));
+          assertEquals("NO", rs.getString(2));
+          assertTrue(rs.getString(3).startsWith("nextval('" + table + "_seq'"), rs.getString(3));
+        }
+      }
+      assertEquals(11, indexes(st, "legacy").size());
+      // the legacy row made it into the partitioned table
+      try (ResultSet rs = st.executeQuery("select count(*) from legacy.appointment_slot where id = 100000")) {
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+      }
+    }
+  }
+}
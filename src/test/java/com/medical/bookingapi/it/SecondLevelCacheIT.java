@@ -0,0 +1,250 @@
+package com.medical.bookingapi.it;
+
+import com.medical.bookingapi.mapper.AppointmentSlotMapper;
+import com.medical.bookingapi.model.AppointmentSlot;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.model.Patient;
+import com.medical.bookingapi.model.User;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+import com.medical.bookingapi.repository.DoctorRepository;
+import com.medical.bookingapi.repository.PatientRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The Hibernate second-level cache against a real database: doctors by id and doctors by
+ * speciality are answered without SQL once cached, Hibernate's own writes invalidate them, the
+ * native slot claim leaves them alone, and region statistics reach the meter registry.
+ * The slot-listing throughput comparison (cache used vs bypassed) is opt-in:
+ * {@code mvn verify -Dbenchmarks=true -Dit.test=SecondLevelCacheIT}.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SecondLevelCacheIT {
+
+  private static final int DOCTORS = 50;
+  private static final int SLOTS_PER_DOCTOR = 10;
+  private static final String SPECIALITY = "Dermatology";
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_l2cache")
+      .withUsername("test")
+      .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerProps(DynamicPropertyRegistry r) {
+    r.add("spring.datasource.url", postgres::getJdbcUrl);
+    r.add("spring.datasource.username", postgres::getUsername);
+    r.add("spring.datasource.password", postgres::getPassword);
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    r.add("spring.jpa.show-sql", () -> "false");
+    r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    r.add("security.jwt.secret", () -> "test-secret-please-change");
+  }
+
+  @Autowired DoctorRepository doctorRepository;
+  @Autowired PatientRepository patientRepository;
+  @Autowired AppointmentSlotRepository slotRepository;
+  @Autowired AppointmentSlotMapper slotMapper;
+  @Autowired EntityManagerFactory emf;
+  @Autowired MeterRegistry meterRegistry;
+  @Autowired PlatformTransactionManager transactionManager;
+  @PersistenceContext EntityManager entityManager;
+
+  Statistics stats;
+  List<Long> doctorIds;
+  Long patientId;
+
+  @BeforeEach
+  void setUp() {
+    stats = emf.unwrap(SessionFactory.class).getStatistics();
+    LocalDateTime firstSlot = LocalDateTime.now().plusDays(2).withHour(8).withMinute(0).withSecond(0).withNano(0);
+
+    doctorIds = new ArrayList<>();
+    for (int i = 0; i < DOCTORS; i++) {
+      String email = "cache-doc-" + i + "@test.local";
+      Doctor doctor = doctorRepository.findByEmail(email).orElseGet(() -> {
+        Doctor d = new Doctor();
+        d.setFirstName("Cache");
+        d.setLastName("Doc");
+        d.setEmail(email);
+        d.setPassword_hash("not-used");
+        d.setRole("DOCTOR");
+        d.setLocation("Paphos");
+        d.setSpeciality(SPECIALITY);
+        Doctor saved = doctorRepository.save(d);
+        List<AppointmentSlot> slots = new ArrayList<>();
+        for (int s = 0; s < SLOTS_PER_DOCTOR; s++) {
+          slots.add(slot(saved, firstSlot.plusMinutes(30L * s)));
+        }
+        slotRepository.saveAll(slots);
+        return saved;
+      });
+      doctorIds.add(doctor.getId());
+    }
+
+    patientId = patientRepository.findByEmail("cache-pat@test.local").orElseGet(() -> {
+      Patient p = new Patient();
+      p.setFirstName("Cache");
+      p.setLastName("Pat");
+      p.setEmail("cache-pat@test.local");
+      p.setPassword_hash("not-used");
+      p.setRole("PATIENT");
+      return patientRepository.save(p);
+    }).getId();
+
+    emf.getCache().evictAll();
+    stats.clear();
+  }
+
+  private static AppointmentSlot slot(Doctor doctor, LocalDateTime start) {
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setDoctor(doctor);
+    slot.setStartTime(start);
+    slot.setEndTime(start.plusMinutes(30));
+    slot.setBooked(false);
+    return slot;
+  }
+
+  @Test
+  void doctorById_isServedFromTheCache_afterTheFirstLoad() {
+    Long id = doctorIds.get(0);
+
+    doctorRepository.findById(id).orElseThrow();
+    long statements = stats.getPrepareStatementCount();
+    Doctor cached = doctorRepository.findById(id).orElseThrow();
+
+    assertEquals(1, statements);
+    assertEquals(statements, stats.getPrepareStatementCount());
+    assertEquals(SPECIALITY, cached.getSpeciality());
+    CacheRegionStatistics region = stats.getDomainDataRegionStatistics(User.CACHE_REGION);
+    assertEquals(1, region.getMissCount());
+    assertEquals(1, region.getHitCount());
+  }
+
+  @Test
+  void patients_stayOutOfTheCache() {
+    doctorRepository.findById(doctorIds.get(0)).orElseThrow();
+    patientRepository.findById(patientId).orElseThrow();
+
+    assertTrue(emf.getCache().contains(Doctor.class, doctorIds.get(0)));
+    assertFalse(emf.getCache().contains(Patient.class, patientId));
+  }
+
+  @Test
+  void findBySpeciality_isAnsweredFromTheQueryCache_untilADoctorIsSaved() {
+    assertEquals(DOCTORS, doctorRepository.findBySpeciality(SPECIALITY).size());
+    long statements = stats.getPrepareStatementCount();
+
+    // ids from the query cache, the doctors from the entity region
+    assertEquals(DOCTORS, doctorRepository.findBySpeciality(SPECIALITY).size());
+    assertEquals(statements, stats.getPrepareStatementCount());
+    assertEquals(1, stats.getQueryCacheHitCount());
+
+    Doctor moved = doctorRepository.findById(doctorIds.get(1)).orElseThrow();
+    moved.setLocation("Larnaca");
+    doctorRepository.save(moved);
+    long afterSave = stats.getPrepareStatementCount();
+
+    List<Doctor> reloaded = doctorRepository.findBySpeciality(SPECIALITY);
+    assertEquals(1, stats.getQueryCacheHitCount());
+    assertTrue(stats.getPrepareStatementCount() > afterSave);
+    assertEquals("Larnaca", reloaded.stream()
+        .filter(d -> d.getId().equals(moved.getId())).findFirst().orElseThrow().getLocation());
+
+    moved.setLocation("Paphos");
+    doctorRepository.save(moved);
+  }
+
+  @Test
+  void claimingASlot_leavesCachedDoctorsInPlace() {
+    Long doctorId = doctorIds.get(2);
+    Doctor doctor = doctorRepository.findById(doctorId).orElseThrow();
+    LocalDateTime start = LocalDateTime.now().plusDays(3).withNano(0);
+    Long slotId = slotRepository.saveAndFlush(slot(doctor, start)).getId();
+    assertTrue(emf.getCache().contains(Doctor.class, doctorId));
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+        assertEquals(1, slotRepository.claimSlot(slotId, start, doctorId, patientId)));
+
+    // without the declared query space the native UPDATE would have cleared every region
+    assertTrue(emf.getCache().contains(Doctor.class, doctorId));
+  }
+
+  @Test
+  void regionStatistics_areExposedAsMeters() {
+    doctorRepository.findById(doctorIds.get(0)).orElseThrow();
+    doctorRepository.findById(doctorIds.get(0)).orElseThrow();
+
+    FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+        .tag("region", User.CACHE_REGION).tag("result", "hit").functionCounter();
+    assertNotNull(hits);
+    assertTrue(hits.count() >= 1);
+  }
+
+  // ---------- benchmark ----------
+
+  @Test
+  @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+  void benchmark_slotListing_withAndWithoutTheCache() {
+    double cold = throughput(CacheRetrieveMode.BYPASS);
+    double warm = throughput(CacheRetrieveMode.USE);
+
+    System.out.printf("slot listing, doctor from the database: %.0f ops/s%n", cold);
+    System.out.printf("slot listing, doctor from the cache:    %.0f ops/s%n", warm);
+  }
+
+  // listings per second over 5000 calls spread across the doctors, after a warm-up
+  private double throughput(CacheRetrieveMode mode) {
+    for (int i = 0; i < 500; i++) {
+      listFreeSlots(i, mode);
+    }
+    int runs = 5_000;
+    long t0 = System.nanoTime();
+    for (int i = 0; i < runs; i++) {
+      listFreeSlots(i, mode);
+    }
+    return runs / ((System.nanoTime() - t0) / 1e9);
+  }
+
+  // what AppointmentSlotServiceImpl.findByDoctorAndIsBookedFalse does below its Spring cache
+  private int listFreeSlots(int i, CacheRetrieveMode mode) {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    tx.setReadOnly(true);
+    return tx.execute(status -> {
+      entityManager.setProperty("jakarta.persistence.cache.retrieveMode", mode);
+      Doctor doctor = doctorRepository.findById(doctorIds.get(i % DOCTORS)).orElseThrow();
+      return slotRepository.findByDoctorAndBookedFalseAndStartTimeAfter(doctor, LocalDateTime.now()).stream()
+          .map(slotMapper::toDto)
+          .toList()
+          .size();
+    });
+  }
+}
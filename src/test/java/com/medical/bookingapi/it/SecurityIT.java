@@ -2,10 +2,14 @@ package com.medical.bookingapi.it;
 
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -15,10 +19,14 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import com.medical.bookingapi.model.*;
 import com.medical.bookingapi.repository.*;
+import com.medical.bookingapi.service.LastLoginRecorder;
 
 import java.time.LocalDateTime;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @Testcontainers
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -49,11 +57,16 @@ class SecurityIT {
     r.add("spring.datasource.url", postgres::getJdbcUrl);
     r.add("spring.datasource.username", postgres::getUsername);
     r.add("spring.datasource.password", postgres::getPassword);
-    r.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     r.add("spring.jpa.show-sql", () -> "false");
     r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
     r.add("security.jwt.secret", () -> "test-secret-please-change");
     r.add("security.jwt.expirationMinutes", () -> "120");
+    r.add("booking.users.last-login.flush-interval-ms", () -> "3600000"); // flushed explicitly by the test
+    // replaces the configured routes: logins are not limited here, the ping allows two calls per user
+    r.add("booking.rate-limit.routes[0].pattern", () -> "/api/admins/ping");
+    r.add("booking.rate-limit.routes[0].capacity", () -> "2");
+    r.add("booking.rate-limit.routes[0].period", () -> "1h");
   }
 
   @LocalServerPort int port;
@@ -64,6 +77,9 @@ class SecurityIT {
   @Autowired AppointmentSlotRepository slotRepository;
   @Autowired AppointmentRepository appointmentRepository;
   @Autowired PasswordEncoder passwordEncoder;
+  @Autowired LastLoginRecorder lastLoginRecorder;
+  @Autowired JdbcTemplate jdbc;
+  @Autowired MeterRegistry meterRegistry;
 
   Long doctorId;
   Long patientAId;
@@ -264,4 +280,189 @@ class SecurityIT {
         // .statusCode(200).body("$", empty());
         .statusCode(403);
   }
+
+  @Test
+  void patient_can_read_own_appointments_via_token_claims() {
+    String tokenA = login("patA@test.local", "PatPass123!");
+
+    // #patientId == principal.patientId is resolved from the token, not from a user lookup
+    RestAssured.given()
+        .header("Authorization", "Bearer " + tokenA)
+        .when()
+        .get("/api/appointments?patientId={pid}", patientAId)
+        .then()
+        .statusCode(200);
+  }
+
+  @Test
+  void only_the_appointments_parties_can_see_or_delete_it() {
+    String tokenA = login("patA@test.local", "PatPass123!");
+    String tokenB = login("patB@test.local", "PatPass123!");
+    long appointmentId = bookAsPatient(tokenA, doctorId, patientAId, slotIdForDoctor);
+
+    RestAssured.given()
+        .header("Authorization", "Bearer " + tokenB)
+        .when()
+        .get("/api/appointments/by-slot/{slotId}", slotIdForDoctor)
+        .then()
+        .statusCode(403);
+    RestAssured.given()
+        .header("Authorization", "Bearer " + tokenB)
+        .when()
+        .delete("/api/appointments/{id}", appointmentId)
+        .then()
+        .statusCode(403);
+
+    RestAssured.given()
+        .header("Authorization", "Bearer " + tokenA)
+        .when()
+        .get("/api/appointments/by-slot/{slotId}", slotIdForDoctor)
+        .then()
+        .statusCode(200)
+        .body("id", equalTo((int) appointmentId));
+    RestAssured.given()
+        .header("Authorization", "Bearer " + tokenA)
+        .when()
+        .delete("/api/appointments/{id}", appointmentId)
+        .then()
+        .statusCode(204);
+  }
+
+  @Test
+  void login_recordsLastLogin_onlyWhenTheBufferIsFlushed() {
+    lastLoginRecorder.flush();
+    jdbc.update("update users set last_login = null where email = 'patA@test.local'");
+
+    login("patA@test.local", "PatPass123!");
+    assertNull(userRepository.findByEmail("patA@test.local").orElseThrow().getLastLogin());
+
+    lastLoginRecorder.flush();
+    assertNotNull(userRepository.findByEmail("patA@test.local").orElseThrow().getLastLogin());
+  }
+
+  @Test
+  void logout_revokesTheToken_butNotLaterLogins() {
+    String token = login("patA@test.local", "PatPass123!");
+
+    RestAssured.given()
+        .header("Authorization", "Bearer " + token)
+        .when()
+        .post("/api/auth/logout")
+        .then()
+        .statusCode(204);
+
+    RestAssured.given()
+        .header("Authorization", "Bearer " + token)
+        .when()
+        .get("/api/appointments?patientId={pid}", patientAId)
+        .then()
+        .statusCode(401)
+        .body("error", equalTo("token_revoked"));
+
+    RestAssured.given()
+        .header("Authorization", "Bearer " + login("patA@test.local", "PatPass123!"))
+        .when()
+        .get("/api/appointments?patientId={pid}", patientAId)
+        .then()
+        .statusCode(200);
+  }
+
+  @Test
+  void deletingAPatient_revokesTheirOutstandingTokens() {
+    String tokenB = login("patB@test.local", "PatPass123!");
+    String adminToken = login("admin@test.local", "AdminPass123!");
+
+    RestAssured.given()
+        .header("Authorization", "Bearer " + adminToken)
+        .when()
+        .delete("/api/admins/patients/{id}", patientBId)
+        .then()
+        .statusCode(anyOf(is(200), is(204)));
+
+    // the token still carries valid claims; only the revocation list stops it
+    RestAssured.given()
+        .header("Authorization", "Bearer " + tokenB)
+        .when()
+        .get("/api/appointments?patientId={pid}", patientBId)
+        .then()
+        .statusCode(401)
+        .body("error", equalTo("token_revoked"));
+  }
+
+  private ExtractableResponse<Response> refresh(String refreshToken, int expectedStatus) {
+    return RestAssured.given()
+        .contentType(ContentType.JSON)
+        .body("{\"refreshToken\":\"" + refreshToken + "\"}")
+        .when()
+        .post("/api/auth/refresh")
+        .then()
+        .statusCode(expectedStatus)
+        .extract();
+  }
+
+  private long passwordChecks() {
+    return meterRegistry.get("booking.auth.hash.duration").tag("operation", "matches").timer().count();
+  }
+
+  @Test
+  void refresh_rotatesTokensWithoutAPasswordCheck_andReuseEndsTheSession() {
+    String firstRefresh = RestAssured.given()
+        .contentType(ContentType.JSON)
+        .body("{\"email\":\"patA@test.local\",\"password\":\"PatPass123!\"}")
+        .when()
+        .post("/api/auth/login")
+        .then()
+        .statusCode(200)
+        .extract()
+        .path("refreshToken");
+    long checksAfterLogin = passwordChecks();
+
+    ExtractableResponse<Response> rotated = refresh(firstRefresh, 200);
+    String secondRefresh = rotated.path("refreshToken");
+    RestAssured.given()
+        .header("Authorization", "Bearer " + rotated.path("token"))
+        .when()
+        .get("/api/appointments?patientId={pid}", patientAId)
+        .then()
+        .statusCode(200);
+    assertEquals(checksAfterLogin, passwordChecks());
+
+    // replaying the rotated-out token revokes the family, so the legitimate successor dies too
+    refresh(firstRefresh, 401);
+    refresh(secondRefresh, 401);
+  }
+
+  @Test
+  void rateLimit_isPerUser_andAnswers429WithRetryAfter() {
+    // patient B is not used against this route anywhere else; the limit applies before authorization
+    String tokenB = login("patB@test.local", "PatPass123!");
+
+    for (int remaining = 1; remaining >= 0; remaining--) {
+      RestAssured.given()
+          .header("Authorization", "Bearer " + tokenB)
+          .when()
+          .get("/api/admins/ping")
+          .then()
+          .statusCode(403)
+          .header("RateLimit-Limit", "2")
+          .header("RateLimit-Remaining", String.valueOf(remaining));
+    }
+
+    RestAssured.given()
+        .header("Authorization", "Bearer " + tokenB)
+        .when()
+        .get("/api/admins/ping")
+        .then()
+        .statusCode(429)
+        .header("Retry-After", notNullValue())
+        .body("error", equalTo("rate_limited"));
+
+    // another client (here: an anonymous one) has its own bucket
+    RestAssured.given()
+        .when()
+        .get("/api/admins/ping")
+        .then()
+        .statusCode(anyOf(is(401), is(403)))
+        .header("RateLimit-Remaining", "1");
+  }
 }
@@ -0,0 +1,187 @@
+package com.medical.bookingapi.it;
+
+import com.medical.bookingapi.dto.AppointmentSlotDTO;
+import com.medical.bookingapi.dto.SlotBulkResultDTO;
+import com.medical.bookingapi.dto.SlotCreateDTO;
+import com.medical.bookingapi.dto.SlotTemplateDTO;
+import com.medical.bookingapi.model.AppointmentSlot;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.repository.AppointmentRepository;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+import com.medical.bookingapi.repository.DoctorRepository;
+import com.medical.bookingapi.service.AppointmentSlotService;
+import com.medical.bookingapi.service.AvailabilityIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk template generation against PostgreSQL: sequence ids must clear rows written
+ * under the old IDENTITY column, and overlaps must reject the whole template.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SlotBulkIT {
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_bulk")
+      .withUsername("test")
+      .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerProps(DynamicPropertyRegistry r) {
+    r.add("spring.datasource.url", postgres::getJdbcUrl);
+    r.add("spring.datasource.username", postgres::getUsername);
+    r.add("spring.datasource.password", postgres::getPassword);
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    r.add("spring.jpa.show-sql", () -> "false");
+    r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    r.add("security.jwt.secret", () -> "test-secret-please-change");
+  }
+
+  @Autowired AppointmentSlotService slotService;
+  @Autowired DoctorRepository doctorRepository;
+  @Autowired AppointmentSlotRepository slotRepository;
+  @Autowired AppointmentRepository appointmentRepository;
+  @Autowired AvailabilityIndex availabilityIndex;
+
+  Doctor doctor;
+  LocalDate monday;
+
+  @BeforeEach
+  void setUp() {
+    appointmentRepository.deleteAllInBatch();
+    slotRepository.deleteAllInBatch();
+    doctor = doctorRepository.findByEmail("bulk-doc@test.local").orElseGet(() -> {
+      Doctor d = new Doctor();
+      d.setFirstName("Bulk");
+      d.setLastName("Doc");
+      d.setEmail("bulk-doc@test.local");
+      d.setPassword_hash("not-used");
+      d.setRole("DOCTOR");
+      d.setLocation("Nicosia");
+      d.setSpeciality("Dermatology");
+      return doctorRepository.save(d);
+    });
+    monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+  }
+
+  private SlotTemplateDTO template(LocalDate from, LocalDate to) {
+    SlotTemplateDTO t = new SlotTemplateDTO();
+    t.setDoctorId(doctor.getId());
+    t.setDays(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+    t.setDayStart(LocalTime.of(8, 0));
+    t.setDayEnd(LocalTime.of(18, 0));
+    t.setSlotMinutes(15);
+    t.setFromDate(from);
+    t.setToDate(to);
+    return t;
+  }
+
+  @Test
+  void bulkTemplate_persistsAllSlots_withDistinctSequenceIds() {
+    SlotBulkResultDTO result = slotService.createSlotsFromTemplate(template(monday, monday.plusWeeks(4).minusDays(1)));
+
+    assertEquals(4 * 5 * 40, result.getCreated());
+    List<AppointmentSlot> slots = slotRepository.findByDoctor(doctor);
+    assertEquals(result.getCreated(), slots.size());
+    assertEquals(slots.size(), slots.stream().map(AppointmentSlot::getId).distinct().count());
+  }
+
+  @Test
+  void bulkTemplate_overlappingExistingSlot_persistsNothing() {
+    slotService.createSlotsFromTemplate(template(monday, monday));
+
+    SlotTemplateDTO clash = template(monday, monday.plusDays(4));
+    assertThrows(IllegalStateException.class, () -> slotService.createSlotsFromTemplate(clash));
+
+    assertEquals(40, slotRepository.findByDoctor(doctor).size());
+  }
+
+  @Test
+  void createSlot_overlappingExistingSlot_isRejectedByExclusionConstraint() {
+    slotService.createSlotsFromTemplate(template(monday, monday));
+
+    SlotCreateDTO clash = new SlotCreateDTO();
+    clash.setDoctorId(doctor.getId());
+    clash.setStartTime(monday.atTime(8, 10));
+    clash.setEndTime(monday.atTime(8, 40));
+    var ex = assertThrows(IllegalStateException.class, () -> slotService.createSlot(clash));
+    assertEquals("Overlapping slot for doctor", ex.getMessage());
+
+    // adjacent to the last generated slot: allowed
+    SlotCreateDTO adjacent = new SlotCreateDTO();
+    adjacent.setDoctorId(doctor.getId());
+    adjacent.setStartTime(monday.atTime(18, 0));
+    adjacent.setEndTime(monday.atTime(18, 30));
+    slotService.createSlot(adjacent);
+
+    assertEquals(41, slotRepository.findByDoctor(doctor).size());
+  }
+
+  @Test
+  void deleteSlot_removesAFreeSlot_butKeepsABookedOne() {
+    slotService.createSlotsFromTemplate(template(monday, monday));
+    List<AppointmentSlot> slots = slotRepository.findByDoctor(doctor);
+    AppointmentSlot free = slots.get(0);
+    AppointmentSlot booked = slots.get(1);
+    booked.setBooked(true);
+    slotRepository.save(booked);
+
+    slotService.deleteSlot(free.getId());
+    var ex = assertThrows(IllegalStateException.class, () -> slotService.deleteSlot(booked.getId()));
+
+    assertEquals("Slot is booked or has an appointment", ex.getMessage());
+    assertFalse(slotRepository.existsById(free.getId()));
+    assertTrue(slotRepository.existsById(booked.getId()));
+  }
+
+  // No test transaction here, like a request: the reassigned slot's new doctor must be usable after the save
+  @Test
+  void updateSlot_reassignedToAnotherDoctor_outsideATransaction_indexesTheNewDoctor() {
+    Doctor other = doctorRepository.findByEmail("bulk-other@test.local").orElseGet(() -> {
+      Doctor d = new Doctor();
+      d.setFirstName("Other");
+      d.setLastName("Doc");
+      d.setEmail("bulk-other@test.local");
+      d.setPassword_hash("not-used");
+      d.setRole("DOCTOR");
+      d.setLocation("Larnaca");
+      d.setSpeciality("Rheumatology");
+      return doctorRepository.save(d);
+    });
+    LocalDateTime start = monday.atTime(8, 0);
+    SlotCreateDTO create = new SlotCreateDTO();
+    create.setDoctorId(doctor.getId());
+    create.setStartTime(start);
+    create.setEndTime(start.plusMinutes(30));
+    Long slotId = slotService.createSlot(create).getId();
+
+    AppointmentSlotDTO patch = new AppointmentSlotDTO();
+    patch.setDoctorId(other.getId());
+    patch.setStartTime(start);
+    patch.setEndTime(start.plusMinutes(30));
+
+    assertEquals(other.getId(), slotService.updateSlot(slotId, patch).getDoctorId());
+    var hits = availabilityIndex.search("Rheumatology", "Larnaca", start, start.plusMinutes(30), 10);
+    assertEquals(List.of(other.getId()), hits.stream().map(h -> h.getDoctorId()).toList());
+  }
+}
@@ -0,0 +1,253 @@
+package com.medical.bookingapi.it;
+
+import com.medical.bookingapi.config.SlotPartitionMaintainer;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.repository.AppointmentRepository;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+import com.medical.bookingapi.repository.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * appointment_slot as a monthly range-partitioned table (V5): rows land in their month's partition,
+ * range queries only scan the months they cover, and the maintainer keeps partitions ahead of time.
+ * The latency benchmark is opt-in: {@code mvn verify -Dbenchmarks=true}.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SlotPartitioningIT {
+
+  private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_partitions")
+      .withUsername("test")
+      .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerProps(DynamicPropertyRegistry r) {
+    r.add("spring.datasource.url", postgres::getJdbcUrl);
+    r.add("spring.datasource.username", postgres::getUsername);
+    r.add("spring.datasource.password", postgres::getPassword);
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    r.add("spring.jpa.show-sql", () -> "false");
+    r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    r.add("security.jwt.secret", () -> "test-secret-please-change");
+  }
+
+  @Autowired JdbcTemplate jdbc;
+  @Autowired SlotPartitionMaintainer maintainer;
+  @Autowired DoctorRepository doctorRepository;
+  @Autowired AppointmentSlotRepository slotRepository;
+  @Autowired AppointmentRepository appointmentRepository;
+
+  Doctor doctor;
+
+  @BeforeEach
+  void setUp() {
+    appointmentRepository.deleteAllInBatch();
+    slotRepository.deleteAllInBatch();
+    doctor = doctorRepository.findByEmail("partition-doc@test.local").orElseGet(() -> {
+      Doctor d = new Doctor();
+      d.setFirstName("Partition");
+      d.setLastName("Doc");
+      d.setEmail("partition-doc@test.local");
+      d.setPassword_hash("not-used");
+      d.setRole("DOCTOR");
+      d.setLocation("Nicosia");
+      d.setSpeciality("Cardiology");
+      return doctorRepository.save(d);
+    });
+  }
+
+  private static String partition(YearMonth month) {
+    return "appointment_slot_p" + month.format(SUFFIX);
+  }
+
+  private void insertSlot(long id, LocalDateTime start) {
+    jdbc.update("insert into appointment_slot (id, doctor_id, start_time, end_time, is_booked) values (?, ?, ?, ?, false)",
+        id, doctor.getId(), start, start.plusMinutes(30));
+  }
+
+  private String explain(String sql) {
+    return String.join("\n", jdbc.queryForList("explain " + sql, String.class));
+  }
+
+  @Test
+  void slotTable_isPartitioned_andMaintainerKeepsAYearAhead() {
+    assertEquals("p", jdbc.queryForObject(
+        "select relkind::text from pg_class where oid = 'appointment_slot'::regclass", String.class));
+
+    maintainer.maintain();
+
+    YearMonth now = YearMonth.now();
+    for (int i = 0; i <= 12; i++) {
+      String name = partition(now.plusMonths(i));
+      assertNotNull(jdbc.queryForObject("select to_regclass(?)::text", String.class, name), name);
+    }
+  }
+
+  @Test
+  void rowsLandInTheirMonthsPartition_andDefaultCatchesTheRest() {
+    LocalDateTime nextMonth = YearMonth.now().plusMonths(1).atDay(10).atTime(9, 0);
+    LocalDateTime farFuture = YearMonth.now().plusYears(5).atDay(10).atTime(9, 0);
+    insertSlot(900_001L, nextMonth);
+    insertSlot(900_002L, farFuture);
+
+    assertEquals(partition(YearMonth.from(nextMonth)), jdbc.queryForObject(
+        "select tableoid::regclass::text from appointment_slot where id = 900001", String.class));
+    assertEquals("appointment_slot_default", jdbc.queryForObject(
+        "select tableoid::regclass::text from appointment_slot where id = 900002", String.class));
+
+    // creating the month later moves its rows out of the default partition
+    assertEquals(Boolean.TRUE, jdbc.queryForObject(
+        "select create_appointment_slot_partition(?)", Boolean.class, farFuture.toLocalDate()));
+    assertEquals(partition(YearMonth.from(farFuture)), jdbc.queryForObject(
+        "select tableoid::regclass::text from appointment_slot where id = 900002", String.class));
+  }
+
+  @Test
+  void rangeQuery_onlyScansTheMonthsItCovers() {
+    YearMonth month = YearMonth.now().plusMonths(2);
+    String plan = explain("select * from appointment_slot where start_time >= '" + month.atDay(1)
+        + "' and start_time < '" + month.atDay(15) + "'");
+
+    assertTrue(plan.contains(partition(month)), plan);
+    assertFalse(plan.contains(partition(month.plusMonths(1))), plan);
+    assertFalse(plan.contains(partition(month.minusMonths(1))), plan);
+    assertFalse(plan.contains("appointment_slot_default"), plan);
+  }
+
+  @Test
+  void lookupById_withTheStartTime_onlyScansThatMonth() {
+    YearMonth month = YearMonth.now().plusMonths(2);
+    String plan = explain("update appointment_slot set is_booked = true where id = 1 and start_time = '"
+        + month.atDay(3).atTime(9, 0) + "'");
+
+    assertTrue(plan.contains(partition(month)), plan);
+    assertFalse(plan.contains(partition(month.plusMonths(1))), plan);
+    assertFalse(plan.contains("appointment_slot_default"), plan);
+  }
+
+  @Test
+  void overlapWithinAMonth_isStillRejected() {
+    LocalDateTime start = YearMonth.now().plusMonths(1).atDay(3).atTime(10, 0);
+    insertSlot(900_010L, start);
+
+    assertThrows(DataIntegrityViolationException.class,
+        () -> insertSlot(900_011L, start.plusMinutes(15)));
+  }
+
+  @Test
+  void slotAcrossAMonthBoundary_isRejected_soOverlapsCannotHideInTwoPartitions() {
+    LocalDateTime lastSlotOfMonth = YearMonth.now().plusMonths(1).atEndOfMonth().atTime(23, 30);
+    // ends exactly at midnight on the 1st: still within the month
+    insertSlot(900_012L, lastSlotOfMonth);
+
+    var ex = assertThrows(DataIntegrityViolationException.class,
+        () -> insertSlot(900_013L, lastSlotOfMonth.plusMinutes(15)));
+    assertTrue(ex.getMostSpecificCause().getMessage().contains("appointment_slot_within_month"),
+        ex.getMostSpecificCause().getMessage());
+  }
+
+  @Test
+  void archive_detachesUnreferencedMonths_andKeepsReferencedOnes() {
+    YearMonth old = YearMonth.now().minusYears(3);
+    jdbc.queryForObject("select create_appointment_slot_partition(?)", Boolean.class, old.atDay(1));
+    insertSlot(900_020L, old.atDay(5).atTime(9, 0));
+
+    assertEquals("archived", jdbc.queryForObject(
+        "select archive_appointment_slot_partition(?)", String.class, old.atDay(1)));
+    assertEquals(0, jdbc.queryForObject(
+        "select count(*) from appointment_slot where id = 900020", Integer.class));
+    assertEquals(1, jdbc.queryForObject(
+        "select count(*) from archive." + partition(old), Integer.class));
+    assertEquals("missing", jdbc.queryForObject(
+        "select archive_appointment_slot_partition(?)", String.class, old.atDay(1)));
+
+    YearMonth referenced = old.plusMonths(1);
+    jdbc.queryForObject("select create_appointment_slot_partition(?)", Boolean.class, referenced.atDay(1));
+    insertSlot(900_021L, referenced.atDay(5).atTime(9, 0));
+    Long patientId = jdbc.queryForObject("""
+        insert into users (first_name, last_name, email, password_hash, role)
+        values ('Archive', 'Patient', 'archive-patient@test.local', 'x', 'PATIENT') returning id
+        """, Long.class);
+    jdbc.update("insert into patient (id) values (?)", patientId);
+    jdbc.update("""
+        insert into appointment (patient_id, doctor_id, slot_id, slot_start_time, status)
+        values (?, ?, 900021, ?, 'BOOKED')
+        """, patientId, doctor.getId(), referenced.atDay(5).atTime(9, 0));
+
+    assertEquals("referenced", jdbc.queryForObject(
+        "select archive_appointment_slot_partition(?)", String.class, referenced.atDay(1)));
+    assertEquals(1, jdbc.queryForObject(
+        "select count(*) from appointment_slot where id = 900021", Integer.class));
+  }
+
+  // ---------- benchmark ----------
+
+  @Test
+  @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+  void benchmark_rangeQueryLatency_staysFlatAsHistoryGrows() {
+    double[] oneYear = seedAndMeasure(1);
+    slotRepository.deleteAllInBatch();
+    double[] fiveYears = seedAndMeasure(5);
+
+    System.out.printf("appointment_slot one-week range query, 1 year of history:  p50=%.2f ms p99=%.2f ms%n",
+        oneYear[0], oneYear[1]);
+    System.out.printf("appointment_slot one-week range query, 5 years of history: p50=%.2f ms p99=%.2f ms%n",
+        fiveYears[0], fiveYears[1]);
+  }
+
+  // Seeds `years` of history (one 30-minute slot per doctor every half hour, 08:00-18:00) and
+  // returns {p50, p99} in ms for a one-week range over the coming month
+  private double[] seedAndMeasure(int years) {
+    LocalDateTime from = YearMonth.now().minusYears(years).atDay(1).atStartOfDay();
+    LocalDateTime to = YearMonth.now().plusMonths(2).atDay(1).atStartOfDay();
+    jdbc.queryForList("select create_appointment_slot_partition(m::date) from generate_series(?::timestamp, ?::timestamp, interval '1 month') m",
+        Boolean.class, from, to);
+    jdbc.update("""
+        insert into appointment_slot (id, doctor_id, start_time, end_time, is_booked)
+        select nextval('appointment_slot_seq'), ?, t, t + interval '30 minutes', false
+          from generate_series(?::timestamp, ?::timestamp, interval '30 minutes') t
+         where extract(hour from t) between 8 and 17
+        """, doctor.getId(), from, to);
+    jdbc.execute("analyze appointment_slot");
+
+    LocalDateTime weekStart = YearMonth.now().plusMonths(1).atDay(1).atStartOfDay();
+    String sql = "select id, start_time from appointment_slot where start_time >= ? and start_time < ?";
+    for (int i = 0; i < 200; i++) {
+      jdbc.queryForList(sql, weekStart, weekStart.plusDays(7));
+    }
+    int runs = 1000;
+    double[] ms = new double[runs];
+    for (int i = 0; i < runs; i++) {
+      long t0 = System.nanoTime();
+      List<?> rows = jdbc.queryForList(sql, weekStart, weekStart.plusDays(7));
+      ms[i] = (System.nanoTime() - t0) / 1_000_000.0;
+      assertFalse(rows.isEmpty());
+    }
+    Arrays.sort(ms);
+    return new double[] { ms[runs / 2], ms[(int) (runs * 0.99)] };
+  }
+}
@@ -0,0 +1,173 @@
+package com.medical.bookingapi.it;
+
+import com.medical.bookingapi.model.Patient;
+import com.medical.bookingapi.repository.PatientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test for token renewal. Every active user renews their access token four times per hour
+ * (15-minute tokens), either by logging in again (BCrypt verify each time) or through
+ * /api/auth/refresh. Prints BCrypt operations and BCrypt time per user-hour for both, read from the
+ * booking.auth.hash.duration timer. Opt-in: {@code mvn verify -Dbenchmarks=true -Dit.test=TokenRenewalLoadIT}.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class TokenRenewalLoadIT {
+
+  private static final int USERS = 50;
+  private static final int RENEWALS_PER_USER_HOUR = 4;
+  private static final int THREADS = 16;
+  private static final String PASSWORD = "LoadPass123!";
+
+  @SuppressWarnings("resource")
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+      .withDatabaseName("bookingapi_it_renewal")
+      .withUsername("test")
+      .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerProps(DynamicPropertyRegistry r) {
+    r.add("spring.datasource.url", postgres::getJdbcUrl);
+    r.add("spring.datasource.username", postgres::getUsername);
+    r.add("spring.datasource.password", postgres::getPassword);
+    r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    r.add("spring.jpa.show-sql", () -> "false");
+    r.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    r.add("security.jwt.secret", () -> "test-secret-please-change");
+    r.add("security.jwt.access-token-ttl", () -> "15m");
+    r.add("booking.rate-limit.enabled", () -> "false"); // every user logs in from the same address here
+  }
+
+  @LocalServerPort int port;
+
+  @Autowired PatientRepository patientRepository;
+  @Autowired PasswordEncoder passwordEncoder;
+  @Autowired MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    RestAssured.baseURI = "http://localhost";
+    RestAssured.port = port;
+    String hash = passwordEncoder.encode(PASSWORD);
+    for (int i = 0; i < USERS; i++) {
+      String email = email(i);
+      if (patientRepository.findByEmail(email).isEmpty()) {
+        Patient p = new Patient();
+        p.setFirstName("Load");
+        p.setLastName("User" + i);
+        p.setEmail(email);
+        p.setPassword_hash(hash);
+        p.setRole("PATIENT");
+        patientRepository.save(p);
+      }
+    }
+  }
+
+  private static String email(int user) {
+    return "load-" + user + "@test.local";
+  }
+
+  private static ExtractableResponse<Response> login(int user) {
+    return RestAssured.given()
+        .contentType(ContentType.JSON)
+        .body("{\"email\":\"" + email(user) + "\",\"password\":\"" + PASSWORD + "\"}")
+        .when()
+        .post("/api/auth/login")
+        .then()
+        .statusCode(200)
+        .extract();
+  }
+
+  private static String refresh(String refreshToken) {
+    return RestAssured.given()
+        .contentType(ContentType.JSON)
+        .body("{\"refreshToken\":\"" + refreshToken + "\"}")
+        .when()
+        .post("/api/auth/refresh")
+        .then()
+        .statusCode(200)
+        .extract()
+        .path("refreshToken");
+  }
+
+  private Timer bcryptMatches() {
+    return meterRegistry.get("booking.auth.hash.duration").tag("operation", "matches").timer();
+  }
+
+  /** Runs one simulated user-hour per user concurrently; returns {bcrypt ops, bcrypt ms, wall ms}. */
+  private double[] measure(IntConsumer userHour) throws Exception {
+    Timer matches = bcryptMatches();
+    long countBefore = matches.count();
+    double msBefore = matches.totalTime(TimeUnit.MILLISECONDS);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    long t0 = System.nanoTime();
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < USERS; i++) {
+        int user = i;
+        futures.add(pool.submit(() -> userHour.accept(user)));
+      }
+      for (Future<?> f : futures) {
+        f.get(5, TimeUnit.MINUTES);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    double wallMs = (System.nanoTime() - t0) / 1_000_000.0;
+    return new double[] {
+        matches.count() - countBefore, matches.totalTime(TimeUnit.MILLISECONDS) - msBefore, wallMs };
+  }
+
+  @Test
+  void renewingThroughRefresh_removesBCryptWorkPerUserHour() throws Exception {
+    // the session's first login costs one BCrypt verify either way and is not part of the hour
+    String[] refreshTokens = new String[USERS];
+    for (int i = 0; i < USERS; i++) {
+      refreshTokens[i] = login(i).path("refreshToken");
+    }
+
+    double[] relogin = measure(user -> {
+      for (int r = 0; r < RENEWALS_PER_USER_HOUR; r++) {
+        login(user);
+      }
+    });
+    double[] rotate = measure(user -> {
+      for (int r = 0; r < RENEWALS_PER_USER_HOUR; r++) {
+        refreshTokens[user] = refresh(refreshTokens[user]);
+      }
+    });
+
+    System.out.printf("Renewal by re-login: %.1f BCrypt verifies, %.1f ms BCrypt time per user-hour (%d users, wall %.0f ms)%n",
+        relogin[0] / USERS, relogin[1] / USERS, USERS, relogin[2]);
+    System.out.printf("Renewal by refresh:  %.1f BCrypt verifies, %.1f ms BCrypt time per user-hour (%d users, wall %.0f ms)%n",
+        rotate[0] / USERS, rotate[1] / USERS, USERS, rotate[2]);
+
+    assertEquals(USERS * RENEWALS_PER_USER_HOUR, relogin[0]);
+    assertEquals(0, rotate[0]);
+  }
+}
@@ -1,10 +1,165 @@
 package com.medical.bookingapi.repository;
 
+import com.medical.bookingapi.dto.AppointmentDTO;
+import com.medical.bookingapi.model.Appointment;
+import com.medical.bookingapi.model.AppointmentSlot;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.model.Patient;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
-@DataJpaTest
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"})
 class AppointmentRepositoryTest {
+
+  @Autowired TestEntityManager em;
+  @Autowired EntityManagerFactory emf;
+  @Autowired AppointmentRepository repo;
+
+  Statistics stats;
+  LocalDateTime base;
+
+  @BeforeEach
+  void setUp() {
+    stats = emf.unwrap(SessionFactory.class).getStatistics();
+    base = LocalDateTime.now().plusDays(5).withNano(0);
+  }
+
   @Test
   void contextLoads() { }
+
+  private Doctor doctor(String email) {
+    Doctor d = new Doctor();
+    d.setFirstName("Doc");
+    d.setLastName("Projection");
+    d.setEmail(email);
+    d.setPassword_hash("x");
+    d.setRole("DOCTOR");
+    d.setSpeciality("Cardiology");
+    d.setLocation("Nicosia");
+    return em.persist(d);
+  }
+
+  private Patient patient(String email) {
+    Patient p = new Patient();
+    p.setFirstName("Pat");
+    p.setLastName("Projection");
+    p.setEmail(email);
+    p.setPassword_hash("x");
+    p.setRole("PATIENT");
+    p.setAllergies("penicillin");
+    return em.persist(p);
+  }
+
+  private Appointment appointment(Doctor d, Patient p, LocalDateTime start, String status) {
+    AppointmentSlot s = new AppointmentSlot();
+    s.setDoctor(d);
+    s.setStartTime(start);
+    s.setEndTime(start.plusMinutes(30));
+    s.setBooked(true);
+    em.persist(s);
+
+    Appointment a = new Appointment();
+    a.setDoctor(d);
+    a.setPatient(p);
+    a.setSlot(s);
+    a.setStatus(status);
+    a.setNotes("note " + start);
+    return em.persist(a);
+  }
+
+  // n appointments of one doctor, each with its own patient, starting latest-first
+  private Doctor doctorWithAppointments(String tag, int n, String status) {
+    Doctor d = doctor(tag + "-doc@test.local");
+    for (int i = n - 1; i >= 0; i--) {
+      appointment(d, patient(tag + "-pat" + i + "@test.local"), base.plusHours(i), status);
+    }
+    em.flush();
+    em.clear();
+    return d;
+  }
+
+  // statements prepared while running the query on an empty persistence context
+  private long statementsFor(Supplier<List<?>> query, int expectedRows) {
+    em.clear();
+    stats.clear();
+    assertEquals(expectedRows, query.get().size());
+    return stats.getPrepareStatementCount();
+  }
+
+  @Test
+  void findDtosByDoctorId_fillsEveryColumn_inSlotOrder() {
+    Doctor d = doctor("cols-doc@test.local");
+    Patient p = patient("cols-pat@test.local");
+    Appointment later = appointment(d, p, base.plusHours(2), "BOOKED");
+    Appointment earlier = appointment(d, p, base, "PENDING");
+    em.flush();
+    em.clear();
+
+    List<AppointmentDTO> dtos = repo.findDtosByDoctorId(d.getId());
+
+    assertEquals(List.of(earlier.getId(), later.getId()), dtos.stream().map(AppointmentDTO::getId).toList());
+    AppointmentDTO first = dtos.get(0);
+    assertEquals(p.getId(), first.getPatientId());
+    assertEquals("Pat", first.getPatientName());
+    assertEquals(d.getId(), first.getDoctorId());
+    assertEquals("Doc", first.getDoctorName());
+    assertEquals("Cardiology", first.getDoctorSpeciality());
+    assertEquals(earlier.getSlot().getId(), first.getSlotId());
+    assertEquals(base, first.getSlotStartTime());
+    assertEquals(base.plusMinutes(30), first.getSlotEndTime());
+    assertEquals("PENDING", first.getStatus());
+    assertEquals("note " + base, first.getNotes());
+    assertNotNull(first.getCreatedAt());
+
+    assertEquals(later.getId(), repo.findDtoBySlotId(later.getSlot().getId()).orElseThrow().getId());
+    assertEquals(List.of(later.getId()),
+        repo.findDtosByDoctorIdAndStatus(d.getId(), "BOOKED").stream().map(AppointmentDTO::getId).toList());
+    assertEquals(2, repo.findDtosByPatientId(p.getId()).size());
+  }
+
+  @Test
+  void listQueries_issueOneStatement_howeverManyRowsTheyReturn() {
+    Doctor one = doctorWithAppointments("one", 1, "CONFIRMED");
+    Doctor many = doctorWithAppointments("many", 12, "REJECTED");
+
+    assertEquals(1, statementsFor(() -> repo.findDtosByDoctorId(one.getId()), 1));
+    assertEquals(1, statementsFor(() -> repo.findDtosByDoctorId(many.getId()), 12));
+    assertEquals(1, statementsFor(() -> repo.findDtosByStatus("CONFIRMED"), 1));
+    assertEquals(1, statementsFor(() -> repo.findDtosByStatus("REJECTED"), 12));
+    assertEquals(1, statementsFor(() -> repo.findDtosByDoctorIdAndStatus(many.getId(), "REJECTED"), 12));
+  }
+
+  // what mapping entities (as AppointmentMapper.toDto does) costs: each patient and slot is read on its own
+  private List<?> mappedEntities(String status) {
+    return em.getEntityManager()
+        .createQuery("select a from Appointment a where a.status = :status", Appointment.class)
+        .setParameter("status", status)
+        .getResultList().stream()
+        .map(a -> List.of(a.getPatient().getFirstName(), a.getDoctor().getFirstName(), a.getSlot().getStartTime()))
+        .toList();
+  }
+
+  @Test
+  void entityQuery_growsWithTheResult_whichIsWhatTheProjectionAvoids() {
+    doctorWithAppointments("entity-one", 1, "CONFIRMED");
+    doctorWithAppointments("entity-many", 12, "REJECTED");
+
+    long small = statementsFor(() -> mappedEntities("CONFIRMED"), 1);
+    long large = statementsFor(() -> mappedEntities("REJECTED"), 12);
+
+    assertTrue(large >= small + 11, "entity query: " + small + " statements for 1 row, " + large + " for 12");
+  }
 }
@@ -1,10 +1,100 @@
 package com.medical.bookingapi.repository;
 
+import com.medical.bookingapi.dto.AppointmentSlotDTO;
+import com.medical.bookingapi.model.AppointmentSlot;
+import com.medical.bookingapi.model.Doctor;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
-@DataJpaTest
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The migrations are PostgreSQL-specific (partial indexes); H2 gets its schema from the entities
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
 class AppointmentSlotRepositoryTest {
+
+  @Autowired TestEntityManager em;
+  @Autowired AppointmentSlotRepository repo;
+
   @Test
   void contextLoads() { }
+
+  private Doctor doctor(String email) {
+    Doctor d = new Doctor();
+    d.setFirstName("Doc");
+    d.setLastName("Keyset");
+    d.setEmail(email);
+    d.setPassword_hash("x");
+    d.setRole("DOCTOR");
+    d.setSpeciality("Cardiology");
+    d.setLocation("Nicosia");
+    return em.persist(d);
+  }
+
+  private AppointmentSlot slot(Doctor d, LocalDateTime start, boolean booked) {
+    AppointmentSlot s = new AppointmentSlot();
+    s.setDoctor(d);
+    s.setStartTime(start);
+    s.setEndTime(start.plusMinutes(30));
+    s.setBooked(booked);
+    return em.persist(s);
+  }
+
+  @Test
+  void keysetPages_walkFreeSlotsInStartIdOrder_withoutGapsOrDuplicates() {
+    Doctor a = doctor("keyset-a@test.local");
+    Doctor b = doctor("keyset-b@test.local");
+    LocalDateTime base = LocalDateTime.now().plusDays(3).withNano(0);
+    // several slots share a start time (different doctors), so paging must tie-break on id
+    for (int i = 0; i < 5; i++) {
+      slot(a, base.plusHours(i), false);
+      slot(b, base.plusHours(i), false);
+    }
+    slot(a, base.plusMinutes(30), true);  // booked, never listed
+    em.flush();
+
+    List<Long> seen = new ArrayList<>();
+    LocalDateTime afterStart = base;
+    long afterId = Long.MIN_VALUE;
+    LocalDateTime before = base.plusDays(1);
+    while (true) {
+      List<AppointmentSlotDTO> page = repo.findAvailablePage(afterStart, afterId, before, PageRequest.of(0, 3));
+      if (page.isEmpty()) break;
+      page.forEach(s -> seen.add(s.getId()));
+      AppointmentSlotDTO last = page.get(page.size() - 1);
+      afterStart = last.getStartTime();
+      afterId = last.getId();
+    }
+
+    assertEquals(10, seen.size());
+    assertEquals(10, seen.stream().distinct().count());
+
+    List<AppointmentSlotDTO> onlyB = repo.findAvailablePageByDoctorId(b.getId(), base, Long.MIN_VALUE, before, PageRequest.of(0, 50));
+    assertEquals(5, onlyB.size());
+    assertTrue(onlyB.stream().allMatch(s -> s.getDoctorId().equals(b.getId()) && !s.isBooked()));
+  }
+
+  @Test
+  void streamByStartTimeBetween_returnsRangeInOrder() {
+    Doctor d = doctor("stream@test.local");
+    LocalDateTime base = LocalDateTime.now().plusDays(10).withNano(0);
+    slot(d, base.plusHours(2), false);
+    slot(d, base, true);
+    slot(d, base.plusHours(1), false);
+    slot(d, base.plusDays(5), false); // outside the range
+    em.flush();
+
+    // @DataJpaTest runs each test in a transaction, which the stream needs
+    try (Stream<AppointmentSlotDTO> rows = repo.streamByStartTimeBetween(base, base.plusHours(2))) {
+      List<LocalDateTime> starts = rows.map(AppointmentSlotDTO::getStartTime).toList();
+      assertEquals(List.of(base, base.plusHours(1), base.plusHours(2)), starts);
+    }
+  }
 }
@@ -3,7 +3,7 @@ package com.medical.bookingapi.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
-@DataJpaTest
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
 class DoctorRepositoryTest {
   @Test
   void contextLoads() { }
@@ -0,0 +1,86 @@
+package com.medical.bookingapi.repository;
+
+import com.medical.bookingapi.model.Patient;
+import com.medical.bookingapi.model.RefreshToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class RefreshTokenRepositoryTest {
+
+  @Autowired RefreshTokenRepository refreshTokenRepository;
+  @Autowired TestEntityManager em;
+
+  Patient patient;
+
+  @BeforeEach
+  void setUp() {
+    patient = new Patient();
+    patient.setFirstName("Refresh");
+    patient.setLastName("Patient");
+    patient.setEmail("refresh@test.local");
+    patient.setPassword_hash("hash");
+    patient.setRole("PATIENT");
+    em.persist(patient);
+  }
+
+  private RefreshToken token(String hash, UUID family) {
+    RefreshToken t = new RefreshToken();
+    t.setUser(patient);
+    t.setFamilyId(family);
+    t.setTokenHash(hash);
+    t.setIssuedAt(LocalDateTime.now());
+    t.setExpiresAt(LocalDateTime.now().plusDays(1));
+    return em.persistAndFlush(t);
+  }
+
+  @Test
+  void findWithUserByTokenHash_loadsTheUserAlong() {
+    token("h1", UUID.randomUUID());
+    em.clear();
+
+    RefreshToken found = refreshTokenRepository.findWithUserByTokenHash("h1").orElseThrow();
+
+    assertEquals("refresh@test.local", found.getUser().getEmail());
+    assertTrue(refreshTokenRepository.findWithUserByTokenHash("unknown").isEmpty());
+  }
+
+  @Test
+  void markUsed_succeedsOnlyOnce() {
+    RefreshToken t = token("h1", UUID.randomUUID());
+
+    assertEquals(1, refreshTokenRepository.markUsed(t.getId(), LocalDateTime.now()));
+    assertEquals(0, refreshTokenRepository.markUsed(t.getId(), LocalDateTime.now()));
+  }
+
+  @Test
+  void revokeFamily_revokesOnlyThatFamily_andBlocksMarkUsed() {
+    UUID family = UUID.randomUUID();
+    RefreshToken a = token("h1", family);
+    token("h2", family);
+    RefreshToken other = token("h3", UUID.randomUUID());
+
+    assertEquals(2, refreshTokenRepository.revokeFamily(family, LocalDateTime.now()));
+    assertEquals(0, refreshTokenRepository.markUsed(a.getId(), LocalDateTime.now()));
+    assertEquals(1, refreshTokenRepository.markUsed(other.getId(), LocalDateTime.now()));
+  }
+
+  @Test
+  void deleteExpiredBefore_keepsLiveTokens() {
+    RefreshToken expired = token("h1", UUID.randomUUID());
+    expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+    em.flush();
+    token("h2", UUID.randomUUID());
+
+    assertEquals(1, refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now()));
+    assertEquals(1, refreshTokenRepository.count());
+  }
+}
@@ -1,10 +1,37 @@
 package com.medical.bookingapi.repository;
 
+import com.medical.bookingapi.model.Doctor;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
-@DataJpaTest
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
 class UserRepositoryTest {
+
+  @Autowired UserRepository userRepository;
+
   @Test
   void contextLoads() { }
+
+  @Test
+  void findAuthViewByEmail_projectsAuthColumns() {
+    Doctor d = new Doctor();
+    d.setFirstName("Auth");
+    d.setLastName("View");
+    d.setEmail("auth-view@test.local");
+    d.setPassword_hash("hash");
+    d.setRole("DOCTOR");
+    d.setSpeciality("Cardiology");
+    d.setLocation("Nicosia");
+    Long id = userRepository.save(d).getId();
+
+    AuthUserView view = userRepository.findAuthViewByEmail("auth-view@test.local").orElseThrow();
+
+    assertEquals(new AuthUserView(id, "auth-view@test.local", "DOCTOR", "hash", true, "Auth", "View"), view);
+    assertEquals(view, userRepository.findAuthViewByEmail("Auth-View@Test.Local").orElseThrow());
+    assertTrue(userRepository.existsByEmail("AUTH-VIEW@test.local"));
+    assertTrue(userRepository.findAuthViewByEmail("nobody@test.local").isEmpty());
+  }
 }
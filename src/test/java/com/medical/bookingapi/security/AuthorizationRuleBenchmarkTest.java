@@ -0,0 +1,129 @@
+package com.medical.bookingapi.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.authorization.method.SecuredAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * JMH cost of one authorization decision per call. "spel*" evaluates the {@code @PreAuthorize}
+ * expressions the controllers used (parsed once and cached, as in the method interceptor); the
+ * other two are the precompiled OwnershipAuthorization rule and the {@code @Secured} authority check.
+ * Proxy overhead is not included. Opt-in:
+ * {@code mvn test -Dbenchmarks=true -Dtest=AuthorizationRuleBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationRuleBenchmarkTest {
+
+  /** Stand-in for the annotated controller / service methods. */
+  public static class Target {
+    @PreAuthorize("hasAnyRole('DOCTOR','ADMIN') || (hasRole('PATIENT') && #patientId == principal.patientId)")
+    public void listByPatientId(Long patientId) { }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public void adminOnlySpel() { }
+
+    @Secured("ROLE_ADMIN")
+    public void adminOnlySecured() { }
+  }
+
+  private Supplier<Authentication> patient;
+  private Supplier<Authentication> admin;
+
+  private PreAuthorizeAuthorizationManager preAuthorize;
+  private SecuredAuthorizationManager secured;
+  private AuthorizationManager<RequestAuthorizationContext> patientOrStaff;
+
+  private SimpleMethodInvocation listInvocation;
+  private SimpleMethodInvocation spelAdminInvocation;
+  private SimpleMethodInvocation securedAdminInvocation;
+  private RequestAuthorizationContext listRequest;
+
+  @Setup
+  public void setUp() throws NoSuchMethodException {
+    Authentication patientAuth = new UsernamePasswordAuthenticationToken(
+        new JwtPrincipal(7L, "pat@test.local", "PATIENT", null, 7L), null,
+        AuthorityUtils.createAuthorityList("ROLE_PATIENT"));
+    Authentication adminAuth = new UsernamePasswordAuthenticationToken(
+        new JwtPrincipal(1L, "admin@test.local", "ADMIN", null, null), null,
+        AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+    patient = () -> patientAuth;
+    admin = () -> adminAuth;
+
+    preAuthorize = new PreAuthorizeAuthorizationManager();
+    secured = new SecuredAuthorizationManager();
+    // patientOrStaff never touches the repositories
+    patientOrStaff = new OwnershipAuthorization(null, null).patientOrStaff("patientId");
+
+    Target target = new Target();
+    listInvocation = new SimpleMethodInvocation(target, Target.class.getMethod("listByPatientId", Long.class), 7L);
+    spelAdminInvocation = new SimpleMethodInvocation(target, Target.class.getMethod("adminOnlySpel"));
+    securedAdminInvocation = new SimpleMethodInvocation(target, Target.class.getMethod("adminOnlySecured"));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/appointments");
+    request.setParameter("patientId", "7");
+    listRequest = new RequestAuthorizationContext(request);
+
+    if (!spelOwnership() || !compiledOwnership() || !spelRole() || !securedRole()) {
+      throw new IllegalStateException("every rule should grant access here");
+    }
+  }
+
+  @Benchmark
+  public boolean spelOwnership() {
+    return preAuthorize.authorize(patient, listInvocation).isGranted();
+  }
+
+  @Benchmark
+  public boolean compiledOwnership() {
+    return patientOrStaff.authorize(patient, listRequest).isGranted();
+  }
+
+  @Benchmark
+  public boolean spelRole() {
+    return preAuthorize.authorize(admin, spelAdminInvocation).isGranted();
+  }
+
+  @Benchmark
+  public boolean securedRole() {
+    return secured.authorize(admin, securedAdminInvocation).isGranted();
+  }
+
+  @Test
+  @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+  void runBenchmarks() throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(AuthorizationRuleBenchmarkTest.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,102 @@
+package com.medical.bookingapi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+  CountDownLatch release;
+  CountDownLatch started;
+  SimpleMeterRegistry meterRegistry;
+  BoundedPasswordEncoder encoder;
+
+  // Blocks every encode until the test releases it, so the pool and queue can be filled on purpose
+  class GatedEncoder implements PasswordEncoder {
+    @Override
+    public String encode(CharSequence raw) {
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "hashed:" + raw;
+    }
+
+    @Override
+    public boolean matches(CharSequence raw, String encoded) {
+      return encoded.equals("hashed:" + raw);
+    }
+  }
+
+  @BeforeEach
+  void setup() {
+    release = new CountDownLatch(1);
+    started = new CountDownLatch(1);
+    meterRegistry = new SimpleMeterRegistry();
+    encoder = new BoundedPasswordEncoder(new GatedEncoder(), 1, 1, Duration.ofSeconds(3), meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    encoder.close();
+  }
+
+  @Test
+  void delegatesAndRecordsLatency() {
+    release.countDown();
+
+    assertEquals("hashed:pw", encoder.encode("pw"));
+    assertTrue(encoder.matches("pw", "hashed:pw"));
+    assertFalse(encoder.matches("other", "hashed:pw"));
+
+    assertEquals(1, meterRegistry.get("booking.auth.hash.duration").tag("operation", "encode").timer().count());
+    assertEquals(2, meterRegistry.get("booking.auth.hash.duration").tag("operation", "matches").timer().count());
+  }
+
+  @Test
+  void whenPoolAndQueueAreFull_shedsWith503AndRetryAfter() throws Exception {
+    CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+    while (meterRegistry.get("booking.auth.hash.queue.depth").gauge().value() < 1) {
+      Thread.onSpinWait();
+    }
+
+    var ex = assertThrows(ResponseStatusException.class, () -> encoder.encode("c"));
+    assertEquals(503, ex.getStatusCode().value());
+    assertEquals("3", ex.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    assertEquals(1.0, meterRegistry.get("booking.auth.hash.rejected").counter().count());
+
+    release.countDown();
+    assertEquals("hashed:a", running.get(5, TimeUnit.SECONDS));
+    assertEquals("hashed:b", queued.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void delegateFailures_propagateUnchanged() {
+    var failing = new BoundedPasswordEncoder(new PasswordEncoder() {
+      public String encode(CharSequence raw) { throw new IllegalArgumentException("bad input"); }
+      public boolean matches(CharSequence raw, String encoded) { return false; }
+    }, 1, 1, Duration.ofSeconds(1), new SimpleMeterRegistry());
+    try {
+      var ex = assertThrows(IllegalArgumentException.class, () -> failing.encode("x"));
+      assertEquals("bad input", ex.getMessage());
+    } finally {
+      failing.close();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.medical.bookingapi.security;
+
+import com.medical.bookingapi.model.Patient;
+import com.medical.bookingapi.service.CustomUserDetailsService;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtFilterTest {
+
+  @Mock JwtService jwtService;
+  @Mock CustomUserDetailsService userDetailsService;
+  @Mock TokenRevocationList revocations;
+
+  @InjectMocks JwtFilter filter;
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static MockHttpServletRequest bearer(String token) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/appointments");
+    request.addHeader("Authorization", "Bearer " + token);
+    return request;
+  }
+
+  @Test
+  void tokenWithClaims_authenticatesWithoutLoadingTheUser() throws Exception {
+    when(jwtService.verify("t")).thenReturn(
+        new VerifiedToken("pat@test.local", "PATIENT", 9L, null, 9L, "jti-1", Instant.now(), Instant.now().plusSeconds(60)));
+
+    filter.doFilter(bearer("t"), new MockHttpServletResponse(), new MockFilterChain());
+
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    JwtPrincipal principal = assertInstanceOf(JwtPrincipal.class, auth.getPrincipal());
+    assertEquals(9L, principal.getPatientId());
+    assertEquals("pat@test.local", auth.getName());
+    assertEquals(List.of(new SimpleGrantedAuthority("ROLE_PATIENT")), List.copyOf(auth.getAuthorities()));
+    verifyNoInteractions(userDetailsService);
+  }
+
+  @Test
+  void tokenWithoutUid_fallsBackToLoadingTheUser() throws Exception {
+    Patient patient = new Patient();
+    patient.setId(9L);
+    patient.setEmail("pat@test.local");
+    patient.setRole("PATIENT");
+    CustomUserDetails details = new CustomUserDetails(patient);
+    VerifiedToken legacy = new VerifiedToken("pat@test.local", "PATIENT", null, null, null,
+        null, null, Instant.now().plusSeconds(60));
+    when(jwtService.verify("t")).thenReturn(legacy);
+    when(userDetailsService.loadUserByUsername("pat@test.local")).thenReturn(details);
+    when(jwtService.isTokenValid(legacy, details)).thenReturn(true);
+
+    filter.doFilter(bearer("t"), new MockHttpServletResponse(), new MockFilterChain());
+
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    assertSame(details, auth.getPrincipal());
+    assertEquals(List.of(new SimpleGrantedAuthority("ROLE_PATIENT")), List.copyOf(auth.getAuthorities()));
+  }
+
+  @Test
+  void invalidToken_is401_andChainStops() throws Exception {
+    when(jwtService.verify("bad")).thenThrow(new MalformedJwtException("bad"));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(bearer("bad"), response, chain);
+
+    assertEquals(401, response.getStatus());
+    assertNull(chain.getRequest());
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+
+  @Test
+  void revokedToken_is401_andChainStops() throws Exception {
+    VerifiedToken token = new VerifiedToken("pat@test.local", "PATIENT", 9L, null, 9L, "jti-1",
+        Instant.now(), Instant.now().plusSeconds(60));
+    when(jwtService.verify("t")).thenReturn(token);
+    when(revocations.isRevoked(token)).thenReturn(true);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(bearer("t"), response, chain);
+
+    assertEquals(401, response.getStatus());
+    assertEquals("{\"error\":\"token_revoked\"}", response.getContentAsString());
+    assertNull(chain.getRequest());
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+}
@@ -1,11 +1,170 @@
 package com.medical.bookingapi.security;
 
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.model.Patient;
+import com.medical.bookingapi.repository.AuthUserView;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class JwtServiceTest {
+
+  // init() accepts this as lenient Base64URL (27 bytes) and derives the HMAC key with SHA-256, so
+  // hand-built tokens sign with the service's own key (signingKey()), never with these bytes
+  private static final String SECRET = "unit-test-secret-that-is-long-enough!";
+
+  JwtService jwtService;
+  CustomUserDetails doctor;
+
+  @BeforeEach
+  void setUp() {
+    jwtService = new JwtService();
+    ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+    jwtService.init();
+
+    Doctor user = new Doctor();
+    user.setId(42L);
+    user.setEmail("doc@test.local");
+    user.setRole("DOCTOR");
+    doctor = new CustomUserDetails(user);
+  }
+
+  private SecretKey signingKey() {
+    return (SecretKey) ReflectionTestUtils.getField(jwtService, "key");
+  }
+
   @Test
   void placeholder() {
     assertTrue(true);
   }
+
+  @Test
+  void verify_returnsSubjectRoleAndExpiry_fromOneParse() {
+    String token = jwtService.generateToken(doctor);
+
+    VerifiedToken verified = jwtService.verify(token);
+
+    assertEquals("doc@test.local", verified.subject());
+    assertEquals("DOCTOR", verified.role());
+    assertEquals(42L, verified.userId());
+    assertEquals(42L, verified.doctorId());
+    assertNull(verified.patientId());
+    assertTrue(verified.isSelfContained());
+    assertTrue(verified.expiresAt().isAfter(Instant.now()));
+    assertTrue(jwtService.isTokenValid(verified, doctor));
+  }
+
+  @Test
+  void verify_rejectsTamperedAndForeignTokens() {
+    String token = jwtService.generateToken(doctor);
+    String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+    String foreign = Jwts.builder()
+        .setSubject("doc@test.local")
+        .setExpiration(Date.from(Instant.now().plusSeconds(60)))
+        .signWith(Keys.hmacShaKeyFor("another-secret-that-is-long-enough!!".getBytes(StandardCharsets.UTF_8)),
+            SignatureAlgorithm.HS256)
+        .compact();
+
+    assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    assertThrows(JwtException.class, () -> jwtService.verify(foreign));
+    assertThrows(IllegalArgumentException.class, () -> jwtService.verify(""));
+  }
+
+  @Test
+  void verify_rejectsExpiredTokensAndTokensWithoutExpiry() {
+    var key = signingKey();
+    String expired = Jwts.builder()
+        .setSubject("doc@test.local")
+        .setExpiration(Date.from(Instant.now().minusSeconds(60)))
+        .signWith(key, SignatureAlgorithm.HS256)
+        .compact();
+    String noExpiry = Jwts.builder()
+        .setSubject("doc@test.local")
+        .signWith(key, SignatureAlgorithm.HS256)
+        .compact();
+
+    assertThrows(ExpiredJwtException.class, () -> jwtService.verify(expired));
+    var missing = assertThrows(MalformedJwtException.class, () -> jwtService.verify(noExpiry));
+    assertEquals("Token has no expiration", missing.getMessage());
+  }
+
+  @Test
+  void patientToken_carriesPatientId_andPrincipalExposesIt() {
+    Patient patient = new Patient();
+    patient.setId(9L);
+    patient.setEmail("pat@test.local");
+    patient.setRole("PATIENT");
+
+    JwtPrincipal principal = jwtService.verify(jwtService.generateToken(new CustomUserDetails(patient))).toPrincipal();
+
+    assertEquals(9L, principal.getUserId());
+    assertEquals(9L, principal.getPatientId());
+    assertNull(principal.getDoctorId());
+    assertEquals("pat@test.local", principal.getName());
+  }
+
+  @Test
+  void tokenFromTheLoginView_carriesTheSameClaimsAsFromTheEntity() {
+    AuthUserDetails details = new AuthUserDetails(
+        new AuthUserView(9L, "pat@test.local", "PATIENT", "hash", true, "Pat", "Nine"));
+
+    VerifiedToken verified = jwtService.verify(jwtService.generateToken(details));
+
+    assertEquals("pat@test.local", verified.subject());
+    assertEquals("PATIENT", verified.role());
+    assertEquals(9L, verified.userId());
+    assertEquals(9L, verified.patientId());
+    assertNull(verified.doctorId());
+  }
+
+  @Test
+  void tokenWithoutUid_isNotSelfContained() {
+    String legacy = Jwts.builder()
+        .setSubject("doc@test.local")
+        .claim("role", "DOCTOR")
+        .setExpiration(Date.from(Instant.now().plusSeconds(60)))
+        .signWith(signingKey(), SignatureAlgorithm.HS256)
+        .compact();
+
+    assertFalse(jwtService.verify(legacy).isSelfContained());
+  }
+
+  @Test
+  void isTokenValid_requiresMatchingUser() {
+    VerifiedToken verified = jwtService.verify(jwtService.generateToken(doctor));
+
+    Doctor other = new Doctor();
+    other.setEmail("someone-else@test.local");
+    other.setRole("DOCTOR");
+
+    assertFalse(jwtService.isTokenValid(verified, new CustomUserDetails(other)));
+    assertFalse(jwtService.isTokenValid(
+        new VerifiedToken("doc@test.local", "DOCTOR", 42L, 42L, null, "jti", Instant.now().minusSeconds(60),
+            Instant.now().minusSeconds(1)), doctor));
+  }
+
+  @Test
+  void everyToken_getsItsOwnJti_andAnIssuedAt() {
+    VerifiedToken first = jwtService.verify(jwtService.generateToken(doctor));
+    VerifiedToken second = jwtService.verify(jwtService.generateToken(doctor));
+
+    assertNotNull(first.tokenId());
+    assertNotEquals(first.tokenId(), second.tokenId());
+    assertNotNull(first.issuedAt());
+    assertFalse(first.issuedAt().isAfter(Instant.now()));
+    assertEquals(first.issuedAt().plus(jwtService.tokenLifetime()), first.expiresAt());
+  }
 }
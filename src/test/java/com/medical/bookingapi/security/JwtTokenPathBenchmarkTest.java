@@ -0,0 +1,90 @@
+package com.medical.bookingapi.security;
+
+import com.medical.bookingapi.model.Doctor;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the token work JwtFilter does per authenticated request.
+ * "fourParses" replays the old path: extractUsername, isTokenValid (two more parses) and extractRole,
+ * each with a freshly built parser. "singleParse" is the current JwtService.verify + isTokenValid.
+ * Opt-in: {@code mvn test -Dbenchmarks=true -Dtest=JwtTokenPathBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenPathBenchmarkTest {
+
+  private static final String SECRET = "benchmark-secret-that-is-long-enough!";
+
+  private JwtService jwtService;
+  private SecretKey key;
+  private CustomUserDetails user;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtService = new JwtService();
+    ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+    jwtService.init();
+    key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+
+    Doctor doctor = new Doctor();
+    doctor.setEmail("doc@test.local");
+    doctor.setRole("DOCTOR");
+    user = new CustomUserDetails(doctor);
+    token = jwtService.generateToken(user);
+  }
+
+  private Claims legacyParse(String jwt) {
+    return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
+  }
+
+  @Benchmark
+  public String fourParses() {
+    String username = legacyParse(token).getSubject();
+    boolean valid = user.getUsername().equals(legacyParse(token).getSubject())
+        && legacyParse(token).getExpiration().after(new Date());
+    String role = legacyParse(token).get("role", String.class);
+    return valid ? username + role : null;
+  }
+
+  @Benchmark
+  public String singleParse() {
+    VerifiedToken verified = jwtService.verify(token);
+    return jwtService.isTokenValid(verified, user) ? verified.subject() + verified.role() : null;
+  }
+
+  @Test
+  @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+  void runBenchmarks() throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(JwtTokenPathBenchmarkTest.class.getSimpleName())
+        .build()).run();
+  }
+}
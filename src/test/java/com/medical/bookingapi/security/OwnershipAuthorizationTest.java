@@ -0,0 +1,164 @@
+package com.medical.bookingapi.security;
+
+import com.medical.bookingapi.model.Patient;
+import com.medical.bookingapi.repository.AppointmentParties;
+import com.medical.bookingapi.repository.AppointmentRepository;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+import com.medical.bookingapi.repository.AuthUserView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OwnershipAuthorizationTest {
+
+  @Mock AppointmentRepository appointmentRepository;
+  @Mock AppointmentSlotRepository slotRepository;
+
+  @InjectMocks OwnershipAuthorization ownership;
+
+  private static Authentication patient(long id) {
+    return new UsernamePasswordAuthenticationToken(
+        new JwtPrincipal(id, "pat" + id + "@test.local", "PATIENT", null, id), null,
+        AuthorityUtils.createAuthorityList("ROLE_PATIENT"));
+  }
+
+  private static Authentication doctor(long id) {
+    return new UsernamePasswordAuthenticationToken(
+        new JwtPrincipal(id, "doc" + id + "@test.local", "DOCTOR", id, null), null,
+        AuthorityUtils.createAuthorityList("ROLE_DOCTOR"));
+  }
+
+  private static Authentication admin() {
+    return new UsernamePasswordAuthenticationToken(
+        new JwtPrincipal(1L, "admin@test.local", "ADMIN", null, null), null,
+        AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+  }
+
+  private static RequestAuthorizationContext path(String name, String value) {
+    return new RequestAuthorizationContext(new MockHttpServletRequest(), Map.of(name, value));
+  }
+
+  private static boolean granted(AuthorizationManager<RequestAuthorizationContext> rule,
+                                 Authentication auth, RequestAuthorizationContext context) {
+    return rule.authorize(() -> auth, context).isGranted();
+  }
+
+  private static AppointmentParties parties(long patientId, long doctorId) {
+    return new AppointmentParties() {
+      @Override public Long getPatientId() { return patientId; }
+      @Override public Long getDoctorId() { return doctorId; }
+    };
+  }
+
+  @Test
+  void patientOrStaff_comparesTheQueryParameterWithThePrincipalsPatientId() {
+    var rule = ownership.patientOrStaff("patientId");
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setParameter("patientId", "7");
+    RequestAuthorizationContext context = new RequestAuthorizationContext(request);
+
+    assertTrue(granted(rule, patient(7), context));
+    assertFalse(granted(rule, patient(8), context));
+    assertTrue(granted(rule, doctor(3), context));
+    assertTrue(granted(rule, admin(), context));
+    assertFalse(granted(rule, new AnonymousAuthenticationToken("key", "anonymousUser",
+        AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")), context));
+    assertFalse(granted(rule, patient(7), new RequestAuthorizationContext(new MockHttpServletRequest())));
+    verifyNoInteractions(appointmentRepository, slotRepository);
+  }
+
+  @Test
+  void patientOrStaff_worksForLoginAndCachedUserDetailsToo() {
+    // CustomUserDetails used to expose no patient id, so #patientId == principal.patientId never matched it
+    Patient entity = new Patient();
+    entity.setId(7L);
+    entity.setRole("PATIENT");
+    Authentication login = new UsernamePasswordAuthenticationToken(new CustomUserDetails(entity), null,
+        AuthorityUtils.createAuthorityList("ROLE_PATIENT"));
+    Authentication cached = new UsernamePasswordAuthenticationToken(
+        new AuthUserDetails(new AuthUserView(7L, "pat7@test.local", "ROLE_PATIENT", "hash", true, "Pat", "Seven")), null,
+        AuthorityUtils.createAuthorityList("ROLE_PATIENT"));
+    var rule = ownership.patientOrStaff("patientId");
+
+    assertTrue(granted(rule, login, path("patientId", "7")));
+    assertTrue(granted(rule, cached, path("patientId", "7")));
+    assertFalse(granted(rule, cached, path("patientId", "8")));
+  }
+
+  @Test
+  void appointmentDoctor_onlyGrantsTheAppointmentsDoctor() {
+    when(appointmentRepository.findPartiesById(5L)).thenReturn(Optional.of(parties(7, 3)));
+    var rule = ownership.appointmentDoctor();
+
+    assertTrue(granted(rule, doctor(3), path("id", "5")));
+    assertFalse(granted(rule, doctor(4), path("id", "5")));
+    assertFalse(granted(rule, patient(7), path("id", "5")));
+    assertTrue(granted(rule, admin(), path("id", "5")));
+  }
+
+  @Test
+  void appointmentParty_grantsItsPatientAndDoctor_andLetsMissingRowsThrough() {
+    when(appointmentRepository.findPartiesById(5L)).thenReturn(Optional.of(parties(7, 3)));
+    when(appointmentRepository.findPartiesById(6L)).thenReturn(Optional.empty());
+    var rule = ownership.appointmentParty();
+
+    assertTrue(granted(rule, patient(7), path("id", "5")));
+    assertTrue(granted(rule, doctor(3), path("id", "5")));
+    assertFalse(granted(rule, patient(8), path("id", "5")));
+    assertFalse(granted(rule, doctor(4), path("id", "5")));
+    // the controller answers 404 / 400
+    assertTrue(granted(rule, patient(8), path("id", "6")));
+    assertTrue(granted(rule, patient(8), path("id", "abc")));
+  }
+
+  @Test
+  void slotParty_looksUpTheAppointmentBookedOnTheSlot() {
+    when(appointmentRepository.findPartiesBySlotId(11L)).thenReturn(Optional.of(parties(7, 3)));
+    var rule = ownership.slotParty();
+
+    assertTrue(granted(rule, patient(7), path("slotId", "11")));
+    assertFalse(granted(rule, patient(8), path("slotId", "11")));
+    assertTrue(granted(rule, doctor(3), path("slotId", "11")));
+  }
+
+  @Test
+  void slotDoctor_onlyGrantsTheOwningDoctor() {
+    when(slotRepository.findDoctorIdById(11L)).thenReturn(Optional.of(3L));
+    var rule = ownership.slotDoctor();
+
+    assertTrue(granted(rule, doctor(3), path("id", "11")));
+    assertFalse(granted(rule, doctor(4), path("id", "11")));
+    assertFalse(granted(rule, patient(7), path("id", "11")));
+    assertTrue(granted(rule, admin(), path("id", "11")));
+    verify(slotRepository, times(2)).findDoctorIdById(11L);
+  }
+
+  @Test
+  void slotDoctor_withTheStartTime_readsTheOwnerFromThatPartition() {
+    var start = LocalDateTime.parse("2030-01-07T09:00:00");
+    when(slotRepository.findDoctorIdByIdAndStartTime(11L, start)).thenReturn(Optional.of(3L));
+    var rule = ownership.slotDoctor();
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setParameter("startTime", "2030-01-07T09:00:00");
+    assertTrue(granted(rule, doctor(3), new RequestAuthorizationContext(request, Map.of("id", "11"))));
+    verify(slotRepository, never()).findDoctorIdById(any());
+  }
+}
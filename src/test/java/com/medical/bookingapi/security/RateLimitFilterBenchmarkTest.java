@@ -0,0 +1,89 @@
+package com.medical.bookingapi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH cost of RateLimitFilter on a request that stays under its limit, against the same request
+ * through an empty chain. Four threads hit the limiter from 1000 client addresses, so buckets are
+ * shared and CAS retries show up in the numbers. The route's capacity is high enough that nothing is
+ * ever rejected. Opt-in: {@code mvn test -Dbenchmarks=true -Dtest=RateLimitFilterBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class RateLimitFilterBenchmarkTest {
+
+  private static final int CLIENTS = 1_000;
+  private static final FilterChain NOOP = (request, response) -> { };
+
+  private RateLimitFilter filter;
+
+  @Setup
+  public void setUp() {
+    RateLimitProperties.Route route = new RateLimitProperties.Route();
+    route.setPattern("/api/appointmentSlots/available");
+    route.setMethod("GET");
+    route.setCapacity(Integer.MAX_VALUE);
+    route.setPeriod(Duration.ofSeconds(1));
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setRoutes(List.of(route));
+    filter = new RateLimitFilter(properties, new SimpleMeterRegistry());
+  }
+
+  private static MockHttpServletRequest request() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/appointmentSlots/available");
+    request.setRemoteAddr("10.0." + ThreadLocalRandom.current().nextInt(CLIENTS) / 250 + "."
+        + ThreadLocalRandom.current().nextInt(250));
+    return request;
+  }
+
+  @Benchmark
+  public MockHttpServletResponse baseline() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    NOOP.doFilter(request(), response);
+    return response;
+  }
+
+  @Benchmark
+  public MockHttpServletResponse rateLimited() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request(), response, NOOP);
+    return response;
+  }
+
+  @Test
+  @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+  void runBenchmarks() throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(RateLimitFilterBenchmarkTest.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,151 @@
+package com.medical.bookingapi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+  SimpleMeterRegistry meterRegistry;
+  AtomicLong now;
+  RateLimitFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    now = new AtomicLong(1_000_000_000L);
+    filter = new RateLimitFilter(properties(true), meterRegistry, now::get);
+  }
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static RateLimitProperties properties(boolean enabled) {
+    RateLimitProperties.Route login = new RateLimitProperties.Route();
+    login.setPattern("/api/auth/login");
+    login.setMethod("POST");
+    login.setCapacity(3);
+    login.setPeriod(Duration.ofSeconds(3));
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setEnabled(enabled);
+    properties.setRoutes(List.of(login));
+    return properties;
+  }
+
+  private static MockHttpServletRequest login(String address) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+    request.setRemoteAddr(address);
+    return request;
+  }
+
+  private MockHttpServletResponse call(MockHttpServletRequest request) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain());
+    return response;
+  }
+
+  @Test
+  void allowsABurstOfCapacity_thenRejectsWith429_andRefillsOverThePeriod() throws Exception {
+    for (int remaining = 2; remaining >= 0; remaining--) {
+      MockHttpServletResponse ok = call(login("10.0.0.1"));
+      assertEquals(200, ok.getStatus());
+      assertEquals("3", ok.getHeader(RateLimitFilter.LIMIT));
+      assertEquals(String.valueOf(remaining), ok.getHeader(RateLimitFilter.REMAINING));
+    }
+
+    MockHttpServletResponse rejected = call(login("10.0.0.1"));
+    assertEquals(429, rejected.getStatus());
+    assertEquals("0", rejected.getHeader(RateLimitFilter.REMAINING));
+    assertEquals("1", rejected.getHeader("Retry-After"));
+    assertEquals("3", rejected.getHeader(RateLimitFilter.RESET));
+    assertEquals(1.0, meterRegistry.get("booking.ratelimit.rejected").counter().count());
+
+    // one token per second comes back
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    MockHttpServletResponse refilled = call(login("10.0.0.1"));
+    assertEquals(200, refilled.getStatus());
+    assertEquals("0", refilled.getHeader(RateLimitFilter.REMAINING));
+  }
+
+  @Test
+  void clientsHaveSeparateBuckets_keyedByUserWhenAuthenticated() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      call(login("10.0.0.1"));
+    }
+    assertEquals(429, call(login("10.0.0.1")).getStatus());
+    assertEquals(200, call(login("10.0.0.2")).getStatus());
+
+    // same address, but an authenticated user gets their own bucket
+    JwtPrincipal principal = new JwtPrincipal(7L, "pat@test.local", "PATIENT", null, 7L);
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    assertEquals(200, call(login("10.0.0.1")).getStatus());
+  }
+
+  @Test
+  void otherRoutesAndMethods_areNotLimited_andCarryNoHeaders() throws Exception {
+    MockHttpServletRequest get = new MockHttpServletRequest("GET", "/api/auth/login");
+    MockHttpServletRequest other = new MockHttpServletRequest("POST", "/api/appointments");
+
+    for (int i = 0; i < 10; i++) {
+      MockHttpServletResponse r1 = call(get);
+      MockHttpServletResponse r2 = call(other);
+      assertEquals(200, r1.getStatus());
+      assertEquals(200, r2.getStatus());
+      assertNull(r2.getHeader(RateLimitFilter.LIMIT));
+    }
+  }
+
+  @Test
+  void disabled_letsEverythingThrough() throws Exception {
+    filter = new RateLimitFilter(properties(false), meterRegistry, now::get);
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(200, call(login("10.0.0.1")).getStatus());
+    }
+  }
+
+  @Test
+  void acquire_underContention_grantsExactlyTheCapacity() throws Exception {
+    long interval = 1_000;
+    long burst = interval * 100;
+    AtomicLong bucket = new AtomicLong(0);
+    AtomicInteger granted = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      for (int t = 0; t < 8; t++) {
+        pool.submit(() -> {
+          for (int i = 0; i < 1_000; i++) {
+            if (RateLimitFilter.acquire(bucket, 0, interval, burst) > 0) {
+              granted.incrementAndGet();
+            }
+          }
+        });
+      }
+    } finally {
+      pool.shutdown();
+      assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    // the clock does not move, so the bucket never refills
+    assertEquals(100, granted.get());
+  }
+}
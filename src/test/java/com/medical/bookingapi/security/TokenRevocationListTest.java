@@ -0,0 +1,161 @@
+package com.medical.bookingapi.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+  @Mock JdbcTemplate jdbcTemplate;
+  @Mock JwtService jwtService;
+
+  TokenRevocationList revocations;
+
+  @BeforeEach
+  void setUp() {
+    when(jwtService.tokenLifetime()).thenReturn(Duration.ofHours(10));
+    revocations = new TokenRevocationList(jdbcTemplate, jwtService, Duration.ofHours(1));
+  }
+
+  private static VerifiedToken token(long userId, String jti, Instant issuedAt) {
+    return new VerifiedToken("user" + userId + "@test.local", "PATIENT", userId, null, userId, jti,
+        issuedAt, issuedAt.plus(Duration.ofHours(10)));
+  }
+
+  // a revoked_token row as the database would return it
+  private static ResultSet row(long userId, String jti, Instant revokedAt) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getLong("user_id")).thenReturn(userId);
+    when(rs.getString("jti")).thenReturn(jti);
+    lenient().when(rs.getTimestamp("revoked_at")).thenReturn(Timestamp.from(revokedAt));
+    return rs;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> mapAll(RowMapper<?> mapper, ResultSet... rows) throws SQLException {
+    List<Object> out = new ArrayList<>();
+    for (ResultSet rs : rows) {
+      out.add(((RowMapper<Object>) mapper).mapRow(rs, out.size()));
+    }
+    return out;
+  }
+
+  @Test
+  void tokensOfUsersWithoutRevocations_areAccepted_withoutTouchingTheDatabase() {
+    assertFalse(revocations.isRevoked(token(1L, "a", Instant.now())));
+    assertFalse(revocations.isRevoked(new VerifiedToken("legacy@test.local", "PATIENT", null, null, null,
+        null, null, Instant.now().plusSeconds(60))));
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void revokeAllFor_rejectsTokensIssuedBefore_butNotLaterOnesOrOtherUsers() {
+    Instant before = Instant.now().minusSeconds(5);
+
+    revocations.revokeAllFor(7L);
+
+    verify(jdbcTemplate).update(startsWith("insert into revoked_token (user_id, revoked_at, expires_at)"),
+        eq(7L), any(Timestamp.class), any(Timestamp.class));
+    assertTrue(revocations.isRevoked(token(7L, "a", before)));
+    assertFalse(revocations.isRevoked(token(7L, "b", Instant.now().plusSeconds(5))));
+    assertFalse(revocations.isRevoked(token(8L, "c", before)));
+  }
+
+  @Test
+  void revoke_rejectsOnlyThatToken() {
+    VerifiedToken revoked = token(7L, "a", Instant.now());
+
+    revocations.revoke(revoked);
+
+    verify(jdbcTemplate).update(contains("on conflict (jti) do nothing"),
+        eq(7L), eq("a"), any(Timestamp.class), any(Timestamp.class));
+    assertTrue(revocations.isRevoked(revoked));
+    assertFalse(revocations.isRevoked(token(7L, "b", Instant.now())));
+  }
+
+  @Test
+  void revoke_refusesTokensWithoutJti() {
+    VerifiedToken noJti = new VerifiedToken("u@test.local", "PATIENT", 7L, null, 7L, null,
+        Instant.now(), Instant.now().plusSeconds(60));
+
+    assertThrows(IllegalArgumentException.class, () -> revocations.revoke(noJti));
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void refresh_rebuildsFromTheTableFirst_thenOnlyPollsNewerRows() throws Exception {
+    Instant revokedAt = Instant.now();
+    when(jdbcTemplate.queryForObject("select now()", Timestamp.class)).thenReturn(Timestamp.from(revokedAt));
+    ResultSet userRow = row(7L, null, revokedAt);
+    ResultSet jtiRow = row(9L, "x", revokedAt);
+    when(jdbcTemplate.query(eq("select user_id, jti, revoked_at from revoked_token"), any(RowMapper.class)))
+        .thenAnswer(inv -> mapAll(inv.getArgument(1), userRow));
+    when(jdbcTemplate.query(startsWith("select user_id, jti, revoked_at from revoked_token where revoked_at > ?"),
+        any(RowMapper.class), any()))
+        .thenAnswer(inv -> mapAll(inv.getArgument(1), jtiRow));
+
+    revocations.refresh();
+
+    verify(jdbcTemplate).update("delete from revoked_token where expires_at < now()");
+    assertTrue(revocations.isRevoked(token(7L, "a", revokedAt.minusSeconds(1))));
+    assertFalse(revocations.isRevoked(token(9L, "x", revokedAt)));
+
+    revocations.refresh();
+
+    // the poll looks back past the previous one for transactions that committed late
+    verify(jdbcTemplate).query(startsWith("select user_id, jti, revoked_at from revoked_token where revoked_at > ?"),
+        any(RowMapper.class), eq(Timestamp.from(revokedAt.minus(TokenRevocationList.POLL_OVERLAP))));
+    verify(jdbcTemplate, times(1)).update("delete from revoked_token where expires_at < now()");
+    assertTrue(revocations.isRevoked(token(9L, "x", revokedAt)));
+    assertTrue(revocations.isRevoked(token(7L, "a", revokedAt.minusSeconds(1))));
+  }
+
+  @Test
+  void refresh_keepsTheCurrentEntries_whenTheDatabaseIsDown() {
+    revocations.revokeAllFor(7L);
+    when(jdbcTemplate.update("delete from revoked_token where expires_at < now()"))
+        .thenThrow(new DataAccessResourceFailureException("down"));
+
+    revocations.refresh();
+
+    assertTrue(revocations.isRevoked(token(7L, "a", Instant.now().minusSeconds(5))));
+  }
+
+  @Test
+  void bloomFilter_hasNoFalseNegatives_andAboutTheConfiguredFalsePositiveRate() {
+    LongBloomFilter filter = new LongBloomFilter(10_000, TokenRevocationList.FALSE_POSITIVE_RATE);
+    for (long id = 1; id <= 10_000; id++) {
+      filter.put(id);
+    }
+
+    int falsePositives = 0;
+    for (long id = 1; id <= 10_000; id++) {
+      assertTrue(filter.mightContain(id));
+      if (filter.mightContain(1_000_000 + id)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+  }
+}
@@ -35,12 +35,15 @@ class AppointmentServiceTest {
   private static final Long DOCTOR_ID = 10L;
   private static final Long PATIENT_ID = 20L;
   private static final Long SLOT_ID   = 30L;
+  private static final LocalDateTime SLOT_START = LocalDateTime.of(2030, 1, 7, 9, 0);
 
   @Mock DoctorRepository doctorRepository;
   @Mock PatientRepository patientRepository;
   @Mock AppointmentSlotRepository slotRepository;
   @Mock AppointmentRepository appointmentRepository;
   @Mock AppointmentMapper appointmentMapper;
+  @Mock AvailabilityIndex availabilityIndex;
+  @Mock BookingCaches bookingCaches;
 
   @InjectMocks AppointmentServiceImpl service;
 
@@ -78,70 +81,67 @@ class AppointmentServiceTest {
   // ---------- Reads ----------
 
   @Test
-  void findByDoctorId_returnsMappedList() {
-    when(doctorRepository.findById(7L)).thenReturn(Optional.of(doctor));
-    when(appointmentRepository.findByDoctor(doctor)).thenReturn(List.of(appt));
-    when(appointmentMapper.toDto(appt)).thenReturn(dtoMapped);
+  void findByDoctorId_returnsProjectedList() {
+    when(doctorRepository.existsById(7L)).thenReturn(true);
+    when(appointmentRepository.findDtosByDoctorId(7L)).thenReturn(List.of(dtoMapped));
 
     var result = service.findByDoctorId(7L);
 
     assertEquals(1, result.size());
     assertSame(dtoMapped, result.get(0));
-    verify(doctorRepository).findById(7L);
-    verify(appointmentRepository).findByDoctor(doctor);
-    verify(appointmentMapper).toDto(appt);
+    verify(doctorRepository).existsById(7L);
+    verify(appointmentRepository).findDtosByDoctorId(7L);
+    verifyNoInteractions(appointmentMapper);
   }
 
   @Test
   void findByDoctorId_throwsWhenDoctorMissing() {
-    when(doctorRepository.findById(9L)).thenReturn(Optional.empty());
+    when(doctorRepository.existsById(9L)).thenReturn(false);
     var ex = assertThrows(EntityNotFoundException.class, () -> service.findByDoctorId(9L));
     assertEquals("Doctor not found", ex.getMessage());
+    verifyNoInteractions(appointmentRepository);
   }
 
   @Test
-  void findByPatientId_returnsMappedList() {
-    when(patientRepository.findById(3L)).thenReturn(Optional.of(patient));
-    when(appointmentRepository.findByPatient(patient)).thenReturn(List.of(appt));
-    when(appointmentMapper.toDto(appt)).thenReturn(dtoMapped);
+  void findByPatientId_returnsProjectedList() {
+    when(patientRepository.existsById(3L)).thenReturn(true);
+    when(appointmentRepository.findDtosByPatientId(3L)).thenReturn(List.of(dtoMapped));
 
     var result = service.findByPatientId(3L);
 
     assertEquals(1, result.size());
-    verify(patientRepository).findById(3L);
-    verify(appointmentRepository).findByPatient(patient);
+    verify(patientRepository).existsById(3L);
+    verify(appointmentRepository).findDtosByPatientId(3L);
   }
 
   @Test
-  void findBySlotId_returnsOptionalMapped() {
-    when(slotRepository.findById(100L)).thenReturn(Optional.of(slot));
-    when(appointmentRepository.findBySlot(slot)).thenReturn(Optional.of(appt));
-    when(appointmentMapper.toDto(appt)).thenReturn(dtoMapped);
+  void findBySlotId_returnsOptionalProjection() {
+    when(slotRepository.existsById(100L)).thenReturn(true);
+    when(appointmentRepository.findDtoBySlotId(100L)).thenReturn(Optional.of(dtoMapped));
 
     var result = service.findBySlotId(100L);
 
     assertTrue(result.isPresent());
     assertSame(dtoMapped, result.get());
-    verify(slotRepository).findById(100L);
-    verify(appointmentRepository).findBySlot(slot);
+    verify(slotRepository).existsById(100L);
+    verify(appointmentRepository).findDtoBySlotId(100L);
   }
 
   @Test
   void findBySlotId_throwsWhenSlotMissing() {
-    when(slotRepository.findById(111L)).thenReturn(Optional.empty());
+    when(slotRepository.existsById(111L)).thenReturn(false);
     var ex = assertThrows(EntityNotFoundException.class, () -> service.findBySlotId(111L));
     assertEquals("Slot not found", ex.getMessage());
   }
 
   @Test
-  void findByStatus_returnsMappedList() {
-    when(appointmentRepository.findByStatus("BOOKED")).thenReturn(List.of(appt));
-    when(appointmentMapper.toDto(appt)).thenReturn(dtoMapped);
+  void findByStatus_returnsProjectedList() {
+    when(appointmentRepository.findDtosByStatus("BOOKED")).thenReturn(List.of(dtoMapped));
 
     var result = service.findByStatus("BOOKED");
 
     assertEquals(1, result.size());
-    verify(appointmentRepository).findByStatus("BOOKED");
+    verify(appointmentRepository).findDtosByStatus("BOOKED");
   }
 
   @Test
@@ -152,25 +152,21 @@ class AppointmentServiceTest {
   }
 
   @Test
-  void findByDoctorAndStatus_returnsMappedList() {
-    when(doctorRepository.findById(7L)).thenReturn(Optional.of(doctor));
-    when(appointmentRepository.findByDoctorAndStatus(doctor, "BOOKED")).thenReturn(List.of(appt));
-    when(appointmentMapper.toDto(appt)).thenReturn(dtoMapped);
+  void findByDoctorAndStatus_returnsProjectedList() {
+    when(doctorRepository.existsById(7L)).thenReturn(true);
+    when(appointmentRepository.findDtosByDoctorIdAndStatus(7L, "BOOKED")).thenReturn(List.of(dtoMapped));
 
     var result = service.findByDoctorAndStatus(7L, "BOOKED");
 
     assertEquals(1, result.size());
-    verify(doctorRepository).findById(7L);
-    verify(appointmentRepository).findByDoctorAndStatus(doctor, "BOOKED");
+    verify(doctorRepository).existsById(7L);
+    verify(appointmentRepository).findDtosByDoctorIdAndStatus(7L, "BOOKED");
   }
 
   // ---------- Create (book) ----------
   @Test
-  void bookAppointment_mapsEntity_setsRelations_andSaves() {
-    AppointmentCreateDTO create = new AppointmentCreateDTO();
-    trySet(create, "doctorId", DOCTOR_ID);
-    trySet(create, "patientId", PATIENT_ID);
-    trySet(create, "slotId", SLOT_ID);
+  void bookAppointment_claimsSlot_setsRelations_andSaves() {
+    AppointmentCreateDTO create = bookingRequest();
 
     Doctor doctor = new Doctor(); doctor.setId(DOCTOR_ID);
     Patient patient = new Patient(); patient.setId(PATIENT_ID);
@@ -178,12 +174,14 @@ class AppointmentServiceTest {
     AppointmentSlot slot = new AppointmentSlot();
     slot.setId(SLOT_ID);
     slot.setDoctor(doctor); // IMPORTANT: slot belongs to the same doctor
+    slot.setStartTime(SLOT_START);
+    slot.setEndTime(SLOT_START.plusMinutes(30));
 
-    when(doctorRepository.findById(DOCTOR_ID)).thenReturn(Optional.of(doctor));
-    when(patientRepository.findById(PATIENT_ID)).thenReturn(Optional.of(patient));
-    when(slotRepository.findById(SLOT_ID)).thenReturn(Optional.of(slot));
+    when(slotRepository.claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID)).thenReturn(1);
+    when(slotRepository.findWithDoctorByIdAndStartTime(SLOT_ID, SLOT_START)).thenReturn(Optional.of(slot));
+    when(patientRepository.getReferenceById(PATIENT_ID)).thenReturn(patient);
 
-    when(appointmentRepository.save(any())).thenAnswer(inv -> {
+    when(appointmentRepository.saveAndFlush(any())).thenAnswer(inv -> {
       Appointment a = inv.getArgument(0);
       a.setId(999L);
       return a;
@@ -197,67 +195,163 @@ class AppointmentServiceTest {
     service.bookAppointment(create);
 
     ArgumentCaptor<Appointment> captor = ArgumentCaptor.forClass(Appointment.class);
-    verify(appointmentRepository, times(1)).save(captor.capture());
+    verify(appointmentRepository, times(1)).saveAndFlush(captor.capture());
     Appointment saved = captor.getValue();
 
     assertNotNull(saved.getId());
+    assertEquals("PENDING", saved.getStatus());
     assertEquals(DOCTOR_ID, saved.getDoctor().getId());
     assertEquals(PATIENT_ID, saved.getPatient().getId());
     assertEquals(SLOT_ID, saved.getSlot().getId());
+
+    // The claim replaces the old read-check-write sequence: no lookups, no second slot save
+    verifyNoInteractions(doctorRepository);
+    verify(slotRepository, never()).findStartTimeById(any());
+    verify(appointmentRepository, never()).existsBySlot(any());
+    verify(slotRepository, never()).save(any());
+    // no surrounding transaction in a unit test, so the after-commit hook runs straight away
+    verify(availabilityIndex).markUnavailable(DOCTOR_ID, slot.getStartTime(), slot.getEndTime());
+    verify(bookingCaches).evictDoctorSlots(DOCTOR_ID);
+  }
+
+  @Test
+  void bookAppointment_withoutTheSlotStartTime_looksItUpFirst() {
+    AppointmentCreateDTO create = bookingRequest();
+    create.setSlotStartTime(null);
+
+    Doctor doctor = new Doctor(); doctor.setId(DOCTOR_ID);
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setId(SLOT_ID);
+    slot.setDoctor(doctor);
+    slot.setStartTime(SLOT_START);
+    slot.setEndTime(SLOT_START.plusMinutes(30));
+
+    when(slotRepository.findStartTimeById(SLOT_ID)).thenReturn(Optional.of(SLOT_START));
+    when(slotRepository.claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID)).thenReturn(1);
+    when(slotRepository.findWithDoctorByIdAndStartTime(SLOT_ID, SLOT_START)).thenReturn(Optional.of(slot));
+    when(patientRepository.getReferenceById(PATIENT_ID)).thenReturn(new Patient());
+    when(appointmentMapper.toEntity(any(AppointmentCreateDTO.class))).thenReturn(new Appointment());
+    when(appointmentRepository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+
+    service.bookAppointment(create);
+
+    verify(slotRepository).claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID);
+  }
+
+  @Test
+  void bookAppointment_withoutTheSlotStartTime_throwsWhenSlotMissing() {
+    AppointmentCreateDTO create = bookingRequest();
+    create.setSlotStartTime(null);
+
+    when(slotRepository.findStartTimeById(SLOT_ID)).thenReturn(Optional.empty());
+
+    var ex = assertThrows(EntityNotFoundException.class, () -> service.bookAppointment(create));
+    assertEquals("Slot not found", ex.getMessage());
+
+    verify(slotRepository, never()).claimSlot(any(), any(), any(), any());
+  }
+
+  @Test
+  void bookAppointment_conflictWhenSlotAlreadyClaimed() {
+    AppointmentCreateDTO create = bookingRequest();
+
+    Doctor doctor = new Doctor(); doctor.setId(DOCTOR_ID);
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setId(SLOT_ID);
+    slot.setDoctor(doctor);
+    slot.setBooked(true);
+
+    when(slotRepository.claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID)).thenReturn(0);
+    when(doctorRepository.existsById(DOCTOR_ID)).thenReturn(true);
+    when(patientRepository.existsById(PATIENT_ID)).thenReturn(true);
+    when(slotRepository.findByIdAndStartTime(SLOT_ID, SLOT_START)).thenReturn(Optional.of(slot));
+
+    var ex = assertThrows(ResponseStatusException.class, () -> service.bookAppointment(create));
+    assertEquals(409, ex.getStatusCode().value());
+
+    verify(appointmentRepository, never()).saveAndFlush(any());
+  }
+
+  @Test
+  void bookAppointment_rejectsSlotOfAnotherDoctor() {
+    AppointmentCreateDTO create = bookingRequest();
+
+    Doctor other = new Doctor(); other.setId(DOCTOR_ID + 1);
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setId(SLOT_ID);
+    slot.setDoctor(other);
+
+    when(slotRepository.claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID)).thenReturn(0);
+    when(doctorRepository.existsById(DOCTOR_ID)).thenReturn(true);
+    when(patientRepository.existsById(PATIENT_ID)).thenReturn(true);
+    when(slotRepository.findByIdAndStartTime(SLOT_ID, SLOT_START)).thenReturn(Optional.of(slot));
+
+    var ex = assertThrows(ResponseStatusException.class, () -> service.bookAppointment(create));
+    assertEquals(400, ex.getStatusCode().value());
+
+    verify(appointmentRepository, never()).saveAndFlush(any());
+  }
+
+  @Test
+  void bookAppointment_conflictWhenSlotStillReferencedByOldAppointment() {
+    AppointmentCreateDTO create = bookingRequest();
+
+    Doctor doctor = new Doctor(); doctor.setId(DOCTOR_ID);
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setId(SLOT_ID);
+    slot.setDoctor(doctor);
+
+    when(slotRepository.claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID)).thenReturn(1);
+    when(slotRepository.findWithDoctorByIdAndStartTime(SLOT_ID, SLOT_START)).thenReturn(Optional.of(slot));
+    when(patientRepository.getReferenceById(PATIENT_ID)).thenReturn(new Patient());
+    when(appointmentMapper.toEntity(any(AppointmentCreateDTO.class))).thenReturn(new Appointment());
+    when(appointmentRepository.saveAndFlush(any()))
+        .thenThrow(new org.springframework.dao.DataIntegrityViolationException("uk_slot_id"));
+
+    var ex = assertThrows(ResponseStatusException.class, () -> service.bookAppointment(create));
+    assertEquals(409, ex.getStatusCode().value());
   }
 
   @Test
   void bookAppointment_throwsWhenDoctorMissing() {
-    AppointmentCreateDTO create = new AppointmentCreateDTO();
-    trySet(create, "doctorId", DOCTOR_ID);
-    trySet(create, "patientId", PATIENT_ID);
-    trySet(create, "slotId", SLOT_ID);
+    AppointmentCreateDTO create = bookingRequest();
 
-    // Only stub what's needed for this path
-    when(doctorRepository.findById(DOCTOR_ID)).thenReturn(Optional.empty());
+    when(slotRepository.claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID)).thenReturn(0);
+    when(doctorRepository.existsById(DOCTOR_ID)).thenReturn(false);
 
     var ex = assertThrows(EntityNotFoundException.class, () -> service.bookAppointment(create));
     assertEquals("Doctor not found", ex.getMessage());
 
-    verifyNoInteractions(patientRepository, slotRepository, appointmentRepository);
+    verifyNoInteractions(patientRepository, appointmentRepository);
   }
 
   @Test
   void bookAppointment_throwsWhenPatientMissing() {
-    AppointmentCreateDTO create = new AppointmentCreateDTO();
-    trySet(create, "doctorId", DOCTOR_ID);
-    trySet(create, "patientId", PATIENT_ID);
-    trySet(create, "slotId", SLOT_ID);
+    AppointmentCreateDTO create = bookingRequest();
 
-    Doctor doctor = new Doctor(); doctor.setId(DOCTOR_ID);
-
-    when(doctorRepository.findById(DOCTOR_ID)).thenReturn(Optional.of(doctor));
-    when(patientRepository.findById(PATIENT_ID)).thenReturn(Optional.empty());
+    when(slotRepository.claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID)).thenReturn(0);
+    when(doctorRepository.existsById(DOCTOR_ID)).thenReturn(true);
+    when(patientRepository.existsById(PATIENT_ID)).thenReturn(false);
 
     var ex = assertThrows(EntityNotFoundException.class, () -> service.bookAppointment(create));
     assertEquals("Patient not found", ex.getMessage());
 
-    verifyNoInteractions(slotRepository, appointmentRepository);
+    verifyNoInteractions(appointmentRepository);
   }
 
   @Test
   void bookAppointment_throwsWhenSlotMissing() {
-    AppointmentCreateDTO create = new AppointmentCreateDTO();
-    trySet(create, "doctorId", DOCTOR_ID);
-    trySet(create, "patientId", PATIENT_ID);
-    trySet(create, "slotId", SLOT_ID);
+    AppointmentCreateDTO create = bookingRequest();
 
-    Doctor doctor = new Doctor(); doctor.setId(DOCTOR_ID);
-    Patient patient = new Patient(); patient.setId(PATIENT_ID);
-
-    when(doctorRepository.findById(DOCTOR_ID)).thenReturn(Optional.of(doctor));
-    when(patientRepository.findById(PATIENT_ID)).thenReturn(Optional.of(patient));
-    when(slotRepository.findById(SLOT_ID)).thenReturn(Optional.empty());
+    when(slotRepository.claimSlot(SLOT_ID, SLOT_START, DOCTOR_ID, PATIENT_ID)).thenReturn(0);
+    when(doctorRepository.existsById(DOCTOR_ID)).thenReturn(true);
+    when(patientRepository.existsById(PATIENT_ID)).thenReturn(true);
+    when(slotRepository.findByIdAndStartTime(SLOT_ID, SLOT_START)).thenReturn(Optional.empty());
 
     var ex = assertThrows(EntityNotFoundException.class, () -> service.bookAppointment(create));
     assertEquals("Slot not found", ex.getMessage());
 
-    verify(appointmentRepository, never()).save(any());
+    verify(appointmentRepository, never()).saveAndFlush(any());
   }
 
   // ---------- Update status ----------
@@ -270,7 +364,7 @@ class AppointmentServiceTest {
     appt.setId(apptId);
     appt.setStatus("BOOKED");
 
-    when(appointmentRepository.findById(apptId)).thenReturn(Optional.of(appt));
+    when(appointmentRepository.findWithPartiesAndSlotById(apptId)).thenReturn(Optional.of(appt));
 
     var ex = assertThrows(ResponseStatusException.class,
         () -> service.updateStatus(apptId, "CANCELLED"));
@@ -279,9 +373,37 @@ class AppointmentServiceTest {
     verify(appointmentRepository, never()).save(any());
   }
 
+  @Test
+  void updateStatus_cancelFreesSlot_butKeepsItOutOfAvailabilityIndex() {
+    Doctor doctor = new Doctor(); doctor.setId(DOCTOR_ID);
+    AppointmentSlot slot = new AppointmentSlot();
+    slot.setId(SLOT_ID);
+    slot.setDoctor(doctor);
+    slot.setBooked(true);
+    slot.setStartTime(LocalDateTime.of(2030, 1, 7, 9, 0));
+    slot.setEndTime(LocalDateTime.of(2030, 1, 7, 9, 30));
+
+    Appointment appt = new Appointment();
+    appt.setId(43L);
+    appt.setStatus("PENDING");
+    appt.setSlot(slot);
+
+    when(appointmentRepository.findWithPartiesAndSlotById(43L)).thenReturn(Optional.of(appt));
+    when(appointmentRepository.save(appt)).thenReturn(appt);
+    when(appointmentMapper.toDto(appt)).thenReturn(new AppointmentDTO());
+
+    service.updateStatus(43L, "cancelled");
+
+    assertFalse(slot.isBooked());
+    verify(slotRepository).save(slot);
+    // the cancelled appointment still holds slot_id, so the slot cannot be booked again
+    verify(availabilityIndex, never()).markFree(any(), any(), any());
+    verify(bookingCaches).evictDoctorSlots(DOCTOR_ID);
+  }
+
   @Test
   void updateStatus_throwsWhenMissing() {
-      when(appointmentRepository.findById(999L)).thenReturn(Optional.empty());
+      when(appointmentRepository.findWithPartiesAndSlotById(999L)).thenReturn(Optional.empty());
       var ex = assertThrows(EntityNotFoundException.class,
               () -> service.updateStatus(999L, "CANCELLED"));
       assertEquals("Appointment not found with ID: 999", ex.getMessage());
@@ -308,6 +430,15 @@ class AppointmentServiceTest {
     verify(appointmentRepository, never()).deleteById(anyLong());
   }
 
+  private static AppointmentCreateDTO bookingRequest() {
+    AppointmentCreateDTO create = new AppointmentCreateDTO();
+    trySet(create, "doctorId", DOCTOR_ID);
+    trySet(create, "patientId", PATIENT_ID);
+    trySet(create, "slotId", SLOT_ID);
+    trySet(create, "slotStartTime", SLOT_START);
+    return create;
+  }
+
   // helper: tolerate DTOs without setters/builders
   private static void trySet(Object target, String field, Object value) {
     try {
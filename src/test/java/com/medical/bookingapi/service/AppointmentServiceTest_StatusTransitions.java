@@ -38,7 +38,7 @@ class AppointmentServiceTest_StatusTransitions {
   @Test
   void updateStatus_pendingToConfirmed_ok() {
     Appointment a = appointmentWithStatus(1L, "PENDING");
-    when(appointmentRepository.findById(1L)).thenReturn(Optional.of(a));
+    when(appointmentRepository.findWithPartiesAndSlotById(1L)).thenReturn(Optional.of(a));
     when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
     AppointmentDTO out = new AppointmentDTO();
     when(appointmentMapper.toDto(any(Appointment.class))).thenReturn(out);
@@ -54,7 +54,7 @@ class AppointmentServiceTest_StatusTransitions {
   @Test
   void updateStatus_pendingToCancelled_ok() {
     Appointment a = appointmentWithStatus(2L, "PENDING");
-    when(appointmentRepository.findById(2L)).thenReturn(Optional.of(a));
+    when(appointmentRepository.findWithPartiesAndSlotById(2L)).thenReturn(Optional.of(a));
     when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
     when(appointmentMapper.toDto(any(Appointment.class))).thenReturn(new AppointmentDTO());
 
@@ -69,7 +69,7 @@ class AppointmentServiceTest_StatusTransitions {
   @Test
   void updateStatus_confirmedToCancelled_ok() {
     Appointment a = appointmentWithStatus(3L, "CONFIRMED");
-    when(appointmentRepository.findById(3L)).thenReturn(Optional.of(a));
+    when(appointmentRepository.findWithPartiesAndSlotById(3L)).thenReturn(Optional.of(a));
     when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
     when(appointmentMapper.toDto(any(Appointment.class))).thenReturn(new AppointmentDTO());
 
@@ -83,7 +83,7 @@ class AppointmentServiceTest_StatusTransitions {
   @Test
   void updateStatus_confirmedToPending_rejected() {
     Appointment a = appointmentWithStatus(4L, "CONFIRMED");
-    when(appointmentRepository.findById(4L)).thenReturn(Optional.of(a));
+    when(appointmentRepository.findWithPartiesAndSlotById(4L)).thenReturn(Optional.of(a));
 
     IllegalStateException ex =
         assertThrows(IllegalStateException.class, () -> service.updateStatus(4L, "PENDING"));
@@ -95,7 +95,7 @@ class AppointmentServiceTest_StatusTransitions {
   @Test
   void updateStatus_cancelledToAnything_rejected() {
     Appointment a = appointmentWithStatus(5L, "CANCELLED");
-    when(appointmentRepository.findById(5L)).thenReturn(Optional.of(a));
+    when(appointmentRepository.findWithPartiesAndSlotById(5L)).thenReturn(Optional.of(a));
 
     IllegalStateException ex =
         assertThrows(IllegalStateException.class, () -> service.updateStatus(5L, "CONFIRMED"));
@@ -106,7 +106,7 @@ class AppointmentServiceTest_StatusTransitions {
 
   @Test
   void updateStatus_whenAppointmentMissing_throws404ish() {
-    when(appointmentRepository.findById(404L)).thenReturn(Optional.empty());
+    when(appointmentRepository.findWithPartiesAndSlotById(404L)).thenReturn(Optional.empty());
 
     assertThrows(EntityNotFoundException.class, () -> service.updateStatus(404L, "CONFIRMED"));
 
@@ -1,7 +1,10 @@
 package com.medical.bookingapi.service;
 
 import com.medical.bookingapi.dto.AppointmentSlotDTO;
+import com.medical.bookingapi.dto.DoctorAvailabilityDTO;
+import com.medical.bookingapi.dto.SlotBulkResultDTO;
 import com.medical.bookingapi.dto.SlotCreateDTO;
+import com.medical.bookingapi.dto.SlotTemplateDTO;
 import com.medical.bookingapi.mapper.AppointmentSlotMapper;
 import com.medical.bookingapi.model.AppointmentSlot;
 import com.medical.bookingapi.model.Doctor;
@@ -15,12 +18,24 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 class AppointmentSlotServiceTest {
@@ -28,6 +43,8 @@ class AppointmentSlotServiceTest {
   @Mock AppointmentSlotRepository slotRepo;
   @Mock AppointmentSlotMapper slotMapper;
   @Mock DoctorRepository doctorRepo;
+  @Mock AvailabilityIndex availabilityIndex;
+  @Mock BookingCaches bookingCaches;
 
   @InjectMocks AppointmentSlotServiceImpl service;
 
@@ -87,18 +104,70 @@ class AppointmentSlotServiceTest {
     assertTrue(ex.getMessage().contains("Doctor not found"));
   }
 
-  // ----------- findByIsBookedFalse -----------
+  // ----------- findAvailable (keyset pages) -----------
+
+  private static AppointmentSlotDTO row(long id, LocalDateTime start) {
+    return new AppointmentSlotDTO(id, 7L, start, start.plusMinutes(30), false, null, null);
+  }
+
+  private void pageSizes(int defaultSize, int maxSize) {
+    ReflectionTestUtils.setField(service, "defaultPageSize", defaultSize);
+    ReflectionTestUtils.setField(service, "maxPageSize", maxSize);
+  }
 
   @Test
-  void findByIsBookedFalse_returnsMappedList() {
-    when(slotRepo.findByBookedFalse()).thenReturn(List.of(slot1));
-    when(slotMapper.toDto(slot1)).thenReturn(dto1);
+  void findAvailable_firstPage_fetchesOneExtraRow_andReturnsCursorOfLastItem() {
+    pageSizes(2, 200);
+    var from = LocalDateTime.of(2030, 1, 7, 0, 0);
+    var to = LocalDateTime.of(2030, 2, 1, 0, 0);
+    var t = LocalDateTime.of(2030, 1, 7, 9, 0);
+    when(slotRepo.findAvailablePage(eq(from), eq(Long.MIN_VALUE), eq(to), any()))
+        .thenReturn(List.of(row(1, t), row(2, t), row(3, t.plusMinutes(30))));
+
+    var page = service.findAvailable(null, from, to, null, null);
+
+    assertEquals(2, page.getItems().size());
+    assertNotNull(page.getNextCursor());
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+    verify(slotRepo).findAvailablePage(eq(from), eq(Long.MIN_VALUE), eq(to), pageable.capture());
+    assertEquals(3, pageable.getValue().getPageSize());
+    assertEquals(0, pageable.getValue().getOffset());
+    verifyNoInteractions(slotMapper);
+
+    // the cursor seeks past (09:00, id 2), so rows sharing the start time are not skipped
+    when(slotRepo.findAvailablePageByDoctorId(eq(7L), eq(t), eq(2L), eq(to), any()))
+        .thenReturn(List.of(row(3, t.plusMinutes(30))));
+
+    var next = service.findAvailable(7L, from, to, page.getNextCursor(), null);
+
+    assertEquals(1, next.getItems().size());
+    assertNull(next.getNextCursor());
+  }
 
-    var result = service.findByIsBookedFalse();
+  @Test
+  void findAvailable_defaultsToFutureSlots_andClampsPageSize() {
+    pageSizes(50, 200);
+    when(slotRepo.findAvailablePage(any(), anyLong(), any(), any())).thenReturn(List.of());
+
+    var before = LocalDateTime.now();
+    service.findAvailable(null, null, null, null, 10_000);
+
+    ArgumentCaptor<LocalDateTime> lower = ArgumentCaptor.forClass(LocalDateTime.class);
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+    verify(slotRepo).findAvailablePage(lower.capture(), eq(Long.MIN_VALUE), any(), pageable.capture());
+    assertFalse(lower.getValue().isBefore(before));
+    assertEquals(201, pageable.getValue().getPageSize());
+  }
 
-    assertEquals(1, result.size());
-    verify(slotRepo).findByBookedFalse();
-    verify(slotMapper).toDto(slot1);
+  @Test
+  void findAvailable_rejectsBadCursor_andNonPositiveSize() {
+    pageSizes(50, 200);
+
+    var ex = assertThrows(IllegalArgumentException.class,
+        () -> service.findAvailable(null, null, null, "not-a-cursor", null));
+    assertEquals("Invalid cursor", ex.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> service.findAvailable(null, null, null, null, 0));
+    verifyNoInteractions(slotRepo);
   }
 
   // ----------- findById -----------
@@ -132,14 +201,14 @@ class AppointmentSlotServiceTest {
   @Test
   void findByDoctorAndIsBookedFalse_returnsMappedList() {
     when(doctorRepo.findById(7L)).thenReturn(Optional.of(doctor));
-    when(slotRepo.findByDoctorAndBookedFalse(doctor)).thenReturn(List.of(slot1));
+    when(slotRepo.findByDoctorAndBookedFalseAndStartTimeAfter(eq(doctor), any(LocalDateTime.class))).thenReturn(List.of(slot1));
     when(slotMapper.toDto(slot1)).thenReturn(dto1);
 
     var result = service.findByDoctorAndIsBookedFalse(7L);
 
     assertEquals(1, result.size());
     verify(doctorRepo).findById(7L);
-    verify(slotRepo).findByDoctorAndBookedFalse(doctor);
+    verify(slotRepo).findByDoctorAndBookedFalseAndStartTimeAfter(eq(doctor), any(LocalDateTime.class));
   }
 
   @Test
@@ -167,12 +236,29 @@ class AppointmentSlotServiceTest {
     verify(slotRepo).findByStartTimeBetween(from, to);
   }
 
+  @Test
+  void streamByStartTimeBetween_pushesEveryRowToSink_andClosesCursor() {
+    var from = LocalDateTime.of(2030, 1, 1, 0, 0);
+    var to   = LocalDateTime.of(2030, 4, 1, 0, 0);
+    AtomicBoolean closed = new AtomicBoolean();
+    var a = new AppointmentSlotDTO(1L, 7L, from.plusHours(9), from.plusHours(10), false, null, null);
+    var b = new AppointmentSlotDTO(2L, 7L, from.plusHours(10), from.plusHours(11), false, null, null);
+    when(slotRepo.streamByStartTimeBetween(from, to)).thenReturn(Stream.of(a, b).onClose(() -> closed.set(true)));
+
+    List<AppointmentSlotDTO> received = new ArrayList<>();
+    service.streamByStartTimeBetween(from, to, received::add);
+
+    assertEquals(List.of(a, b), received);
+    assertTrue(closed.get());
+    verifyNoInteractions(slotMapper);
+  }
+
   // ----------- findFirstByDoctorAndIsBookedFalseOrderByStartTimeAsc -----------
 
   @Test
   void findFirstFreeByDoctor_returnsMappedOptional() {
     when(doctorRepo.findById(7L)).thenReturn(Optional.of(doctor));
-    when(slotRepo.findFirstByDoctorAndBookedFalseOrderByStartTimeAsc(doctor))
+    when(slotRepo.findFirstByDoctorAndBookedFalseAndStartTimeAfterOrderByStartTimeAsc(eq(doctor), any(LocalDateTime.class)))
         .thenReturn(Optional.of(slot1));
     when(slotMapper.toDto(slot1)).thenReturn(dto1);
 
@@ -194,7 +280,7 @@ class AppointmentSlotServiceTest {
   @Test
   void findFirstFreeByDoctor_emptyWhenNoSlot() {
     when(doctorRepo.findById(7L)).thenReturn(Optional.of(doctor));
-    when(slotRepo.findFirstByDoctorAndBookedFalseOrderByStartTimeAsc(doctor))
+    when(slotRepo.findFirstByDoctorAndBookedFalseAndStartTimeAfterOrderByStartTimeAsc(eq(doctor), any(LocalDateTime.class)))
         .thenReturn(Optional.empty());
 
     var result = service.findFirstByDoctorAndIsBookedFalseOrderByStartTimeAsc(7L);
@@ -223,9 +309,7 @@ class AppointmentSlotServiceTest {
 
     when(doctorRepo.findById(7L)).thenReturn(Optional.of(doctor));
 
-    when(slotRepo.existsOverlapping(doctor, start, end)).thenReturn(false);
-
-    when(slotRepo.save(any(AppointmentSlot.class))).thenAnswer(inv -> {
+    when(slotRepo.saveAndFlush(any(AppointmentSlot.class))).thenAnswer(inv -> {
       AppointmentSlot s = inv.getArgument(0);
       s.setId(555L);
       return s;
@@ -240,7 +324,7 @@ class AppointmentSlotServiceTest {
     // Assert
     assertNotNull(result);
     ArgumentCaptor<AppointmentSlot> captor = ArgumentCaptor.forClass(AppointmentSlot.class);
-    verify(slotRepo).save(captor.capture());
+    verify(slotRepo).saveAndFlush(captor.capture());
     AppointmentSlot saved = captor.getValue();
 
     assertSame(doctor, saved.getDoctor());
@@ -249,7 +333,8 @@ class AppointmentSlotServiceTest {
     assertFalse(saved.isBooked());
 
     verify(slotMapper).toEntity(create);
-    verify(slotRepo).existsOverlapping(doctor, start, end);
+    verify(availabilityIndex).markFree(doctor, start, end);
+    verify(bookingCaches).evictDoctorSlots(doctor.getId());
     verify(slotMapper).toDto(saved);
   }
 
@@ -264,15 +349,111 @@ class AppointmentSlotServiceTest {
 
     var ex = assertThrows(EntityNotFoundException.class, () -> service.createSlot(create));
     assertTrue(ex.getMessage().contains("Doctor not found"));
+    verify(slotRepo, never()).saveAndFlush(any());
+  }
+
+  // ----------- createSlotsFromTemplate -----------
+
+  private SlotTemplateDTO weeklyTemplate() {
+    LocalDate monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    SlotTemplateDTO t = new SlotTemplateDTO();
+    t.setDoctorId(7L);
+    t.setDays(Set.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY));
+    t.setDayStart(LocalTime.of(9, 0));
+    t.setDayEnd(LocalTime.of(12, 10)); // trailing 10 min cannot hold a slot
+    t.setSlotMinutes(30);
+    t.setFromDate(monday);
+    t.setToDate(monday.plusDays(6));
+    t.setLocation("Nicosia");
+    return t;
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void createSlotsFromTemplate_generatesBackToBackSlots_andSavesInOneBatch() {
+    ReflectionTestUtils.setField(service, "maxBulkSlots", 5000);
+    SlotTemplateDTO t = weeklyTemplate();
+    when(doctorRepo.findById(7L)).thenReturn(Optional.of(doctor));
+    when(slotRepo.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+    SlotBulkResultDTO result = service.createSlotsFromTemplate(t);
+
+    ArgumentCaptor<List<AppointmentSlot>> captor = ArgumentCaptor.forClass(List.class);
+    verify(slotRepo).saveAll(captor.capture());
+    List<AppointmentSlot> saved = captor.getValue();
+
+    assertEquals(12, saved.size()); // 2 days x 6 slots
+    assertEquals(12, result.getCreated());
+    assertEquals(0, result.getSkippedPast());
+    assertEquals(t.getFromDate().atTime(9, 0), result.getFirstStart());
+    assertEquals(t.getFromDate().plusDays(2).atTime(12, 0), result.getLastEnd());
+    assertTrue(saved.stream().allMatch(s -> s.getDoctor() == doctor && !s.isBooked() && "Nicosia".equals(s.getLocation())));
+    verify(slotRepo).flush();
+    verify(availabilityIndex, times(12)).markFree(eq(doctor), any(), any());
+    verify(bookingCaches).evictDoctorSlots(doctor.getId());
     verify(slotRepo, never()).save(any());
   }
 
+  @Test
+  void createSlotsFromTemplate_rejectsWholeTemplateOnOverlap() {
+    ReflectionTestUtils.setField(service, "maxBulkSlots", 5000);
+    SlotTemplateDTO t = weeklyTemplate();
+    when(doctorRepo.findById(7L)).thenReturn(Optional.of(doctor));
+    when(slotRepo.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    doThrow(exclusionViolation()).when(slotRepo).flush();
+
+    var ex = assertThrows(IllegalStateException.class, () -> service.createSlotsFromTemplate(t));
+    assertTrue(ex.getMessage().contains("Overlapping slot"));
+    verifyNoInteractions(availabilityIndex);
+  }
+
+  @Test
+  void createSlotsFromTemplate_rejectsTemplatesAboveSlotCap() {
+    ReflectionTestUtils.setField(service, "maxBulkSlots", 10);
+    when(doctorRepo.findById(7L)).thenReturn(Optional.of(doctor));
+
+    var ex = assertThrows(IllegalArgumentException.class, () -> service.createSlotsFromTemplate(weeklyTemplate()));
+    assertTrue(ex.getMessage().contains("more than 10 slots"));
+    verify(slotRepo, never()).saveAll(any());
+  }
+
+  @Test
+  void createSlotsFromTemplate_rejectsInvalidRanges() {
+    SlotTemplateDTO inverted = weeklyTemplate();
+    inverted.setDayEnd(LocalTime.of(8, 0));
+    assertThrows(IllegalArgumentException.class, () -> service.createSlotsFromTemplate(inverted));
+
+    SlotTemplateDTO tooLong = weeklyTemplate();
+    tooLong.setToDate(tooLong.getFromDate().plusYears(2));
+    assertThrows(IllegalArgumentException.class, () -> service.createSlotsFromTemplate(tooLong));
+
+    verifyNoInteractions(doctorRepo, slotRepo);
+  }
+
+  @Test
+  void createSlotsFromTemplate_skipsOccurrencesAlreadyInThePast() {
+    ReflectionTestUtils.setField(service, "maxBulkSlots", 5000);
+    SlotTemplateDTO t = weeklyTemplate();
+    LocalDate lastWeek = LocalDate.now().minusDays(7);
+    t.setDays(Set.of(DayOfWeek.values()));
+    t.setFromDate(lastWeek);
+    t.setToDate(lastWeek.plusDays(2));
+    when(doctorRepo.findById(7L)).thenReturn(Optional.of(doctor));
+    when(slotRepo.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+    SlotBulkResultDTO result = service.createSlotsFromTemplate(t);
+
+    assertEquals(0, result.getCreated());
+    assertEquals(18, result.getSkippedPast());
+    assertNull(result.getFirstStart());
+  }
+
   // ----------- updateSlot -----------
 
   @Test
   void updateSlot_happyPath_updatesFields_andSaves() {
-    when(slotRepo.findById(100L)).thenReturn(Optional.of(slot1)); 
-    when(slotRepo.save(slot1)).thenReturn(slot1);
+    when(slotRepo.findWithDoctorById(100L)).thenReturn(Optional.of(slot1)); 
+    when(slotRepo.saveAndFlush(slot1)).thenReturn(slot1);
     when(slotMapper.toDto(slot1)).thenReturn(dto1);
 
     AppointmentSlotDTO patch = new AppointmentSlotDTO();
@@ -288,26 +469,82 @@ class AppointmentSlotServiceTest {
     assertEquals(LocalDateTime.of(2025,1,21,9,30), slot1.getEndTime());
     assertFalse(slot1.isBooked());
     assertEquals("updated", slot1.getNotes());
-    verify(slotRepo).save(slot1);
+    verify(slotRepo).saveAndFlush(slot1);
+    verify(bookingCaches).evictDoctorSlots(7L);
+  }
+
+  @Test
+  void updateSlot_withTheStartTime_readsOnlyThatPartition() {
+    var start = slot1.getStartTime();
+    when(slotRepo.findWithDoctorByIdAndStartTime(100L, start)).thenReturn(Optional.of(slot1));
+    when(slotRepo.saveAndFlush(slot1)).thenReturn(slot1);
+    when(slotMapper.toDto(slot1)).thenReturn(dto1);
+
+    AppointmentSlotDTO patch = new AppointmentSlotDTO();
+    patch.setStartTime(start.plusHours(1));
+    patch.setEndTime(start.plusHours(1).plusMinutes(30));
+
+    assertSame(dto1, service.updateSlot(100L, start, patch));
+    verify(slotRepo, never()).findWithDoctorById(any());
+  }
+
+  @Test
+  void updateSlot_movesFreeTimeInAvailabilityIndex() {
+    var oldStart = slot1.getStartTime();
+    var oldEnd = slot1.getEndTime();
+    when(slotRepo.findWithDoctorById(100L)).thenReturn(Optional.of(slot1));
+    when(slotRepo.saveAndFlush(slot1)).thenReturn(slot1);
+    when(slotMapper.toDto(slot1)).thenReturn(dto1);
+
+    AppointmentSlotDTO patch = new AppointmentSlotDTO();
+    patch.setStartTime(LocalDateTime.of(2025, 1, 21, 9, 0));
+    patch.setEndTime(LocalDateTime.of(2025, 1, 21, 9, 30));
+
+    service.updateSlot(100L, patch);
+
+    var order = inOrder(availabilityIndex);
+    order.verify(availabilityIndex).markUnavailable(7L, oldStart, oldEnd);
+    order.verify(availabilityIndex).markFree(doctor, patch.getStartTime(), patch.getEndTime());
+  }
+
+  // ----------- cross-doctor availability -----------
+
+  @Test
+  void findEarliestAvailable_returnsFirstHitFromIndex() {
+    var hit = new DoctorAvailabilityDTO(7L, "Cardiology", "Limassol", LocalDateTime.of(2030, 1, 7, 9, 0));
+    when(availabilityIndex.search("Cardiology", "Limassol", null, null, 1)).thenReturn(List.of(hit));
+
+    assertSame(hit, service.findEarliestAvailable("Cardiology", "Limassol", null).orElseThrow());
+    verifyNoInteractions(slotRepo);
+  }
+
+  @Test
+  void findFreeBetween_clampsLimit_andRejectsInvertedWindow() {
+    var from = LocalDateTime.of(2030, 1, 7, 9, 0);
+    var to = LocalDateTime.of(2030, 1, 7, 12, 0);
+    when(availabilityIndex.search(null, "Nicosia", from, to, 100)).thenReturn(List.of());
+
+    assertTrue(service.findFreeBetween(null, "Nicosia", from, to, 5000).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> service.findFreeBetween(null, null, to, from, null));
   }
 
   @Test
   void updateSlot_throwsWhenBookedAndNotUnbooking() {
-      when(slotRepo.findById(101L)).thenReturn(Optional.of(slot2)); 
+      when(slotRepo.findWithDoctorById(101L)).thenReturn(Optional.of(slot2)); 
 
       AppointmentSlotDTO patch = new AppointmentSlotDTO();
       patch.setBooked(true);
 
       var ex = assertThrows(IllegalStateException.class, () -> service.updateSlot(101L, patch));
       assertTrue(ex.getMessage().contains("Cannot update a booked slot."));
-      verify(slotRepo, never()).save(any());
+      verify(slotRepo, never()).saveAndFlush(any());
   }
 
 
   @Test
   void updateSlot_allowsUnbookingBookedSlot() {
-    when(slotRepo.findById(101L)).thenReturn(Optional.of(slot2)); 
-    when(slotRepo.save(slot2)).thenReturn(slot2);
+    when(slotRepo.findWithDoctorById(101L)).thenReturn(Optional.of(slot2)); 
+    when(slotRepo.saveAndFlush(slot2)).thenReturn(slot2);
     when(slotMapper.toDto(slot2)).thenReturn(dto1);
 
     AppointmentSlotDTO patch = new AppointmentSlotDTO();
@@ -317,13 +554,13 @@ class AppointmentSlotServiceTest {
 
     assertSame(dto1, result);
     assertFalse(slot2.isBooked());
-    verify(slotRepo).save(slot2);
+    verify(slotRepo).saveAndFlush(slot2);
   }
 
   @Test
   void updateSlot_changesDoctor_whenDoctorIdProvided() {
-    when(slotRepo.findById(100L)).thenReturn(Optional.of(slot1));
-    when(slotRepo.save(slot1)).thenReturn(slot1);
+    when(slotRepo.findWithDoctorById(100L)).thenReturn(Optional.of(slot1));
+    when(slotRepo.saveAndFlush(slot1)).thenReturn(slot1);
     when(slotMapper.toDto(slot1)).thenReturn(dto1);
 
     Doctor newDoc = new Doctor();
@@ -339,11 +576,14 @@ class AppointmentSlotServiceTest {
     assertSame(dto1, result);
     assertSame(newDoc, slot1.getDoctor());
     verify(doctorRepo).findById(8L);
+    // both the old and the new doctor's cached slot lists are stale now
+    verify(bookingCaches).evictDoctorSlots(7L);
+    verify(bookingCaches).evictDoctorSlots(8L);
   }
 
   @Test
   void updateSlot_throwsWhenDoctorIdProvidedButDoctorMissing() {
-    when(slotRepo.findById(100L)).thenReturn(Optional.of(slot1));
+    when(slotRepo.findWithDoctorById(100L)).thenReturn(Optional.of(slot1));
 
     AppointmentSlotDTO patch = new AppointmentSlotDTO();
     trySet(patch, "booked", false);
@@ -353,12 +593,12 @@ class AppointmentSlotServiceTest {
 
     var ex = assertThrows(EntityNotFoundException.class, () -> service.updateSlot(100L, patch));
     assertTrue(ex.getMessage().contains("Doctor not found"));
-    verify(slotRepo, never()).save(any());
+    verify(slotRepo, never()).saveAndFlush(any());
   }
 
   @Test
   void updateSlot_throwsWhenSlotMissing() {
-    when(slotRepo.findById(404L)).thenReturn(Optional.empty());
+    when(slotRepo.findWithDoctorById(404L)).thenReturn(Optional.empty());
 
     var ex = assertThrows(EntityNotFoundException.class, () -> service.updateSlot(404L, new AppointmentSlotDTO()));
     assertTrue(ex.getMessage().contains("Appointment slot not found"));
@@ -368,21 +608,47 @@ class AppointmentSlotServiceTest {
 
   @Test
   void deleteSlot_deletesWhenExists() {
-    when(slotRepo.existsById(100L)).thenReturn(true);
+    when(slotRepo.findById(100L)).thenReturn(Optional.of(slot1));
+    when(slotRepo.deleteIfFreeAndUnreferenced(100L, slot1.getStartTime())).thenReturn(1);
 
     service.deleteSlot(100L);
 
-    verify(slotRepo).existsById(100L);
-    verify(slotRepo).deleteById(100L);
+    verify(slotRepo).findById(100L);
+    verify(slotRepo).deleteIfFreeAndUnreferenced(100L, slot1.getStartTime());
+    verify(availabilityIndex).markUnavailable(7L, slot1.getStartTime(), slot1.getEndTime());
+    verify(bookingCaches).evictDoctorSlots(7L);
+  }
+
+  @Test
+  void deleteSlot_withTheStartTime_readsOnlyThatPartition() {
+    var start = slot1.getStartTime();
+    when(slotRepo.findByIdAndStartTime(100L, start)).thenReturn(Optional.of(slot1));
+    when(slotRepo.deleteIfFreeAndUnreferenced(100L, start)).thenReturn(1);
+
+    service.deleteSlot(100L, start);
+
+    verify(slotRepo, never()).findById(any());
+    verify(slotRepo).deleteIfFreeAndUnreferenced(100L, start);
+  }
+
+  @Test
+  void deleteSlot_refusesWhenTheConditionalDeleteKeepsTheSlot() {
+    // booked, or an appointment points at it (checked by the delete statement itself)
+    when(slotRepo.findById(101L)).thenReturn(Optional.of(slot2));
+    when(slotRepo.deleteIfFreeAndUnreferenced(101L, slot2.getStartTime())).thenReturn(0);
+
+    var ex = assertThrows(IllegalStateException.class, () -> service.deleteSlot(101L));
+    assertEquals("Slot is booked or has an appointment", ex.getMessage());
+    verifyNoInteractions(availabilityIndex, bookingCaches);
   }
 
   @Test
   void deleteSlot_throwsWhenMissing() {
-    when(slotRepo.existsById(999L)).thenReturn(false);
+    when(slotRepo.findById(999L)).thenReturn(Optional.empty());
 
     var ex = assertThrows(EntityNotFoundException.class, () -> service.deleteSlot(999L));
     assertTrue(ex.getMessage().contains("Appointment slot not found"));
-    verify(slotRepo, never()).deleteById(anyLong());
+    verify(slotRepo, never()).deleteIfFreeAndUnreferenced(any(), any());
   }
 
   // --- helper: tolerate DTOs without setters/builders ---
@@ -410,11 +676,7 @@ void createSlot_allowsAdjacent_noOverlap() {
   entity.setEndTime(dto.getEndTime());
   when(slotMapper.toEntity(dto)).thenReturn(entity);
 
-  // Adjacent is OK → repository returns false (no overlap)
-  when(slotRepo.existsOverlapping(doctor, dto.getStartTime(), dto.getEndTime()))
-      .thenReturn(false);
-
-  when(slotRepo.save(any(AppointmentSlot.class))).thenAnswer(inv -> inv.getArgument(0));
+  when(slotRepo.saveAndFlush(any(AppointmentSlot.class))).thenAnswer(inv -> inv.getArgument(0));
   var outDto = new AppointmentSlotDTO();
   when(slotMapper.toDto(any(AppointmentSlot.class))).thenReturn(outDto);
 
@@ -423,8 +685,7 @@ void createSlot_allowsAdjacent_noOverlap() {
 
   // Assert
   assertSame(outDto, res);
-  verify(slotRepo, times(1)).existsOverlapping(doctor, dto.getStartTime(), dto.getEndTime());
-  verify(slotRepo, times(1)).save(any(AppointmentSlot.class));
+  verify(slotRepo, times(1)).saveAndFlush(any(AppointmentSlot.class));
 }
 
 @Test
@@ -443,14 +704,13 @@ void createSlot_rejectsPartialOverlap_sameDoctor() {
   entity.setEndTime(dto.getEndTime());
   when(slotMapper.toEntity(dto)).thenReturn(entity);
 
-  // Overlap → repository returns true
-  when(slotRepo.existsOverlapping(doctor, dto.getStartTime(), dto.getEndTime()))
-      .thenReturn(true);
+  // Overlap → appointment_slot_no_overlap rejects the insert
+  when(slotRepo.saveAndFlush(any(AppointmentSlot.class))).thenThrow(exclusionViolation());
 
   // Act + Assert
   var ex = assertThrows(IllegalStateException.class, () -> service.createSlot(dto));
   assertTrue(ex.getMessage().contains("Overlapping slot"));
-  verify(slotRepo, never()).save(any());
+  verifyNoInteractions(availabilityIndex, bookingCaches);
 }
 
 @Test
@@ -468,12 +728,11 @@ void createSlot_rejectsExactMatch_sameDoctor() {
   entity.setEndTime(dto.getEndTime());
   when(slotMapper.toEntity(dto)).thenReturn(entity);
 
-  when(slotRepo.existsOverlapping(doctor, dto.getStartTime(), dto.getEndTime()))
-      .thenReturn(true); // exact match is overlap
+  when(slotRepo.saveAndFlush(any(AppointmentSlot.class))).thenThrow(exclusionViolation()); // exact match is overlap
 
   var ex = assertThrows(IllegalStateException.class, () -> service.createSlot(dto));
   assertTrue(ex.getMessage().contains("Overlapping slot"));
-  verify(slotRepo, never()).save(any());
+  verifyNoInteractions(availabilityIndex, bookingCaches);
 }
 
 @Test
@@ -492,18 +751,64 @@ void createSlot_sameTimeDifferentDoctor_isOK() {
   entity.setEndTime(dto.getEndTime());
   when(slotMapper.toEntity(dto)).thenReturn(entity);
 
-  when(slotRepo.existsOverlapping(doctorA, dto.getStartTime(), dto.getEndTime()))
-      .thenReturn(false);
-
-  when(slotRepo.save(any(AppointmentSlot.class))).thenAnswer(inv -> inv.getArgument(0));
+  when(slotRepo.saveAndFlush(any(AppointmentSlot.class))).thenAnswer(inv -> inv.getArgument(0));
   var outDto = new AppointmentSlotDTO();
   when(slotMapper.toDto(any(AppointmentSlot.class))).thenReturn(outDto);
 
   var res = service.createSlot(dto);
 
   assertSame(outDto, res);
-  verify(slotRepo).existsOverlapping(doctorA, dto.getStartTime(), dto.getEndTime());
-  verify(slotRepo).save(any(AppointmentSlot.class));
+  verify(slotRepo).saveAndFlush(any(AppointmentSlot.class));
+}
+
+@Test
+void createSlot_otherIntegrityViolations_areNotReportedAsOverlap() {
+  var doctor = new Doctor(); doctor.setId(1L);
+  when(doctorRepo.findById(1L)).thenReturn(java.util.Optional.of(doctor));
+
+  var dto = new SlotCreateDTO();
+  dto.setDoctorId(1L);
+  dto.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+  dto.setEndTime(LocalDateTime.of(2025, 1, 1, 10, 30));
+
+  var entity = new AppointmentSlot();
+  entity.setStartTime(dto.getStartTime());
+  entity.setEndTime(dto.getEndTime());
+  when(slotMapper.toEntity(dto)).thenReturn(entity);
+
+  var fkViolation = new DataIntegrityViolationException("insert failed", new SQLException("fk", "23503"));
+  when(slotRepo.saveAndFlush(any(AppointmentSlot.class))).thenThrow(fkViolation);
+
+  assertSame(fkViolation, assertThrows(DataIntegrityViolationException.class, () -> service.createSlot(dto)));
+}
+
+@Test
+void createSlot_acrossAMonthBoundary_isRejectedAsABadRequest() {
+  var doctor = new Doctor(); doctor.setId(1L);
+  when(doctorRepo.findById(1L)).thenReturn(Optional.of(doctor));
+
+  var dto = new SlotCreateDTO();
+  dto.setDoctorId(1L);
+  dto.setStartTime(LocalDateTime.of(2025, 1, 31, 23, 45));
+  dto.setEndTime(LocalDateTime.of(2025, 2, 1, 0, 15));
+
+  var entity = new AppointmentSlot();
+  entity.setStartTime(dto.getStartTime());
+  entity.setEndTime(dto.getEndTime());
+  when(slotMapper.toEntity(dto)).thenReturn(entity);
+  when(slotRepo.saveAndFlush(any(AppointmentSlot.class))).thenThrow(new DataIntegrityViolationException(
+      "could not execute statement",
+      new SQLException("new row for relation \"appointment_slot_p2025_01\" violates check constraint \"appointment_slot_within_month\"", "23514")));
+
+  var ex = assertThrows(IllegalArgumentException.class, () -> service.createSlot(dto));
+  assertEquals("A slot cannot span two calendar months", ex.getMessage());
+  verifyNoInteractions(availabilityIndex);
+}
+
+// What the PostgreSQL driver reports when appointment_slot_no_overlap rejects a row
+private static DataIntegrityViolationException exclusionViolation() {
+  return new DataIntegrityViolationException("could not execute statement",
+      new SQLException("conflicting key value violates exclusion constraint \"appointment_slot_no_overlap\"", "23P01"));
 }
 
 }
@@ -0,0 +1,211 @@
+package com.medical.bookingapi.service;
+
+import com.medical.bookingapi.dto.DoctorAvailabilityDTO;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.repository.AppointmentSlotRepository;
+import com.medical.bookingapi.repository.DoctorRepository;
+import com.medical.bookingapi.repository.FreeSlotInterval;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+
+  private static final LocalDateTime DAY = LocalDateTime.of(2030, 3, 4, 0, 0);
+
+  @Mock AppointmentSlotRepository slotRepo;
+  @Mock DoctorRepository doctorRepo;
+  @Mock PlatformTransactionManager txManager;
+
+  AvailabilityIndex index;
+  Doctor cardioNicosia;
+  Doctor cardioLimassol;
+  Doctor dermaNicosia;
+
+  @BeforeEach
+  void setup() {
+    index = new AvailabilityIndex(slotRepo, doctorRepo, txManager);
+    cardioNicosia = doctor(1L, "Cardiology", "Nicosia");
+    cardioLimassol = doctor(2L, "Cardiology", "Limassol");
+    dermaNicosia = doctor(3L, "Dermatology", "Nicosia");
+  }
+
+  private static Doctor doctor(long id, String speciality, String location) {
+    Doctor d = new Doctor();
+    d.setId(id);
+    d.setSpeciality(speciality);
+    d.setLocation(location);
+    return d;
+  }
+
+  private static LocalDateTime at(int hour, int minute) {
+    return DAY.withHour(hour).withMinute(minute);
+  }
+
+  private static FreeSlotInterval interval(long doctorId, LocalDateTime start, LocalDateTime end) {
+    return new FreeSlotInterval() {
+      public Long getDoctorId() { return doctorId; }
+      public LocalDateTime getStartTime() { return start; }
+      public LocalDateTime getEndTime() { return end; }
+    };
+  }
+
+  @Test
+  void warmUp_loadsDoctorsAndFreeSlots() {
+    when(doctorRepo.findAll()).thenReturn(List.of(cardioNicosia, cardioLimassol));
+    when(slotRepo.streamFreeIntervals(any())).thenReturn(Stream.of(
+        interval(1L, at(11, 0), at(11, 30)),
+        interval(2L, at(9, 30), at(10, 0))));
+
+    index.warmUp();
+
+    List<DoctorAvailabilityDTO> hits = index.search("cardiology", null, DAY, null, 10);
+    assertEquals(2, hits.size());
+    assertEquals(2L, hits.get(0).getDoctorId());
+    assertEquals(at(9, 30), hits.get(0).getFreeFrom());
+    assertEquals("Limassol", hits.get(0).getLocation());
+    assertEquals(at(11, 0), hits.get(1).getFreeFrom());
+  }
+
+  @Test
+  void refresh_replacesTheIndex_withWhatTheDatabaseHoldsNow() {
+    index.markFree(cardioNicosia, at(9, 0), at(9, 30));
+    // booked on another instance: the database no longer lists the slot as free
+    when(doctorRepo.findAll()).thenReturn(List.of(cardioNicosia));
+    when(slotRepo.streamFreeIntervals(any())).thenReturn(Stream.of(interval(1L, at(10, 0), at(10, 30))));
+
+    index.refresh();
+
+    assertEquals(List.of(at(10, 0)),
+        index.search(null, null, DAY, null, 10).stream().map(DoctorAvailabilityDTO::getFreeFrom).toList());
+  }
+
+  @Test
+  void refresh_keepsChangesCommittedWhileItReadsTheDatabase() {
+    when(doctorRepo.findAll()).thenReturn(List.of(cardioNicosia));
+    when(slotRepo.streamFreeIntervals(any())).thenAnswer(inv -> {
+      // a local booking commits after the rebuild's read already saw the slot as free
+      index.markUnavailable(1L, at(9, 0), at(9, 30));
+      return Stream.of(interval(1L, at(9, 0), at(9, 30)), interval(1L, at(11, 0), at(11, 30)));
+    });
+
+    index.refresh();
+
+    assertEquals(at(11, 0), index.search(null, null, DAY, null, 10).get(0).getFreeFrom());
+  }
+
+  @Test
+  void refresh_keepsTheCurrentIndex_whenTheDatabaseFails() {
+    index.markFree(cardioNicosia, at(9, 0), at(9, 30));
+    when(doctorRepo.findAll()).thenThrow(new QueryTimeoutException("timeout"));
+
+    index.refresh();
+
+    assertEquals(at(9, 0), index.search(null, null, DAY, null, 10).get(0).getFreeFrom());
+  }
+
+  @Test
+  void search_filtersBySpecialityAndLocation_caseInsensitively() {
+    index.markFree(cardioNicosia, at(10, 0), at(10, 30));
+    index.markFree(cardioLimassol, at(9, 0), at(9, 30));
+    index.markFree(dermaNicosia, at(8, 0), at(8, 30));
+
+    List<DoctorAvailabilityDTO> hits = index.search("CARDIOLOGY", "nicosia", DAY, null, 10);
+
+    assertEquals(1, hits.size());
+    assertEquals(1L, hits.get(0).getDoctorId());
+    assertEquals(at(10, 0), hits.get(0).getFreeFrom());
+  }
+
+  @Test
+  void search_respectsWindow_andOnlyReturnsSlotStarts() {
+    index.markFree(cardioNicosia, at(9, 0), at(9, 30));
+    index.markFree(cardioNicosia, at(9, 30), at(10, 0));
+
+    // 09:00-09:30 has started by 09:02: the answer is the next slot's start, not a point inside it
+    assertEquals(at(9, 30), index.search(null, null, at(9, 2), null, 10).get(0).getFreeFrom());
+    // window closes before the slot starts
+    assertTrue(index.search(null, null, DAY, at(9, 0), 10).isEmpty());
+    // window opens after the last start
+    assertTrue(index.search(null, null, at(9, 31), null, 10).isEmpty());
+  }
+
+  @Test
+  void offGridSlots_keepTheirExactStarts_andDoNotShareEdges() {
+    index.markFree(cardioNicosia, at(9, 2), at(9, 32));
+    index.markFree(cardioNicosia, at(9, 32), at(10, 2));
+
+    assertEquals(at(9, 2), index.search(null, null, DAY, null, 10).get(0).getFreeFrom());
+
+    index.markUnavailable(1L, at(9, 2), at(9, 32));
+    assertEquals(at(9, 32), index.search(null, null, DAY, null, 10).get(0).getFreeFrom());
+  }
+
+  @Test
+  void markUnavailable_clearsOnlyTheBookedSlot() {
+    index.markFree(cardioNicosia, at(9, 0), at(9, 30));
+    index.markFree(cardioNicosia, at(9, 30), at(10, 0));
+
+    index.markUnavailable(1L, at(9, 0), at(9, 30));
+
+    assertEquals(at(9, 30), index.search(null, null, DAY, null, 10).get(0).getFreeFrom());
+
+    index.markUnavailable(1L, at(9, 30), at(10, 0));
+    assertTrue(index.search(null, null, DAY, null, 10).isEmpty());
+  }
+
+  @Test
+  void markFree_slotSpanningMidnight_isFoundByItsStart() {
+    index.markFree(cardioNicosia, at(23, 45), DAY.plusDays(1).withHour(0).withMinute(30));
+
+    assertEquals(at(23, 45), index.search(null, null, DAY, null, 10).get(0).getFreeFrom());
+    assertTrue(index.search(null, null, DAY.plusDays(1), null, 10).isEmpty());
+
+    index.markUnavailable(1L, at(23, 45), DAY.plusDays(1).withHour(0).withMinute(30));
+    assertTrue(index.search(null, null, DAY, null, 10).isEmpty());
+  }
+
+  @Test
+  void doctorUpdated_changesFilters_andDoctorRemovedDropsEverything() {
+    index.markFree(cardioNicosia, at(9, 0), at(9, 30));
+
+    index.doctorUpdated(1L, "Cardiology", "Paphos");
+    assertTrue(index.search(null, "Nicosia", DAY, null, 10).isEmpty());
+    assertEquals(1, index.search(null, "Paphos", DAY, null, 10).size());
+
+    index.doctorRemoved(1L);
+    assertTrue(index.search(null, null, DAY, null, 10).isEmpty());
+  }
+
+  @Test
+  void search_ordersByEarliestThenDoctorId_andAppliesLimit() {
+    index.markFree(dermaNicosia, at(9, 0), at(9, 30));
+    index.markFree(cardioLimassol, at(9, 0), at(9, 30));
+    index.markFree(cardioNicosia, at(8, 0), at(8, 30));
+
+    List<DoctorAvailabilityDTO> hits = index.search(null, null, DAY, null, 2);
+
+    assertEquals(List.of(1L, 2L), hits.stream().map(DoctorAvailabilityDTO::getDoctorId).toList());
+  }
+
+  @Test
+  void search_neverReturnsPastTime() {
+    LocalDateTime yesterday = LocalDateTime.now().minusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+    index.markFree(cardioNicosia, yesterday, yesterday.plusMinutes(30));
+
+    assertTrue(index.search(null, null, yesterday.minusHours(1), null, 10).isEmpty());
+  }
+}
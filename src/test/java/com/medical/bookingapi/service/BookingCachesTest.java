@@ -0,0 +1,89 @@
+package com.medical.bookingapi.service;
+
+import com.medical.bookingapi.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingCachesTest {
+
+  ConcurrentMapCacheManager cacheManager;
+  BookingCaches caches;
+
+  @BeforeEach
+  void setup() {
+    cacheManager = new ConcurrentMapCacheManager(
+        CacheConfig.DOCTORS, CacheConfig.DOCTOR_SLOTS, CacheConfig.DOCTOR_AVAILABLE_SLOTS, CacheConfig.AUTH_USERS);
+    caches = new BookingCaches(cacheManager);
+    for (String name : cacheManager.getCacheNames()) {
+      cacheManager.getCache(name).put(7L, "cached");
+      cacheManager.getCache(name).put(8L, "cached");
+    }
+  }
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private Cache cache(String name) {
+    return cacheManager.getCache(name);
+  }
+
+  @Test
+  void evictDoctorSlots_dropsBothSlotListsOfThatDoctorOnly() {
+    caches.evictDoctorSlots(7L);
+
+    assertNull(cache(CacheConfig.DOCTOR_SLOTS).get(7L));
+    assertNull(cache(CacheConfig.DOCTOR_AVAILABLE_SLOTS).get(7L));
+    assertNotNull(cache(CacheConfig.DOCTORS).get(7L));
+    assertNotNull(cache(CacheConfig.DOCTOR_SLOTS).get(8L));
+  }
+
+  @Test
+  void evictDoctor_dropsProfileOnly() {
+    caches.evictDoctor(7L);
+
+    assertNull(cache(CacheConfig.DOCTORS).get(7L));
+    assertNotNull(cache(CacheConfig.DOCTOR_SLOTS).get(7L));
+  }
+
+  @Test
+  void insideTransaction_evictsOnlyAfterCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    caches.evictDoctorSlots(7L);
+    assertNotNull(cache(CacheConfig.DOCTOR_SLOTS).get(7L));
+
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertNull(cache(CacheConfig.DOCTOR_SLOTS).get(7L));
+  }
+
+  @Test
+  void evictAuthUser_dropsThatEmailOnly() {
+    cache(CacheConfig.AUTH_USERS).put("a@test.local", "cached");
+    cache(CacheConfig.AUTH_USERS).put("b@test.local", "cached");
+
+    caches.evictAuthUser("a@test.local");
+
+    assertNull(cache(CacheConfig.AUTH_USERS).get("a@test.local"));
+    assertNotNull(cache(CacheConfig.AUTH_USERS).get("b@test.local"));
+  }
+
+  @Test
+  void nullDoctorId_isIgnored() {
+    caches.evictDoctorSlots(null);
+    caches.evictDoctor(null);
+
+    assertNotNull(cache(CacheConfig.DOCTORS).get(7L));
+    assertNotNull(cache(CacheConfig.DOCTOR_SLOTS).get(7L));
+  }
+}
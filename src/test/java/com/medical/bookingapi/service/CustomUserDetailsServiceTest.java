@@ -1,19 +1,24 @@
 package com.medical.bookingapi.service;
 
-import com.medical.bookingapi.model.Patient;     
+import com.medical.bookingapi.config.CacheConfig;
+import com.medical.bookingapi.repository.AuthUserView;
 import com.medical.bookingapi.repository.UserRepository;
-import com.medical.bookingapi.security.CustomUserDetails;
+import com.medical.bookingapi.security.AuthUserDetails;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -21,41 +26,86 @@ import static org.mockito.Mockito.when;
 class CustomUserDetailsServiceTest {
 
   @Mock UserRepository userRepository;
-  @InjectMocks CustomUserDetailsService service;
 
-  @Test
-  void loadUserByUsername_returnsCustomUserDetails_whenUserExists() {
-    String email = "jane@example.com";
+  ConcurrentMapCacheManager cacheManager;
+  SimpleMeterRegistry meterRegistry;
+  CustomUserDetailsService service;
 
-    Patient u = new Patient();
-    u.setId(1L);
-    u.setFirstName("Jane");
-    u.setLastName("Doe");
-    u.setEmail(email);
-    u.setPassword_hash("hashedPw");
-    u.setRole("PATIENT");
+  @BeforeEach
+  void setup() {
+    cacheManager = new ConcurrentMapCacheManager(CacheConfig.AUTH_USERS);
+    meterRegistry = new SimpleMeterRegistry();
+    service = new CustomUserDetailsService(userRepository, cacheManager, meterRegistry);
+  }
 
-    when(userRepository.findByEmail(email)).thenReturn(Optional.of(u));
+  private double lookups(String source) {
+    return meterRegistry.get("booking.auth.user.lookups").tag("source", source).counter().count();
+  }
+
+  @Test
+  void loadUserByUsername_returnsAuthUserDetails_whenUserExists() {
+    String email = "jane@example.com";
+    AuthUserView view = new AuthUserView(1L, email, "PATIENT", "hashedPw", true, "Jane", "Doe");
+    when(userRepository.findAuthViewByEmail(email)).thenReturn(Optional.of(view));
 
     UserDetails details = service.loadUserByUsername(email);
 
     assertNotNull(details);
-    assertTrue(details instanceof CustomUserDetails);
+    assertTrue(details instanceof AuthUserDetails);
     assertEquals(email, details.getUsername());
     assertEquals("hashedPw", details.getPassword());
-
-    CustomUserDetails cud = (CustomUserDetails) details;
-    assertSame(u, cud.getUser());
+    assertTrue(details.isEnabled());
+    assertSame(view, ((AuthUserDetails) details).getView());
     assertFalse(details.getAuthorities().isEmpty());
 
+    verify(userRepository).findAuthViewByEmail(email);
+  }
+
+  @Test
+  void loadUserByUsername_servesRepeatsFromCache_andCountsAvoidedLookups() {
+    String email = "jane@example.com";
+    when(userRepository.findAuthViewByEmail(email))
+        .thenReturn(Optional.of(new AuthUserView(1L, email, "PATIENT", "hashedPw", true, "Jane", "Doe")));
+
+    service.loadUserByUsername(email);
+    service.loadUserByUsername(email);
+    service.loadUserByUsername(email);
+
+    verify(userRepository, times(1)).findAuthViewByEmail(email);
+    assertEquals(1.0, lookups("database"));
+    assertEquals(2.0, lookups("cache"));
+  }
+
+  @Test
+  void loadUserByUsername_sharesOneCacheEntryAcrossEmailCase() {
+    String email = "jane@example.com";
+    when(userRepository.findAuthViewByEmail(email))
+        .thenReturn(Optional.of(new AuthUserView(1L, email, "PATIENT", "hashedPw", true, "Jane", "Doe")));
+
+    service.loadUserByUsername(email);
+    UserDetails details = service.loadUserByUsername("Jane@Example.COM");
+
+    assertEquals(email, details.getUsername());
+    verify(userRepository, times(1)).findAuthViewByEmail(any());
+  }
+
+  @Test
+  void loadUserByUsername_afterEviction_readsDatabaseAgain() {
+    String email = "jane@example.com";
+    when(userRepository.findAuthViewByEmail(email))
+        .thenReturn(Optional.of(new AuthUserView(1L, email, "PATIENT", "hashedPw", true, "Jane", "Doe")));
+
+    service.loadUserByUsername(email);
+    new BookingCaches(cacheManager).evictAuthUser(email);
+    service.loadUserByUsername(email);
 
-    verify(userRepository).findByEmail(email);
+    verify(userRepository, times(2)).findAuthViewByEmail(email);
   }
 
   @Test
-  void loadUserByUsername_throws_whenUserMissing() {
+  void loadUserByUsername_throws_whenUserMissing_andDoesNotCacheTheMiss() {
     String email = "missing@example.com";
-    when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+    when(userRepository.findAuthViewByEmail(email)).thenReturn(Optional.empty());
 
     UsernameNotFoundException ex = assertThrows(
         UsernameNotFoundException.class,
@@ -63,6 +113,7 @@ class CustomUserDetailsServiceTest {
     );
 
     assertTrue(ex.getMessage().contains(email));
-    verify(userRepository).findByEmail(email);
+    assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername(email));
+    verify(userRepository, times(2)).findAuthViewByEmail(email);
   }
 }
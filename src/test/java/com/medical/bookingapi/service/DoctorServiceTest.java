@@ -31,6 +31,8 @@ class DoctorServiceTest {
   @Mock DoctorRepository doctorRepository;
   @Mock DoctorMapper doctorMapper;
   @Mock PasswordEncoder passwordEncoder;
+  @Mock AvailabilityIndex availabilityIndex;
+  @Mock BookingCaches bookingCaches;
 
   @InjectMocks DoctorServiceImpl service;
 
@@ -215,6 +217,8 @@ class DoctorServiceTest {
     assertEquals("New Clinic", doctor.getLocation());
     assertEquals("NJ-777", doctor.getLicenseNumber());
     verify(doctorRepository).save(doctor);
+    verify(availabilityIndex).doctorUpdated(doctor.getId(), "Nephrology", "New Clinic");
+    verify(bookingCaches).evictDoctor(doctor.getId());
   }
 
   @Test
@@ -0,0 +1,98 @@
+package com.medical.bookingapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LastLoginRecorderTest {
+
+  @Mock JdbcTemplate jdbcTemplate;
+
+  LastLoginRecorder recorder;
+
+  @BeforeEach
+  void setup() {
+    recorder = new LastLoginRecorder(jdbcTemplate);
+  }
+
+  @Test
+  void record_doesNotTouchTheDatabase_andKeepsOneEntryPerUser() {
+    recorder.record(1L);
+    recorder.record(1L);
+    recorder.record(2L);
+    recorder.record(null);
+
+    assertEquals(2, recorder.pendingCount());
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void flush_writesAllPendingUsersInOneUpdate_andClearsThem() {
+    recorder.record(1L);
+    recorder.record(2L);
+    recorder.record(3L);
+
+    recorder.flush();
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+    verify(jdbcTemplate, times(1)).update(sql.capture(), args.capture());
+    assertTrue(sql.getValue().startsWith("update users set last_login = v.ts from (values "));
+    assertTrue(sql.getValue().endsWith(") as v(id, ts) where users.id = v.id"));
+    assertEquals(6, args.getValue().length);
+    assertInstanceOf(LocalDateTime.class, args.getValue()[1]);
+    assertEquals(0, recorder.pendingCount());
+  }
+
+  @Test
+  void flush_splitsLargeBatchesIntoChunks() {
+    for (long id = 1; id <= LastLoginRecorder.CHUNK_SIZE + 1; id++) {
+      recorder.record(id);
+    }
+
+    recorder.flush();
+
+    verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+  }
+
+  @Test
+  void flush_withNothingPending_doesNothing() {
+    recorder.flush();
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void failedFlush_keepsTimestampsForTheNextRun() {
+    recorder.record(1L);
+    when(jdbcTemplate.update(anyString(), any(Object[].class)))
+        .thenThrow(new DataAccessResourceFailureException("db down"));
+
+    recorder.flush();
+
+    assertEquals(1, recorder.pendingCount());
+  }
+
+  @Test
+  void shutdown_flushesWhatIsPending() {
+    recorder.record(1L);
+
+    recorder.flushOnShutdown();
+
+    verify(jdbcTemplate).update(anyString(), any(Object[].class));
+    assertEquals(0, recorder.pendingCount());
+  }
+}
@@ -32,6 +32,7 @@ class PatientServiceTest {
   @Mock PatientRepository patientRepository;
   @Mock PatientMapper patientMapper;
   @Mock PasswordEncoder passwordEncoder;
+  @Mock BookingCaches bookingCaches;
 
   @InjectMocks PatientServiceImpl service;
 
@@ -206,6 +207,7 @@ class PatientServiceTest {
     assertEquals("none", patient.getAllergies());
     assertEquals("INS-999", patient.getInsuranceId());
     verify(patientRepository).save(patient);
+    verify(bookingCaches).evictAuthUser("jane@example.com");
   }
 
   @Test
@@ -0,0 +1,230 @@
+package com.medical.bookingapi.service;
+
+import com.medical.bookingapi.dto.AppointmentCreateDTO;
+import com.medical.bookingapi.dto.AppointmentDTO;
+import com.medical.bookingapi.dto.AppointmentSlotDTO;
+import com.medical.bookingapi.dto.SlotCreateDTO;
+import com.medical.bookingapi.mapper.AppointmentMapperImpl;
+import com.medical.bookingapi.mapper.AppointmentSlotMapperImpl;
+import com.medical.bookingapi.model.Appointment;
+import com.medical.bookingapi.model.AppointmentSlot;
+import com.medical.bookingapi.model.Doctor;
+import com.medical.bookingapi.model.Patient;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins how many statements each service method sends and how many entities it loads, measured
+ * with Hibernate statistics on an empty persistence context. The test transaction stays open, so
+ * pending writes are flushed inside the measurement. A changed number here means a fetch plan
+ * changed: check the entity graphs on the repositories before updating the expectation.
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import({AppointmentServiceImpl.class, AppointmentSlotServiceImpl.class,
+    AppointmentMapperImpl.class, AppointmentSlotMapperImpl.class})
+class ServiceStatementCountTest {
+
+  @Autowired TestEntityManager em;
+  @Autowired EntityManagerFactory emf;
+  @Autowired AppointmentServiceImpl appointments;
+  @Autowired AppointmentSlotServiceImpl slots;
+
+  @MockBean AvailabilityIndex availabilityIndex;
+  @MockBean BookingCaches bookingCaches;
+
+  Statistics stats;
+  LocalDateTime base;
+
+  Doctor doctor;
+  Doctor otherDoctor;
+  Patient patient;
+  AppointmentSlot freeSlot;
+  AppointmentSlot otherDoctorsSlot;
+  Appointment pending;
+
+  @BeforeEach
+  void setUp() {
+    stats = emf.unwrap(SessionFactory.class).getStatistics();
+    base = LocalDateTime.now().plusDays(7).withNano(0);
+
+    doctor = doctor("count-doc@test.local");
+    otherDoctor = doctor("count-other@test.local");
+    patient = patient("count-pat@test.local");
+    freeSlot = slot(doctor, base, false);
+    otherDoctorsSlot = slot(otherDoctor, base.plusHours(1), false);
+    AppointmentSlot bookedSlot = slot(doctor, base.plusHours(2), true);
+
+    pending = new Appointment();
+    pending.setDoctor(doctor);
+    pending.setPatient(patient);
+    pending.setSlot(bookedSlot);
+    pending.setStatus("PENDING");
+    em.persist(pending);
+    em.flush();
+  }
+
+  private Doctor doctor(String email) {
+    Doctor d = new Doctor();
+    d.setFirstName("Doc");
+    d.setLastName("Count");
+    d.setEmail(email);
+    d.setPassword_hash("x");
+    d.setRole("DOCTOR");
+    d.setSpeciality("Cardiology");
+    d.setLocation("Nicosia");
+    return em.persist(d);
+  }
+
+  private Patient patient(String email) {
+    Patient p = new Patient();
+    p.setFirstName("Pat");
+    p.setLastName("Count");
+    p.setEmail(email);
+    p.setPassword_hash("x");
+    p.setRole("PATIENT");
+    return em.persist(p);
+  }
+
+  private AppointmentSlot slot(Doctor d, LocalDateTime start, boolean booked) {
+    AppointmentSlot s = new AppointmentSlot();
+    s.setDoctor(d);
+    s.setStartTime(start);
+    s.setEndTime(start.plusMinutes(30));
+    s.setBooked(booked);
+    return em.persist(s);
+  }
+
+  // cold: empty persistence context and second-level cache, so every fetch shows up as SQL
+  private Statistics measure(Runnable call) {
+    em.clear();
+    emf.getCache().evictAll();
+    stats.clear();
+    call.run();
+    em.flush();
+    return stats;
+  }
+
+  private static void assertCounts(long statements, long entitiesLoaded, Statistics s) {
+    assertEquals(statements, s.getPrepareStatementCount(), "statements");
+    assertEquals(entitiesLoaded, s.getEntityLoadCount(), "entities loaded");
+  }
+
+  // ---------- AppointmentService ----------
+
+  @Test
+  void appointmentLists_checkTheParent_thenProjectWithoutLoadingEntities() {
+    assertCounts(2, 0, measure(() -> assertEquals(1, appointments.findByDoctorId(doctor.getId()).size())));
+    assertCounts(2, 0, measure(() -> assertEquals(1, appointments.findByPatientId(patient.getId()).size())));
+    assertCounts(2, 0, measure(() -> assertTrue(appointments.findBySlotId(pending.getSlot().getId()).isPresent())));
+    assertCounts(1, 0, measure(() -> assertEquals(1, appointments.findByStatus("PENDING").size())));
+    assertCounts(2, 0, measure(() -> assertEquals(1,
+        appointments.findByDoctorAndStatus(doctor.getId(), "PENDING").size())));
+  }
+
+  @Test
+  void bookAppointment_claims_readsSlotWithDoctor_inserts_andLoadsThePatientForTheResponse() {
+    AppointmentCreateDTO create = new AppointmentCreateDTO();
+    create.setDoctorId(doctor.getId());
+    create.setPatientId(patient.getId());
+    create.setSlotId(freeSlot.getId());
+    create.setSlotStartTime(freeSlot.getStartTime());
+
+    AppointmentDTO[] booked = new AppointmentDTO[1];
+    Statistics s = measure(() -> booked[0] = appointments.bookAppointment(create));
+
+    // claim update, slot + doctor select, appointment insert, patient proxy initialised by the mapper,
+    // plus a sequence call when the pooled id block happens to run out
+    long statements = s.getPrepareStatementCount();
+    assertTrue(statements == 4 || statements == 5, "statements: " + statements);
+    assertEquals(3, s.getEntityLoadCount());
+    assertEquals(1, s.getEntityInsertCount());
+    assertEquals("Pat", booked[0].getPatientName());
+    assertEquals("Cardiology", booked[0].getDoctorSpeciality());
+  }
+
+  @Test
+  void updateStatus_readsAppointmentWithPartiesAndSlot_inOneSelect() {
+    // approve: one select, the appointment update
+    assertCounts(2, 4, measure(() -> appointments.updateStatus(pending.getId(), "APPROVED")));
+  }
+
+  @Test
+  void updateStatus_cancel_alsoUpdatesTheSlot() {
+    Statistics s = measure(() -> {
+      AppointmentDTO dto = appointments.updateStatus(pending.getId(), "CANCELLED");
+      assertEquals("Doc", dto.getDoctorName());
+    });
+
+    assertCounts(3, 4, s);
+    assertEquals(2, s.getEntityUpdateCount());
+  }
+
+  @Test
+  void deleteAppointment_loadsOnlyTheAppointmentRow() {
+    // exists check, find before remove, delete
+    assertCounts(3, 1, measure(() -> appointments.deleteAppointment(pending.getId())));
+  }
+
+  // ---------- AppointmentSlotService ----------
+
+  @Test
+  void slotFindById_leavesTheDoctorAsAProxy() {
+    Statistics s = measure(() -> assertEquals(doctor.getId(), slots.findById(freeSlot.getId()).orElseThrow().getDoctorId()));
+    assertCounts(1, 1, s);
+  }
+
+  @Test
+  void slotsByStartTime_doNotSelectEachSlotsDoctor() {
+    Statistics s = measure(() -> assertEquals(3, slots.findByStartTimeBetween(base, base.plusHours(3)).size()));
+    assertCounts(1, 3, s);
+  }
+
+  @Test
+  void slotsByDoctor_readTheDoctorOnce() {
+    assertCounts(2, 3, measure(() -> assertEquals(2, slots.findByDoctorId(doctor.getId()).size())));
+    assertCounts(2, 2, measure(() -> assertEquals(1, slots.findByDoctorAndIsBookedFalse(doctor.getId()).size())));
+    assertCounts(2, 2, measure(() -> assertTrue(
+        slots.findFirstByDoctorAndIsBookedFalseOrderByStartTimeAsc(doctor.getId()).isPresent())));
+  }
+
+  @Test
+  void createSlot_loadsTheDoctor_andInsertsTheSlot() {
+    SlotCreateDTO create = new SlotCreateDTO();
+    create.setDoctorId(doctor.getId());
+    create.setStartTime(base.plusDays(1));
+    create.setEndTime(base.plusDays(1).plusMinutes(30));
+
+    // the statement count depends on where the pooled sequence block stands, so it is not pinned
+    Statistics s = measure(() -> slots.createSlot(create));
+    assertEquals(1, s.getEntityLoadCount());
+    assertEquals(1, s.getEntityInsertCount());
+  }
+
+  @Test
+  void updateSlot_readsSlotWithDoctor_inOneSelect() {
+    AppointmentSlotDTO patch = new AppointmentSlotDTO();
+    patch.setStartTime(base.plusMinutes(15));
+    patch.setEndTime(base.plusMinutes(45));
+
+    assertCounts(2, 2, measure(() -> slots.updateSlot(otherDoctorsSlot.getId(), otherDoctorsSlot.getStartTime(), patch)));
+  }
+
+  @Test
+  void deleteSlot_loadsOnlyTheSlot() {
+    // find, conditional delete
+    assertCounts(2, 1, measure(() -> slots.deleteSlot(freeSlot.getId(), freeSlot.getStartTime())));
+  }
+}